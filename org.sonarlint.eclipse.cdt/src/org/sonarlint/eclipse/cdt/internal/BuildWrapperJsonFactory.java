@@ -19,49 +19,78 @@
  */
 package org.sonarlint.eclipse.cdt.internal;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import org.eclipse.jdt.annotation.Nullable;
 
 public class BuildWrapperJsonFactory {
   private static final String COMPILER = "clang";
 
   public String create(Collection<ConfiguredFile> files, String baseDirPath) {
-    StringBuilder builder = new StringBuilder();
-    builder.append("{"
+    StringWriter writer = new StringWriter();
+    try {
+      write(files, baseDirPath, writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Stream the build wrapper JSON. Compiler probes are written once per distinct set of include paths and macros, and shared by all
+   * files having the same configuration.
+   */
+  public void write(Collection<ConfiguredFile> files, String baseDirPath, Writer writer) throws IOException {
+    writer.write("{"
       + "\"version\":0,"
       + "\"captures\":[");
 
+    Map<ProbeKey, String> probeExecutables = new HashMap<>();
     boolean first = true;
     for (ConfiguredFile file : files) {
       if (first) {
         first = false;
       } else {
-        builder.append(",");
+        writer.write(",");
+      }
+      ProbeKey probeKey = new ProbeKey(file.includes(), file.symbols());
+      String executable = probeExecutables.get(probeKey);
+      if (executable == null) {
+        executable = file.path();
+        probeExecutables.put(probeKey, executable);
+        writeCompilerProbes(writer, executable, file.includes(), file.symbols());
+        writer.write(",");
       }
-      writeFile(builder, baseDirPath, file.path(), file.includes(), file.symbols());
+      writeCommand(writer, baseDirPath, executable, file.path());
     }
 
-    builder.append("]}");
-    return builder.toString();
+    writer.write("]}");
   }
 
-  private static void writeFile(StringBuilder builder, String baseDirPath, String filePath, String[] includes, Map<String, String> symbols) {
+  private static void writeCompilerProbes(Writer writer, String compilerKey, String[] includes, Map<String, String> symbols) throws IOException {
     String probeStdout = probeStdout(symbols);
     String probeStderr = probeStderr(includes);
-    writeCompilerProbe(builder, filePath, probeStdout, probeStderr);
-    builder.append(",");
-    writeCompilerProbe(builder, filePath, probeStdout, probeStderr);
-    builder.append(",");
-    builder.append("{")
-      .append("\"compiler\":\"" + COMPILER + "\",")
-      .append("\"cwd\":" + quote(baseDirPath) + ",")
-      .append("\"executable\":" + quote(filePath) + ",")
-      .append("\"cmd\":[")
-      .append("\"clang\"")
-      .append("," + quote(filePath) + "")
-      .append("]}");
+    writeCompilerProbe(writer, compilerKey, probeStdout, probeStderr);
+    writer.write(",");
+    writeCompilerProbe(writer, compilerKey, probeStdout, probeStderr);
+  }
 
+  private static void writeCommand(Writer writer, String baseDirPath, String compilerKey, String filePath) throws IOException {
+    writer.write("{\"compiler\":\"" + COMPILER + "\",\"cwd\":");
+    quote(writer, baseDirPath);
+    writer.write(",\"executable\":");
+    quote(writer, compilerKey);
+    writer.write(",\"cmd\":[\"clang\",");
+    quote(writer, filePath);
+    writer.write("]}");
   }
 
   private static String probeStderr(String[] includes) {
@@ -81,62 +110,88 @@ public class BuildWrapperJsonFactory {
     return builder.toString();
   }
 
-  private static void writeCompilerProbe(StringBuilder builder, String compilerKey, String stdout, String stderr) {
-    builder
-      .append("{")
-      .append("\"compiler\":\"").append(COMPILER).append("\",")
-      .append("\"executable\":").append(quote(compilerKey)).append(",")
-      .append("\"stdout\":").append(quote(stdout)).append(",")
-      .append("\"stderr\":").append(quote(stderr))
-      .append("}");
+  private static void writeCompilerProbe(Writer writer, String compilerKey, String stdout, String stderr) throws IOException {
+    writer.write("{\"compiler\":\"" + COMPILER + "\",\"executable\":");
+    quote(writer, compilerKey);
+    writer.write(",\"stdout\":");
+    quote(writer, stdout);
+    writer.write(",\"stderr\":");
+    quote(writer, stderr);
+    writer.write("}");
   }
 
-  private static String quote(@Nullable String string) {
+  private static void quote(Writer writer, @Nullable String string) throws IOException {
     if (string == null || string.length() == 0) {
-      return "\"\"";
+      writer.write("\"\"");
+      return;
     }
 
     char c;
     int i;
     int len = string.length();
-    StringBuilder sb = new StringBuilder(len + 4);
     String t;
 
-    sb.append('"');
+    writer.write('"');
     for (i = 0; i < len; i += 1) {
       c = string.charAt(i);
       switch (c) {
         case '\\':
         case '"':
-          sb.append('\\');
-          sb.append(c);
+          writer.write('\\');
+          writer.write(c);
           break;
         case '\b':
-          sb.append("\\b");
+          writer.write("\\b");
           break;
         case '\t':
-          sb.append("\\t");
+          writer.write("\\t");
           break;
         case '\n':
-          sb.append("\\n");
+          writer.write("\\n");
           break;
         case '\f':
-          sb.append("\\f");
+          writer.write("\\f");
           break;
         case '\r':
-          sb.append("\\r");
+          writer.write("\\r");
           break;
         default:
           if (c < ' ') {
             t = "000" + Integer.toHexString(c);
-            sb.append("\\u" + t.substring(t.length() - 4));
+            writer.write("\\u" + t.substring(t.length() - 4));
           } else {
-            sb.append(c);
+            writer.write(c);
           }
       }
     }
-    sb.append('"');
-    return sb.toString();
+    writer.write('"');
+  }
+
+  private static class ProbeKey {
+    private final List<String> includes;
+    private final Map<String, String> symbols;
+
+    ProbeKey(String[] includes, Map<String, String> symbols) {
+      this.includes = Arrays.asList(includes);
+      this.symbols = symbols;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ProbeKey)) {
+        return false;
+      }
+      ProbeKey other = (ProbeKey) obj;
+      return includes.equals(other.includes) && symbols.equals(other.symbols);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(includes, symbols);
+    }
   }
 
 }
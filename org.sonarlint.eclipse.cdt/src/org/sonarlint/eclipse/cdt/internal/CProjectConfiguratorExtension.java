@@ -42,24 +42,17 @@ import org.sonarsource.sonarlint.core.client.api.common.Language;
  */
 public class CProjectConfiguratorExtension implements IAnalysisConfigurator, IFileLanguageProvider {
 
+  @Nullable
   private final CdtUtils cdtUtils;
 
   public CProjectConfiguratorExtension() {
-    cdtUtils = isCdtPresent() ? new CdtUtils() : null;
-  }
-
-  private static boolean isCdtPresent() {
-    try {
-      Class.forName("org.eclipse.cdt.core.CCorePlugin");
-      return true;
-    } catch (ClassNotFoundException e) {
-      return false;
-    }
+    // Shared by all instances, so that the build configuration is tracked once
+    cdtUtils = SonarLintCdtPlugin.getCdtUtils();
   }
 
   @Override
   public Set<String> whitelistedPlugins() {
-    if (isCdtPresent()) {
+    if (SonarLintCdtPlugin.isCdtPresent()) {
       return Collections.singleton("cpp");
     }
     return Collections.emptySet();
@@ -67,7 +60,7 @@ public class CProjectConfiguratorExtension implements IAnalysisConfigurator, IFi
 
   @Override
   public Set<Language> whitelistedLanguages() {
-    if (isCdtPresent()) {
+    if (SonarLintCdtPlugin.isCdtPresent()) {
       // Objective-C is not supported by CDT
       return EnumSet.of(Language.CPP, Language.C);
     }
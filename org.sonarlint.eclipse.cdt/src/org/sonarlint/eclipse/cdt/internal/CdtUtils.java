@@ -19,24 +19,26 @@
  */
 package org.sonarlint.eclipse.cdt.internal;
 
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.parser.IScannerInfoChangeListener;
 import org.eclipse.cdt.core.parser.IScannerInfoProvider;
+import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
+import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.content.IContentType;
@@ -50,13 +52,19 @@ import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 public class CdtUtils {
   private static final String CFAMILY_USE_CACHE = "sonar.cfamily.useCache";
   private static final String BUILD_WRAPPER_OUTPUT_PROP = "sonar.cfamily.build-wrapper-output";
-  private static final String BUILD_WRAPPER_OUTPUT_FILENAME = "build-wrapper-dump.json";
-  private static final Charset BUILD_WRAPPER_OUTPUT_CHARSET = StandardCharsets.UTF_8;
+  private static final String CFAMILY_WORK_DIR = "cfamily";
   private final BuildWrapperJsonFactory jsonFactory;
   private final CCorePlugin cCorePlugin;
   private final Predicate<IFile> fileValidator;
   private final SonarLintLogger logger;
   private final BiFunction<IProject, String, IContentType> contentTypeResolver;
+  private final Map<IProject, CompilationDatabase> databases = new ConcurrentHashMap<>();
+  private final Map<IProject, IScannerInfoChangeListener> scannerInfoListeners = new ConcurrentHashMap<>();
+
+  @Nullable
+  private ICProjectDescriptionListener descriptionListener;
+  @Nullable
+  private IResourceChangeListener projectListener;
 
   public CdtUtils() {
     this(new BuildWrapperJsonFactory(), CCorePlugin.getDefault(), CoreModel::isTranslationUnit,
@@ -79,39 +87,104 @@ public class CdtUtils {
       .collect(Collectors.toList());
 
     try {
-      Collection<ConfiguredFile> configuredFiles = configureCProject(context, context.getProject(), filesToAnalyze);
-      Path jsonPath = writeJson(context, context.getProject(), configuredFiles);
+      CompilationDatabase database = getDatabase(context.getProject());
+      configureCProject(context, context.getProject(), filesToAnalyze, database);
+      Path jsonPath = database.write(jsonFactory, getBaseDir(context, context.getProject()));
       logger.debug("Wrote build info to: " + jsonPath.toString());
-      context.setAnalysisProperty(CFAMILY_USE_CACHE, Boolean.FALSE.toString());
+      // The build wrapper output is stable between analyses, so the analyzer cache can be used
+      context.setAnalysisProperty(CFAMILY_USE_CACHE, Boolean.TRUE.toString());
       context.setAnalysisProperty(BUILD_WRAPPER_OUTPUT_PROP, jsonPath.getParent().toString());
     } catch (Exception e) {
       logger.error(e.getMessage(), e);
     }
   }
 
-  private Collection<ConfiguredFile> configureCProject(IPreAnalysisContext context, ISonarLintProject project, Collection<ISonarLintFile> filesToAnalyze) {
-    List<ConfiguredFile> files = new LinkedList<>();
-    IScannerInfoProvider infoProvider = cCorePlugin.getScannerInfoProvider((IProject) project.getResource());
-
-    for (ISonarLintFile file : filesToAnalyze) {
-      ConfiguredFile.Builder builder = new ConfiguredFile.Builder((IFile) file.getResource());
+  private CompilationDatabase getDatabase(ISonarLintProject project) {
+    IProject iProject = (IProject) project.getResource();
+    return databases.computeIfAbsent(iProject, p -> {
+      IScannerInfoChangeListener listener = (resource, info) -> invalidate(p);
+      cCorePlugin.getScannerInfoProvider(p).subscribe(p, listener);
+      scannerInfoListeners.put(p, listener);
+      return new CompilationDatabase(project.getWorkingDir().resolve(CFAMILY_WORK_DIR));
+    });
+  }
 
-      String path = ((DefaultPreAnalysisContext) context).getLocalPath(file);
-      IScannerInfo fileInfo = infoProvider.getScannerInformation(file.getResource());
+  /**
+   * Stop tracking the build configuration of a closed or deleted project.
+   */
+  public void forget(IProject project) {
+    databases.remove(project);
+    IScannerInfoChangeListener listener = scannerInfoListeners.remove(project);
+    if (listener != null) {
+      IScannerInfoProvider infoProvider = cCorePlugin.getScannerInfoProvider(project);
+      if (infoProvider != null) {
+        infoProvider.unsubscribe(project, listener);
+      }
+    }
+  }
 
-      builder.includes(fileInfo.getIncludePaths() != null ? fileInfo.getIncludePaths() : new String[0])
-        .symbols(fileInfo.getDefinedSymbols() != null ? fileInfo.getDefinedSymbols() : Collections.emptyMap())
-        .path(path);
+  /**
+   * Keep the compilation databases up to date with the build configuration and the projects of the workspace.
+   */
+  void registerListeners() {
+    descriptionListener = event -> invalidate(event.getProject());
+    CoreModel.getDefault().addCProjectDescriptionListener(descriptionListener, CProjectDescriptionEvent.APPLIED);
+    projectListener = event -> {
+      if (event.getResource() instanceof IProject) {
+        forget((IProject) event.getResource());
+      }
+    };
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(projectListener, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+  }
 
-      files.add(builder.build());
+  void unregisterListeners() {
+    if (descriptionListener != null) {
+      CoreModel.getDefault().removeCProjectDescriptionListener(descriptionListener);
+      descriptionListener = null;
+    }
+    if (projectListener != null) {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectListener);
+      projectListener = null;
     }
-    return files;
+    dispose();
+  }
+
+  void dispose() {
+    scannerInfoListeners.keySet().forEach(this::forget);
+    databases.clear();
+  }
 
+  /**
+   * Forget the build configuration of files of the project, since include paths or macros may have changed.
+   */
+  void invalidate(@Nullable IProject project) {
+    CompilationDatabase database = project != null ? databases.get(project) : null;
+    if (database != null) {
+      database.clear();
+    }
   }
 
-  private Path writeJson(IPreAnalysisContext context, ISonarLintProject project, Collection<ConfiguredFile> files) throws IOException {
-    String json = jsonFactory.create(files, getBaseDir(context, project));
-    return createJsonFile(context.getAnalysisTemporaryFolder(), json);
+  private void configureCProject(IPreAnalysisContext context, ISonarLintProject project, Collection<ISonarLintFile> filesToAnalyze, CompilationDatabase database) {
+    IScannerInfoProvider infoProvider = cCorePlugin.getScannerInfoProvider((IProject) project.getResource());
+
+    for (ISonarLintFile file : filesToAnalyze) {
+      String path = ((DefaultPreAnalysisContext) context).getLocalPath(file);
+      String key = file.getProjectRelativePath();
+      ConfiguredFile cached = database.get(key);
+      if (cached != null && cached.path().equals(path)) {
+        continue;
+      }
+      ConfiguredFile.Builder builder = new ConfiguredFile.Builder((IFile) file.getResource());
+      if (cached != null) {
+        // Only the local path changed, for example a copy of a file that is not on the local filesystem
+        builder.includes(cached.includes()).symbols(cached.symbols());
+      } else {
+        IScannerInfo fileInfo = infoProvider.getScannerInformation(file.getResource());
+        builder.includes(fileInfo.getIncludePaths() != null ? fileInfo.getIncludePaths() : new String[0])
+          .symbols(fileInfo.getDefinedSymbols() != null ? fileInfo.getDefinedSymbols() : Collections.emptyMap());
+      }
+      database.put(key, builder.path(path).build());
+    }
   }
 
   private static String getBaseDir(IPreAnalysisContext context, ISonarLintProject project) {
@@ -148,13 +221,6 @@ public class CdtUtils {
     }
   }
 
-  private static Path createJsonFile(Path workDir, String content) throws IOException {
-    Path jsonFilePath = workDir.resolve(BUILD_WRAPPER_OUTPUT_FILENAME);
-    Files.createDirectories(workDir);
-    Files.write(jsonFilePath, content.getBytes(BUILD_WRAPPER_OUTPUT_CHARSET));
-    return jsonFilePath;
-  }
-
   @Nullable
   public String language(IFile iFile) {
     return getFileLanguage(iFile.getProject(), iFile);
@@ -0,0 +1,90 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.cdt.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Build configuration of the files of a project that were analyzed so far, kept in a build wrapper JSON that survives
+ * analyses. The JSON is only rewritten when a file is added, removed from the project or its configuration changes, so the
+ * CFamily analyzer can reuse its cache between analyses.
+ */
+public class CompilationDatabase {
+  static final String BUILD_WRAPPER_OUTPUT_FILENAME = "build-wrapper-dump.json";
+
+  private final Path jsonFile;
+  private final Map<String, ConfiguredFile> filesByKey = new LinkedHashMap<>();
+  @Nullable
+  private String baseDirPath;
+  private boolean dirty = true;
+
+  public CompilationDatabase(Path outputDir) {
+    this.jsonFile = outputDir.resolve(BUILD_WRAPPER_OUTPUT_FILENAME);
+  }
+
+  @Nullable
+  public synchronized ConfiguredFile get(String key) {
+    return filesByKey.get(key);
+  }
+
+  public synchronized void put(String key, ConfiguredFile file) {
+    if (filesByKey.put(key, file) != file) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Forget all configured files, for example when the build settings of the project changed.
+   */
+  public synchronized void clear() {
+    filesByKey.clear();
+    dirty = true;
+  }
+
+  /**
+   * @return the up-to-date build wrapper JSON file
+   */
+  public synchronized Path write(BuildWrapperJsonFactory jsonFactory, String baseDirPath) throws IOException {
+    if (filesByKey.values().removeIf(f -> !f.file().exists())) {
+      dirty = true;
+    }
+    if (dirty || !Objects.equals(this.baseDirPath, baseDirPath) || !Files.exists(jsonFile)) {
+      Files.createDirectories(jsonFile.getParent());
+      Path tmpFile = jsonFile.resolveSibling(BUILD_WRAPPER_OUTPUT_FILENAME + ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+        jsonFactory.write(filesByKey.values(), baseDirPath, writer);
+      }
+      Files.move(tmpFile, jsonFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      this.baseDirPath = baseDirPath;
+      dirty = false;
+    }
+    return jsonFile;
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.cdt.internal;
+
+import org.eclipse.core.runtime.Plugin;
+import org.eclipse.jdt.annotation.Nullable;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Owns the {@link CdtUtils} shared by all extensions of this bundle, so that listeners on CDT and on the workspace are registered once,
+ * and released when the bundle stops. CDT classes are not referenced here, since CDT is optional.
+ */
+public class SonarLintCdtPlugin extends Plugin {
+
+  @Nullable
+  private static volatile CdtUtils cdtUtils;
+
+  @Override
+  public void start(BundleContext context) throws Exception {
+    super.start(context);
+    if (isCdtPresent()) {
+      CdtUtils utils = new CdtUtils();
+      utils.registerListeners();
+      cdtUtils = utils;
+    }
+  }
+
+  @Override
+  public void stop(BundleContext context) throws Exception {
+    CdtUtils utils = cdtUtils;
+    cdtUtils = null;
+    if (utils != null) {
+      utils.unregisterListeners();
+    }
+    super.stop(context);
+  }
+
+  /**
+   * @return <code>null</code> when CDT is not installed
+   */
+  @Nullable
+  static CdtUtils getCdtUtils() {
+    return cdtUtils;
+  }
+
+  static boolean isCdtPresent() {
+    try {
+      Class.forName("org.eclipse.cdt.core.CCorePlugin");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.internal.tracking.DigestUtils;
+
+/**
+ * Hash of line and text range contents, computed twice per raw issue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestUtilsBenchmark {
+
+  @Param({"10", "80", "1000"})
+  public int length;
+
+  private String content;
+
+  @Setup
+  public void setUp() {
+    String text = SyntheticData.fileContent(length / 20 + 1, 1);
+    content = text.substring(0, length);
+  }
+
+  @Benchmark
+  public String digest() {
+    return DigestUtils.digest(content);
+  }
+
+  @Benchmark
+  public int legacyChecksum() {
+    // As computed by RawIssueTrackable before checksums were computed without allocating
+    return DigestUtils.digest(content).hashCode();
+  }
+
+  @Benchmark
+  public int checksum() {
+    return DigestUtils.checksum(content);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public int legacyChecksumConcurrent() {
+    return DigestUtils.digest(content).hashCode();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public int checksumConcurrent() {
+    return DigestUtils.checksum(content);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonarlint.eclipse.core.internal.engine.EngineLifecycle;
+import org.sonarlint.eclipse.core.internal.engine.StandaloneEngineFacade;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
+
+/**
+ * Throughput of analyses sharing one engine, depending on the number of analyses allowed to run concurrently. Analyses are simulated
+ * by some CPU work.
+ * <p>
+ * {@link #facadeAnalysis()} goes through {@link StandaloneEngineFacade#runAnalysis}, the call made by analysis jobs, on an engine that
+ * only burns CPU. Analysis jobs themselves are not benchmarked, since they need a workspace and a running workbench.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class EngineLifecycleBenchmark {
+
+  @Param({"1", "2", "4"})
+  public int maxConcurrentAnalyses;
+
+  @Param({"100000"})
+  public long analysisTokens;
+
+  private EngineLifecycle lifecycle;
+  private StandaloneEngineFacade facade;
+  private StandaloneAnalysisConfiguration analysisConfiguration;
+
+  @Setup
+  public void setUp() {
+    lifecycle = new EngineLifecycle(() -> maxConcurrentAnalyses);
+    facade = new StandaloneEngineFacade(simulatedEngine(analysisTokens), () -> maxConcurrentAnalyses);
+    analysisConfiguration = StandaloneAnalysisConfiguration.builder()
+      .setBaseDir(Paths.get("."))
+      .build();
+  }
+
+  @Benchmark
+  public Object analysis() {
+    return lifecycle.analysis(new NullProgressMonitor(), () -> {
+      Blackhole.consumeCPU(analysisTokens);
+      return Boolean.TRUE;
+    });
+  }
+
+  @Benchmark
+  public Object engineAccess() {
+    return lifecycle.shared(() -> Boolean.TRUE);
+  }
+
+  @Benchmark
+  public Object facadeAnalysis(Blackhole blackhole) {
+    return facade.runAnalysis(analysisConfiguration, blackhole::consume, new NullProgressMonitor());
+  }
+
+  private static StandaloneSonarLintEngine simulatedEngine(long analysisTokens) {
+    AnalysisResults results = new AnalysisResults() {
+      @Override
+      public int indexedFileCount() {
+        return 0;
+      }
+
+      @Override
+      public Collection<ClientInputFile> failedAnalysisFiles() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public Map<ClientInputFile, Language> languagePerFile() {
+        return Collections.emptyMap();
+      }
+    };
+    return (StandaloneSonarLintEngine) Proxy.newProxyInstance(EngineLifecycleBenchmark.class.getClassLoader(), new Class<?>[] {StandaloneSonarLintEngine.class},
+      (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "analyze":
+            Blackhole.consumeCPU(analysisTokens);
+            return results;
+          case "getPluginDetails":
+            return Collections.emptyList();
+          default:
+            throw new UnsupportedOperationException(method.getName());
+        }
+      });
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarlint.eclipse.core.internal.tracking.CompactTrackable;
+import org.sonarlint.eclipse.core.internal.tracking.PreviousTrackable;
+import org.sonarlint.eclipse.core.internal.tracking.RawIssueTrackable;
+import org.sonarlint.eclipse.core.internal.tracking.Trackable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+
+/**
+ * Heap retained by the issues kept in cache for one file: the tracked wrappers, with the engine issues they reference, compared to
+ * compact copies. The retained size is reported by the "retainedBytes" secondary result. Time is not relevant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class IssueCacheFootprintBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int issueCount;
+
+  private List<Trackable> previous;
+
+  @Setup
+  public void setUp() {
+    previous = SyntheticData.previousIssues(issueCount, 1);
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public long retainedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      retainedBytes = 0;
+    }
+
+    Object measure(Supplier<Object> retained) {
+      long before = usedHeapAfterGc();
+      Object result = retained.get();
+      retainedBytes = usedHeapAfterGc() - before;
+      return result;
+    }
+
+    private static long usedHeapAfterGc() {
+      for (int i = 0; i < 3; i++) {
+        System.gc();
+      }
+      return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+  }
+
+  private Collection<Trackable> track() {
+    List<Issue> engineIssues = SyntheticData.engineIssues(issueCount, 2);
+    List<Trackable> tracked = new ArrayList<>(issueCount);
+    for (int i = 0; i < issueCount; i++) {
+      Issue issue = engineIssues.get(i);
+      Integer line = issue.getStartLine();
+      RawIssueTrackable raw = new RawIssueTrackable(issue, TextRange.get(line, issue.getStartLineOffset(), issue.getEndLine(), issue.getEndLineOffset()),
+        "content of issue " + i, "line content of issue " + i);
+      Trackable next = new PreviousTrackable(previous.get(i), raw);
+      next.setMarkerId((long) i);
+      tracked.add(next);
+    }
+    return tracked;
+  }
+
+  @Benchmark
+  public Object trackedWrappers(Footprint footprint) {
+    return footprint.measure(this::track);
+  }
+
+  @Benchmark
+  public Object compactCopies(Footprint footprint) {
+    return footprint.measure(() -> CompactTrackable.compact(track()));
+  }
+}
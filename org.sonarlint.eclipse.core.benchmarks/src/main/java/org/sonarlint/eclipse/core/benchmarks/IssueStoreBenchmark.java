@@ -0,0 +1,147 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.benchmarks.SyntheticData.SyntheticProject;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
+import org.sonarlint.eclipse.core.internal.tracking.IndexedObjectStore;
+import org.sonarlint.eclipse.core.internal.tracking.IssueStore;
+import org.sonarlint.eclipse.core.internal.tracking.StringStoreIndex;
+import org.sonarlint.eclipse.core.internal.tracking.Trackable;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Persistence of the issues of many files: {@link IssueStore}, with its segment files, compared to the previous layout of one file per
+ * source file ({@link IndexedObjectStore}). Each file has 20 issues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueStoreBenchmark {
+
+  private static final int ISSUES_PER_FILE = 20;
+
+  @Param({"10", "1000", "5000"})
+  public int fileCount;
+
+  @Param({"false", "true"})
+  public boolean memoryMapped;
+
+  private Path storeDir;
+  private IssueStore store;
+  private IndexedObjectStore<String, Sonarlint.Issues> legacyStore;
+  private List<Trackable> issues;
+  private Sonarlint.Issues protoIssues;
+  private int counter;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    storeDir = Files.createTempDirectory("sonarlint-bench");
+    issues = SyntheticData.previousIssues(ISSUES_PER_FILE, 1);
+    store = new IssueStore(storeDir.resolve("segmented"), new SyntheticProject(storeDir), memoryMapped);
+
+    Path legacyDir = storeDir.resolve("legacy");
+    Files.createDirectories(legacyDir);
+    legacyStore = new IndexedObjectStore<>(new StringStoreIndex(legacyDir), new HashingPathMapper(legacyDir, 2), in -> {
+        try {
+          return Sonarlint.Issues.parseFrom(in);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }, (out, value) -> {
+        try {
+          value.writeTo(out);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }, key -> true);
+    protoIssues = Sonarlint.Issues.newBuilder()
+      .addAllIssue(() -> issues.stream().map(t -> Sonarlint.Issues.Issue.newBuilder()
+        .setRuleKey(t.getRuleKey())
+        .setMessage(t.getMessage())
+        .setLine(t.getLine())
+        .setChecksum(t.getLineHash())
+        .build()).iterator())
+      .build();
+
+    for (int i = 0; i < fileCount; i++) {
+      store.save(path(i), issues);
+      legacyStore.write(path(i), protoIssues);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    store.close();
+    FileUtils.deleteRecursively(storeDir);
+  }
+
+  private static String path(int i) {
+    return "src/main/java/org/foo/package" + (i % 50) + "/File" + i + ".java";
+  }
+
+  private String nextPath() {
+    counter = (counter + 1) % fileCount;
+    return path(counter);
+  }
+
+  @Benchmark
+  public void save() throws IOException {
+    store.save(nextPath(), issues);
+  }
+
+  @Benchmark
+  public Collection<Trackable> read() throws IOException {
+    return store.read(nextPath());
+  }
+
+  @Benchmark
+  public void saveLegacy() throws IOException {
+    legacyStore.write(nextPath(), protoIssues);
+  }
+
+  @Benchmark
+  public Object readLegacy() throws IOException {
+    return legacyStore.read(nextPath());
+  }
+}
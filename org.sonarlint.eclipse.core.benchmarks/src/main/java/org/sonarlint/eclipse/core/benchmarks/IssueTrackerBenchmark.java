@@ -0,0 +1,90 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.benchmarks.SyntheticData.SyntheticFile;
+import org.sonarlint.eclipse.core.benchmarks.SyntheticData.SyntheticProject;
+import org.sonarlint.eclipse.core.internal.tracking.IssueStore;
+import org.sonarlint.eclipse.core.internal.tracking.IssueTracker;
+import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerCacheBudget;
+import org.sonarlint.eclipse.core.internal.tracking.PersistentIssueTrackerCache;
+import org.sonarlint.eclipse.core.internal.tracking.Trackable;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Tracking of the issues of a file against the ones of its previous analysis, kept in the issue cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueTrackerBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int issueCount;
+
+  private Path storeDir;
+  private IssueTracker issueTracker;
+  private SyntheticFile file;
+  private List<Trackable> next;
+
+  @Setup
+  public void setUp() throws IOException {
+    storeDir = Files.createTempDirectory("sonarlint-bench");
+    SyntheticProject project = new SyntheticProject(storeDir);
+    IssueStore store = new IssueStore(storeDir.resolve("issues"), project);
+    issueTracker = new IssueTracker(new PersistentIssueTrackerCache(store, new IssueTrackerCacheBudget(Long.MAX_VALUE, false), false));
+    file = new SyntheticFile(project, "src/main/java/Foo.java", "");
+    List<Trackable> previous = SyntheticData.previousIssues(issueCount, 1);
+    issueTracker.updateCache(file, previous);
+    next = SyntheticData.nextIssues(previous, 2);
+  }
+
+  @TearDown
+  public void tearDown() {
+    issueTracker.shutdown();
+    FileUtils.deleteRecursively(storeDir);
+  }
+
+  @Benchmark
+  public Collection<Trackable> matchAndTrackAsNew() {
+    return issueTracker.matchAndTrackAsNew(file, next);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+
+/**
+ * Conversion of the text ranges of all issues of a file to document offsets, as done when creating markers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkerUtilsBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int issueCount;
+
+  private IDocument document;
+  private TextRange[] textRanges;
+
+  @Setup
+  public void setUp() {
+    // About 4 issues every 10 lines
+    int lines = Math.max(10, issueCount * 10 / 4);
+    document = new Document(SyntheticData.fileContent(lines, 1));
+    Random random = new Random(2);
+    textRanges = new TextRange[issueCount];
+    for (int i = 0; i < issueCount; i++) {
+      int line = 1 + random.nextInt(lines);
+      if (i % 5 == 0) {
+        textRanges[i] = TextRange.get(line);
+      } else {
+        int endLine = Math.min(lines, line + random.nextInt(3));
+        textRanges[i] = TextRange.get(line, 2, endLine, 10);
+      }
+    }
+  }
+
+  @Benchmark
+  public void getPosition(Blackhole blackhole) {
+    for (TextRange textRange : textRanges) {
+      Position position = MarkerUtils.getPosition(document, textRange);
+      blackhole.consume(position);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.internal.tracking.StringStoreIndex;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Updates of an index of 10k to 100k entries, each one appended to the journal, with periodic compaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringStoreIndexBenchmark {
+
+  @Param({"10000", "50000", "100000"})
+  public int entryCount;
+
+  private Path indexDir;
+  private StringStoreIndex index;
+  private int counter;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    indexDir = Files.createTempDirectory("sonarlint-bench");
+    index = new StringStoreIndex(indexDir);
+    for (int i = 0; i < entryCount; i++) {
+      index.save(key(i), Paths.get("a", "b", String.valueOf(i)));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    FileUtils.deleteRecursively(indexDir);
+  }
+
+  private static String key(int i) {
+    return "src/main/java/org/foo/package" + (i % 100) + "/File" + i + ".java";
+  }
+
+  @Benchmark
+  public void update() {
+    counter++;
+    index.save(key(counter % entryCount), Paths.get("c", "d", String.valueOf(counter)));
+  }
+
+  @Benchmark
+  public void deleteAndRestore() {
+    counter++;
+    String key = key(counter % entryCount);
+    index.delete(key);
+    index.save(key, Paths.get("a", "b", String.valueOf(counter)));
+  }
+
+  @Benchmark
+  public int reload() {
+    return new StringStoreIndex(indexDir).keys().size();
+  }
+}
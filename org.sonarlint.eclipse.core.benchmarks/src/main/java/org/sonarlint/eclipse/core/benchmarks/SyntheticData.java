@@ -0,0 +1,391 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.benchmarks;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarlint.eclipse.core.internal.tracking.Trackable;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+
+/**
+ * Generators of reproducible data sets, shaped like the results of consecutive analyses of a file.
+ */
+final class SyntheticData {
+
+  private static final int RULE_COUNT = 40;
+  private static final int MESSAGE_COUNT = 200;
+  private static final String[] SEVERITIES = {"INFO", "MINOR", "MAJOR", "CRITICAL", "BLOCKER"};
+  private static final String[] TYPES = {"CODE_SMELL", "BUG", "VULNERABILITY"};
+
+  private SyntheticData() {
+  }
+
+  /**
+   * Issues of a file having about 4 issues every 10 lines.
+   */
+  static List<Trackable> previousIssues(int count, long seed) {
+    Random random = new Random(seed);
+    List<Trackable> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int line = 1 + (i * 10) / 4;
+      int rule = random.nextInt(RULE_COUNT);
+      result.add(new SyntheticTrackable("java:S" + (100 + rule), "Message " + random.nextInt(MESSAGE_COUNT), line, random.nextInt(), random.nextInt(),
+        i % 3 == 0 ? ("AX-" + i) : null));
+    }
+    return result;
+  }
+
+  /**
+   * Issues of the next analysis of the same file: most issues are unchanged, some moved because lines were inserted, some have a new
+   * message, some were fixed, and some are new.
+   */
+  static List<Trackable> nextIssues(List<Trackable> previous, long seed) {
+    Random random = new Random(seed);
+    List<Trackable> result = new ArrayList<>(previous.size());
+    int shift = 0;
+    for (Trackable p : previous) {
+      int dice = random.nextInt(100);
+      if (dice < 5) {
+        shift += 1 + random.nextInt(3);
+      }
+      if (dice < 60) {
+        result.add(new SyntheticTrackable(p.getRuleKey(), p.getMessage(), p.getLine() + shift, p.getTextRangeHash(), p.getLineHash(), null));
+      } else if (dice < 75) {
+        result.add(new SyntheticTrackable(p.getRuleKey(), "Changed " + p.getMessage(), p.getLine() + shift, p.getTextRangeHash(), p.getLineHash(), null));
+      } else if (dice < 85) {
+        result.add(new SyntheticTrackable(p.getRuleKey(), p.getMessage(), p.getLine() + shift, random.nextInt(), p.getLineHash(), null));
+      } else if (dice < 95) {
+        // fixed
+        continue;
+      } else {
+        result.add(new SyntheticTrackable("java:S" + (100 + random.nextInt(RULE_COUNT)), "New " + random.nextInt(MESSAGE_COUNT), p.getLine() + shift,
+          random.nextInt(), random.nextInt(), null));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Issues as returned by the server, without text range hash.
+   */
+  static List<Trackable> serverIssues(List<Trackable> previous) {
+    List<Trackable> result = new ArrayList<>(previous.size());
+    for (Trackable p : previous) {
+      result.add(new SyntheticTrackable(p.getRuleKey(), p.getMessage(), p.getLine(), null, p.getLineHash(), p.getServerIssueKey()));
+    }
+    return result;
+  }
+
+  /**
+   * Engine issues, with flows, as produced by an analysis.
+   */
+  static List<Issue> engineIssues(int count, long seed) {
+    Random random = new Random(seed);
+    List<Issue> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int line = 1 + (i * 10) / 4;
+      // Each issue gets its own strings, as if deserialized from the analyzer
+      result.add(new SyntheticIssue(new String("java:S" + (100 + random.nextInt(RULE_COUNT))), new String("Message " + random.nextInt(MESSAGE_COUNT)),
+        SEVERITIES[random.nextInt(SEVERITIES.length)], TYPES[random.nextInt(TYPES.length)], line, random.nextInt(3)));
+    }
+    return result;
+  }
+
+  /**
+   * Java-like content with the given number of lines.
+   */
+  static String fileContent(int lines, long seed) {
+    Random random = new Random(seed);
+    StringBuilder sb = new StringBuilder(lines * 40);
+    for (int i = 0; i < lines; i++) {
+      int indent = random.nextInt(4) * 2;
+      for (int j = 0; j < indent; j++) {
+        sb.append(' ');
+      }
+      sb.append("int variable").append(i).append(" = compute(").append(random.nextInt(1000)).append(", \"value\");\n");
+    }
+    return sb.toString();
+  }
+
+  static class SyntheticTrackable implements Trackable {
+    private final String ruleKey;
+    private final String message;
+    private final Integer line;
+    private final Integer textRangeHash;
+    private final Integer lineHash;
+    private final String serverIssueKey;
+    private Long markerId;
+
+    SyntheticTrackable(String ruleKey, String message, Integer line, Integer textRangeHash, Integer lineHash, String serverIssueKey) {
+      this.ruleKey = ruleKey;
+      this.message = message;
+      this.line = line;
+      this.textRangeHash = textRangeHash;
+      this.lineHash = lineHash;
+      this.serverIssueKey = serverIssueKey;
+    }
+
+    @Override
+    public Long getMarkerId() {
+      return markerId;
+    }
+
+    @Override
+    public void setMarkerId(Long id) {
+      this.markerId = id;
+    }
+
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public Integer getTextRangeHash() {
+      return textRangeHash;
+    }
+
+    @Override
+    public Integer getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public String getRuleKey() {
+      return ruleKey;
+    }
+
+    @Override
+    public String getRuleName() {
+      return ruleKey;
+    }
+
+    @Override
+    public Long getCreationDate() {
+      return null;
+    }
+
+    @Override
+    public String getServerIssueKey() {
+      return serverIssueKey;
+    }
+
+    @Override
+    public boolean isResolved() {
+      return false;
+    }
+
+    @Override
+    public String getAssignee() {
+      return "";
+    }
+
+    @Override
+    public String getSeverity() {
+      return "MAJOR";
+    }
+
+    @Override
+    public String getRawSeverity() {
+      return "MAJOR";
+    }
+
+    @Override
+    public String getType() {
+      return "CODE_SMELL";
+    }
+
+    @Override
+    public String getRawType() {
+      return "CODE_SMELL";
+    }
+
+    @Override
+    public TextRange getTextRange() {
+      return TextRange.get(line, 0, line, 10);
+    }
+
+    @Override
+    public List<Issue.Flow> getFlows() {
+      return Collections.emptyList();
+    }
+  }
+
+  static class SyntheticIssue implements Issue {
+    private final String ruleKey;
+    private final String message;
+    private final String severity;
+    private final String type;
+    private final org.sonarsource.sonarlint.core.client.api.common.TextRange textRange;
+    private final List<Flow> flows;
+
+    SyntheticIssue(String ruleKey, String message, String severity, String type, int line, int flowCount) {
+      this.ruleKey = ruleKey;
+      this.message = message;
+      this.severity = severity;
+      this.type = type;
+      this.textRange = new org.sonarsource.sonarlint.core.client.api.common.TextRange(line, 2, line, 20);
+      this.flows = new ArrayList<>(flowCount);
+      for (int i = 0; i < flowCount; i++) {
+        SyntheticIssue location = new SyntheticIssue(ruleKey, "Secondary location " + i, severity, type, line + i + 1, 0);
+        flows.add(() -> Collections.<IssueLocation>singletonList(location));
+      }
+    }
+
+    @Override
+    public String getSeverity() {
+      return severity;
+    }
+
+    @Override
+    public String getType() {
+      return type;
+    }
+
+    @Override
+    public String getRuleKey() {
+      return ruleKey;
+    }
+
+    @Override
+    public String getRuleName() {
+      return ruleKey;
+    }
+
+    @Override
+    public List<Flow> flows() {
+      return flows;
+    }
+
+    @Override
+    public ClientInputFile getInputFile() {
+      return null;
+    }
+
+    @Override
+    public org.sonarsource.sonarlint.core.client.api.common.TextRange getTextRange() {
+      return textRange;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+  }
+
+  static class SyntheticProject implements ISonarLintProject {
+    private final Path workingDir;
+
+    SyntheticProject(Path workingDir) {
+      this.workingDir = workingDir;
+    }
+
+    @Override
+    public String getName() {
+      return "benchmark";
+    }
+
+    @Override
+    public IResource getResource() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Path getWorkingDir() {
+      return workingDir;
+    }
+
+    @Override
+    public boolean exists(String relativeFilePath) {
+      return true;
+    }
+
+    @Override
+    public Object getObjectToNotify() {
+      return this;
+    }
+
+    @Override
+    public Collection<ISonarLintFile> files() {
+      return Collections.emptyList();
+    }
+  }
+
+  static class SyntheticFile implements ISonarLintFile {
+    private final ISonarLintProject project;
+    private final String relativePath;
+    private final IDocument document;
+
+    SyntheticFile(ISonarLintProject project, String relativePath, String content) {
+      this.project = project;
+      this.relativePath = relativePath;
+      this.document = new Document(content);
+    }
+
+    @Override
+    public ISonarLintProject getProject() {
+      return project;
+    }
+
+    @Override
+    public String getName() {
+      return relativePath.substring(relativePath.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public IResource getResource() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IDocument getDocument() {
+      return document;
+    }
+
+    @Override
+    public String getProjectRelativePath() {
+      return relativePath;
+    }
+
+    @Override
+    public Charset getCharset() {
+      return StandardCharsets.UTF_8;
+    }
+  }
+}
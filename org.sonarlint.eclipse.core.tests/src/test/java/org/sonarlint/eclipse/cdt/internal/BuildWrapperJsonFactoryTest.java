@@ -73,6 +73,23 @@ public class BuildWrapperJsonFactoryTest {
 
   }
 
+  @Test
+  public void shouldWriteProbesOncePerConfiguration() {
+    Map<String, String> defines = new LinkedHashMap<>();
+    defines.put("MACRO1", "V1");
+    List<ConfiguredFile> info = new ArrayList<>();
+    info.add(new ConfiguredFile.Builder(mock(IFile.class)).includes(new String[] {"/inc"}).symbols(defines).path("file1").build());
+    info.add(new ConfiguredFile.Builder(mock(IFile.class)).includes(new String[] {"/inc"}).symbols(new LinkedHashMap<>(defines)).path("file2").build());
+
+    String json = writer.create(info, "/base");
+
+    assertThat(json).isEqualTo("{\"version\":0,\"captures\":["
+      + "{\"compiler\":\"clang\",\"executable\":\"file1\",\"stdout\":\"#define MACRO1 V1\\n\",\"stderr\":\"#include <...> search starts here:\\n /inc\\nEnd of search list.\\n\"},"
+      + "{\"compiler\":\"clang\",\"executable\":\"file1\",\"stdout\":\"#define MACRO1 V1\\n\",\"stderr\":\"#include <...> search starts here:\\n /inc\\nEnd of search list.\\n\"},"
+      + "{\"compiler\":\"clang\",\"cwd\":\"/base\",\"executable\":\"file1\",\"cmd\":[\"clang\",\"file1\"]},"
+      + "{\"compiler\":\"clang\",\"cwd\":\"/base\",\"executable\":\"file1\",\"cmd\":[\"clang\",\"file2\"]}]}");
+  }
+
   private String loadExpected() throws IOException, URISyntaxException {
     String str = new String(Files.readAllBytes(Paths.get("src", "test", "resources", "expected.json")), StandardCharsets.UTF_8);
     return str.replace("\n", "").replace("\r", "");
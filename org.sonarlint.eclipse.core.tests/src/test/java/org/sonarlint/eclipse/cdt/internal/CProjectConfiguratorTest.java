@@ -19,11 +19,13 @@
  */
 package org.sonarlint.eclipse.cdt.internal;
 
+import java.io.Writer;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.function.Predicate;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.parser.IScannerInfoChangeListener;
 import org.eclipse.cdt.core.parser.IScannerInfoProvider;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -33,18 +35,22 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.analysis.IPreAnalysisContext;
+import org.sonarlint.eclipse.core.internal.jobs.DefaultPreAnalysisContext;
 import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintProjectAdapter;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -82,7 +88,7 @@ public class CProjectConfiguratorTest {
     when(project.getLocation()).thenReturn(Path.fromOSString(projectBaseDir.toString()));
     when(infoProvider.getScannerInformation(file)).thenReturn(info);
     when(fileValidator.test(file)).thenReturn(true);
-    when(jsonFactory.create(anyCollection(), anyString())).thenReturn("json");
+    when(project.getWorkingLocation(anyString())).thenReturn(Path.fromOSString(temp.getRoot().toString()));
 
     IPreAnalysisContext context = mock(IPreAnalysisContext.class);
     DefaultSonarLintProjectAdapter slProject = new DefaultSonarLintProjectAdapter(project);
@@ -90,23 +96,78 @@ public class CProjectConfiguratorTest {
     ISonarLintFile slFile = mock(ISonarLintFile.class);
     when(slFile.getProjectRelativePath()).thenReturn(Paths.get("file1").toString());
     when(context.getFilesToAnalyze()).thenReturn(Collections.singleton(slFile));
-    when(context.getAnalysisTemporaryFolder()).thenReturn(temp.getRoot().toPath());
+    when(context.getAnalysisTemporaryFolder()).thenReturn(temp.newFolder().toPath());
 
     configurator.configure(context, monitor);
 
-    // json created
-    verify(jsonFactory).create(anyCollection(), eq(projectBaseDir.toAbsolutePath().toString()));
-
-    // json written
-    assertThat(temp.getRoot().toPath().resolve("build-wrapper-dump.json")).hasContent("json");
+    // json written out of the analysis temporary folder
+    java.nio.file.Path outputDir = temp.getRoot().toPath().resolve("cfamily");
+    verify(jsonFactory).write(anyCollection(), eq(projectBaseDir.toAbsolutePath().toString()), any(Writer.class));
+    assertThat(outputDir.resolve("build-wrapper-dump.json")).exists();
 
     // property created
-    verify(context).setAnalysisProperty("sonar.cfamily.build-wrapper-output", temp.getRoot().toPath().toString());
-    verify(context).setAnalysisProperty("sonar.cfamily.useCache", "false");
+    verify(context).setAnalysisProperty("sonar.cfamily.build-wrapper-output", outputDir.toString());
+    verify(context).setAnalysisProperty("sonar.cfamily.useCache", "true");
 
     // no errors
     verify(logger, never()).error(Mockito.any(), Mockito.any());
     verify(logger, never()).error(Mockito.any());
   }
 
+  @Test
+  public void should_reuse_file_configuration_until_scanner_info_changes() throws Exception {
+    IProject project = mock(IProject.class);
+    when(project.getLocation()).thenReturn(Path.fromOSString(temp.newFolder().toString()));
+    when(project.getWorkingLocation(anyString())).thenReturn(Path.fromOSString(temp.newFolder().toString()));
+    IFile file = mock(IFile.class);
+    when(file.exists()).thenReturn(true);
+    IScannerInfoProvider infoProvider = mock(IScannerInfoProvider.class);
+    IScannerInfo info = mock(IScannerInfo.class);
+    when(info.getIncludePaths()).thenReturn(new String[] {"/usr/include"});
+    when(cCorePlugin.getScannerInfoProvider(project)).thenReturn(infoProvider);
+    when(infoProvider.getScannerInformation(file)).thenReturn(info);
+    when(fileValidator.test(file)).thenReturn(true);
+
+    ISonarLintFile slFile = mock(ISonarLintFile.class);
+    when(slFile.getResource()).thenReturn(file);
+    when(slFile.getProjectRelativePath()).thenReturn("file1.c");
+    DefaultPreAnalysisContext context = mock(DefaultPreAnalysisContext.class);
+    when(context.getProject()).thenReturn(new DefaultSonarLintProjectAdapter(project));
+    when(context.getFilesToAnalyze()).thenReturn(Collections.singleton(slFile));
+    when(context.getLocalPath(slFile)).thenReturn("/path/to/file1.c");
+    configurator = new CdtUtils(new BuildWrapperJsonFactory(), cCorePlugin, fileValidator, (proj, path) -> null, logger);
+
+    configurator.configure(context, mock(IProgressMonitor.class));
+    configurator.configure(context, mock(IProgressMonitor.class));
+    verify(infoProvider, times(1)).getScannerInformation(file);
+
+    ArgumentCaptor<IScannerInfoChangeListener> listener = ArgumentCaptor.forClass(IScannerInfoChangeListener.class);
+    verify(infoProvider).subscribe(eq(project), listener.capture());
+    listener.getValue().changeNotification(project, info);
+    configurator.configure(context, mock(IProgressMonitor.class));
+    verify(infoProvider, times(2)).getScannerInformation(file);
+
+    verify(logger, never()).error(Mockito.any(), Mockito.any());
+  }
+
+  @Test
+  public void should_unsubscribe_from_scanner_info_when_project_is_closed() throws Exception {
+    IProject project = mock(IProject.class);
+    when(project.getLocation()).thenReturn(Path.fromOSString(temp.newFolder().toString()));
+    when(project.getWorkingLocation(anyString())).thenReturn(Path.fromOSString(temp.newFolder().toString()));
+    IScannerInfoProvider infoProvider = mock(IScannerInfoProvider.class);
+    when(cCorePlugin.getScannerInfoProvider(project)).thenReturn(infoProvider);
+    IPreAnalysisContext context = mock(IPreAnalysisContext.class);
+    when(context.getProject()).thenReturn(new DefaultSonarLintProjectAdapter(project));
+    configurator.configure(context, mock(IProgressMonitor.class));
+
+    ArgumentCaptor<IScannerInfoChangeListener> listener = ArgumentCaptor.forClass(IScannerInfoChangeListener.class);
+    verify(infoProvider).subscribe(eq(project), listener.capture());
+    configurator.forget(project);
+    verify(infoProvider).unsubscribe(project, listener.getValue());
+
+    configurator.configure(context, mock(IProgressMonitor.class));
+    verify(infoProvider, times(2)).subscribe(eq(project), any());
+  }
+
 }
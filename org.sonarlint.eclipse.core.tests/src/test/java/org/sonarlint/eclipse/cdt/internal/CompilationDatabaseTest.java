@@ -0,0 +1,103 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.cdt.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.core.resources.IFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CompilationDatabaseTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private BuildWrapperJsonFactory jsonFactory;
+  private CompilationDatabase database;
+
+  @Before
+  public void setUp() throws IOException {
+    jsonFactory = spy(new BuildWrapperJsonFactory());
+    database = new CompilationDatabase(temp.newFolder().toPath());
+  }
+
+  @Test
+  public void should_only_rewrite_json_when_configuration_changed() throws IOException {
+    ConfiguredFile file1 = configuredFile("file1");
+    database.put("file1", file1);
+
+    Path json = database.write(jsonFactory, "/base");
+    assertThat(new String(Files.readAllBytes(json), StandardCharsets.UTF_8)).contains("[\"clang\",\"file1\"]");
+
+    database.put("file1", file1);
+    database.write(jsonFactory, "/base");
+    verify(jsonFactory, times(1)).write(anyCollection(), eq("/base"), any(Writer.class));
+
+    database.put("file2", configuredFile("file2"));
+    database.write(jsonFactory, "/base");
+    verify(jsonFactory, times(2)).write(anyCollection(), eq("/base"), any(Writer.class));
+    assertThat(database.get("file1")).isSameAs(file1);
+
+    database.clear();
+    assertThat(database.get("file1")).isNull();
+    database.write(jsonFactory, "/base");
+    assertThat(json).hasContent("{\"version\":0,\"captures\":[]}");
+  }
+
+  @Test
+  public void should_forget_files_removed_from_project() throws IOException {
+    ConfiguredFile file1 = configuredFile("file1");
+    ConfiguredFile file2 = configuredFile("file2");
+    database.put("file1", file1);
+    database.put("file2", file2);
+    Path json = database.write(jsonFactory, "/base");
+
+    when(file1.file().exists()).thenReturn(false);
+    database.write(jsonFactory, "/base");
+
+    verify(jsonFactory, times(2)).write(anyCollection(), eq("/base"), any(Writer.class));
+    assertThat(database.get("file1")).isNull();
+    assertThat(database.get("file2")).isSameAs(file2);
+    assertThat(new String(Files.readAllBytes(json), StandardCharsets.UTF_8)).doesNotContain("file1").contains("file2");
+  }
+
+  private static ConfiguredFile configuredFile(String path) {
+    IFile file = mock(IFile.class);
+    when(file.exists()).thenReturn(true);
+    return new ConfiguredFile.Builder(file).includes(new String[] {"/inc"}).path(path).build();
+  }
+
+}
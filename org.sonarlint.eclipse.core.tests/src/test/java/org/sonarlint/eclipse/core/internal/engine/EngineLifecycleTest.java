@@ -0,0 +1,138 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.engine;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class EngineLifecycleTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void analyses_run_concurrently_up_to_the_limit() throws Exception {
+    EngineLifecycle lifecycle = new EngineLifecycle(() -> 2);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger maxObserved = new AtomicInteger();
+
+    Future<?>[] futures = new Future<?>[4];
+    for (int i = 0; i < futures.length; i++) {
+      futures[i] = executor.submit(() -> lifecycle.analysis(new NullProgressMonitor(), () -> {
+        maxObserved.accumulateAndGet(lifecycle.getRunningAnalyses(), Math::max);
+        await(release);
+        return null;
+      }));
+    }
+    waitUntil(() -> lifecycle.getRunningAnalyses() == 2);
+    release.countDown();
+    for (Future<?> future : futures) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+
+    assertThat(maxObserved.get()).isEqualTo(2);
+    assertThat(lifecycle.getRunningAnalyses()).isZero();
+  }
+
+  @Test
+  public void stop_waits_for_running_analysis() throws Exception {
+    EngineLifecycle lifecycle = new EngineLifecycle(() -> 1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean analysisCompleted = new AtomicBoolean();
+
+    Future<?> analysis = executor.submit(() -> lifecycle.analysis(new NullProgressMonitor(), () -> {
+      await(release);
+      analysisCompleted.set(true);
+      return null;
+    }));
+    waitUntil(() -> lifecycle.getRunningAnalyses() == 1);
+    AtomicBoolean stoppedBeforeAnalysisCompleted = new AtomicBoolean();
+    Future<?> stop = executor.submit(() -> lifecycle.exclusive(() -> stoppedBeforeAnalysisCompleted.set(!analysisCompleted.get())));
+
+    Thread.sleep(100);
+    assertThat(stop.isDone()).isFalse();
+    release.countDown();
+    analysis.get(5, TimeUnit.SECONDS);
+    stop.get(5, TimeUnit.SECONDS);
+
+    assertThat(stoppedBeforeAnalysisCompleted.get()).isFalse();
+  }
+
+  @Test
+  public void cancel_pending_analysis() throws Exception {
+    EngineLifecycle lifecycle = new EngineLifecycle(() -> 1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.submit(() -> lifecycle.analysis(new NullProgressMonitor(), () -> {
+      await(release);
+      return null;
+    }));
+    waitUntil(() -> lifecycle.getRunningAnalyses() == 1);
+
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    Future<?> pending = executor.submit(() -> lifecycle.analysis(monitor, () -> {
+      fail("Should not run");
+      return null;
+    }));
+    monitor.setCanceled(true);
+
+    try {
+      pending.get(5, TimeUnit.SECONDS);
+      fail("Expected cancellation");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(CanceledException.class);
+    }
+    release.countDown();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+
+}
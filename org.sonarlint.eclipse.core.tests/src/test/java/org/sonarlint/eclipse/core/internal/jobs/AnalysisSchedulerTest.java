@@ -0,0 +1,172 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.IDocument;
+import org.junit.After;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.TriggerType;
+import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class AnalysisSchedulerTest {
+
+  private final ISonarLintProject project = mock(ISonarLintProject.class);
+  private final ISonarLintFile file1 = mock(ISonarLintFile.class);
+  private final ISonarLintFile file2 = mock(ISonarLintFile.class);
+  private final List<AnalyzeProjectRequest> analyzed = new CopyOnWriteArrayList<>();
+  private final List<StubAnalysisJob> jobs = new CopyOnWriteArrayList<>();
+  private CountDownLatch analysisCanComplete = new CountDownLatch(0);
+
+  private final AnalysisScheduler underTest = new AnalysisScheduler(100, request -> {
+    StubAnalysisJob job = new StubAnalysisJob(request);
+    jobs.add(job);
+    return job;
+  });
+
+  @After
+  public void shutdown() {
+    underTest.shutdown();
+  }
+
+  @Test
+  public void merge_requests_received_during_debounce_delay() throws Exception {
+    IDocument oldDoc = mock(IDocument.class);
+    IDocument newDoc = mock(IDocument.class);
+
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file1, oldDoc)), TriggerType.EDITOR_OPEN));
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file1, newDoc), new FileWithDocument(file2, null)), TriggerType.EDITOR_CHANGE));
+    assertThat(underTest.getQueueDepth()).isEqualTo(2);
+
+    waitUntil(() -> analyzed.size() == 1);
+    Thread.sleep(200);
+
+    assertThat(analyzed).hasSize(1);
+    AnalyzeProjectRequest request = analyzed.get(0);
+    assertThat(request.getTriggerType()).isEqualTo(TriggerType.EDITOR_CHANGE);
+    assertThat(request.getFiles().stream().map(FileWithDocument::getFile).collect(toList())).containsExactly(file1, file2);
+    assertThat(request.getFiles().iterator().next().getDocument()).isSameAs(newDoc);
+    assertThat(underTest.getReceivedRequestCount()).isEqualTo(2);
+    assertThat(underTest.getMergedFileCount()).isEqualTo(1);
+    assertThat(underTest.getScheduledJobCount()).isEqualTo(1);
+    assertThat(underTest.getQueueDepth()).isZero();
+  }
+
+  @Test
+  public void drop_queue_of_project_once_analyzed() throws Exception {
+    analysisCanComplete = new CountDownLatch(1);
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file1, null)), TriggerType.EDITOR_OPEN));
+    waitUntil(() -> jobs.size() == 1 && jobs.get(0).getState() == Job.RUNNING);
+    assertThat(underTest.getQueuedProjectCount()).isEqualTo(1);
+
+    analysisCanComplete.countDown();
+    waitUntil(() -> underTest.getQueuedProjectCount() == 0);
+
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file2, null)), TriggerType.EDITOR_OPEN));
+    waitUntil(() -> analyzed.size() == 2);
+  }
+
+  @Test
+  public void cancel_running_analysis_when_superseded() throws Exception {
+    analysisCanComplete = new CountDownLatch(1);
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file1, null), new FileWithDocument(file2, null)), TriggerType.EDITOR_OPEN));
+    waitUntil(() -> jobs.size() == 1 && jobs.get(0).getState() == Job.RUNNING);
+
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file1, null)), TriggerType.EDITOR_CHANGE));
+    waitUntil(() -> jobs.size() == 2);
+    analysisCanComplete.countDown();
+    waitUntil(() -> analyzed.size() == 1);
+
+    assertThat(jobs.get(0).canceled).isTrue();
+    assertThat(underTest.getSupersededJobCount()).isEqualTo(1);
+    // file2 was not requested again but its analysis was canceled
+    assertThat(jobs.get(1).request.getFiles().stream().map(FileWithDocument::getFile).collect(toList())).containsExactlyInAnyOrder(file1, file2);
+    assertThat(jobs.get(1).request.getTriggerType()).isEqualTo(TriggerType.EDITOR_CHANGE);
+  }
+
+  @Test
+  public void wait_for_running_analysis_when_not_superseded() throws Exception {
+    analysisCanComplete = new CountDownLatch(1);
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file1, null)), TriggerType.EDITOR_OPEN));
+    waitUntil(() -> jobs.size() == 1 && jobs.get(0).getState() == Job.RUNNING);
+
+    underTest.schedule(new AnalyzeProjectRequest(project, asList(new FileWithDocument(file2, null)), TriggerType.EDITOR_OPEN));
+    Thread.sleep(300);
+    assertThat(jobs).hasSize(1);
+    assertThat(underTest.getQueueDepth()).isEqualTo(1);
+
+    analysisCanComplete.countDown();
+    waitUntil(() -> analyzed.size() == 2);
+    assertThat(jobs.get(0).canceled).isFalse();
+    assertThat(underTest.getSupersededJobCount()).isZero();
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+
+  private class StubAnalysisJob extends Job {
+
+    private final AnalyzeProjectRequest request;
+    private volatile boolean canceled;
+
+    StubAnalysisJob(AnalyzeProjectRequest request) {
+      super("Stub analysis");
+      this.request = request;
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      CountDownLatch latch = analysisCanComplete;
+      try {
+        while (!latch.await(10, TimeUnit.MILLISECONDS)) {
+          if (monitor.isCanceled()) {
+            canceled = true;
+            return Status.CANCEL_STATUS;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      analyzed.add(request);
+      return Status.OK_STATUS;
+    }
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.resources.IResource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class AnalysisWorkDirPoolTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path poolDir;
+  private AnalysisWorkDirPool pool;
+
+  @Before
+  public void setUp() throws IOException {
+    poolDir = temp.newFolder().toPath();
+    pool = new AnalysisWorkDirPool(poolDir, 1, 10);
+  }
+
+  @Test
+  public void should_delete_directories_of_previous_session() throws IOException {
+    Path stale = Files.createDirectories(poolDir.resolve("0"));
+
+    new AnalysisWorkDirPool(poolDir, 1, 10);
+
+    assertThat(stale).doesNotExist();
+  }
+
+  @Test
+  public void should_reuse_cleaned_directories() throws IOException {
+    AnalysisWorkDir dir = pool.acquire();
+    Files.write(Files.createDirectories(dir.getPath().resolve("sub")).resolve("file"), new byte[] {1});
+    dir.release();
+
+    assertThat(dir.getPath()).isEmptyDirectory();
+    assertThat(pool.idleDirCount()).isEqualTo(1);
+    assertThat(pool.acquire()).isSameAs(dir);
+    assertThat(pool.idleDirCount()).isZero();
+  }
+
+  @Test
+  public void should_delete_directories_above_max_idle_count() throws IOException {
+    AnalysisWorkDir dir1 = pool.acquire();
+    AnalysisWorkDir dir2 = pool.acquire();
+    assertThat(dir1.getPath()).isNotEqualTo(dir2.getPath());
+
+    dir1.release();
+    dir2.release();
+
+    assertThat(pool.idleDirCount()).isEqualTo(1);
+    assertThat(dir1.getPath()).exists();
+    assertThat(dir2.getPath()).doesNotExist();
+  }
+
+  @Test
+  public void should_reuse_copies_of_unmodified_remote_files() throws Exception {
+    IFileStore source = remoteFile("abc");
+
+    AnalysisWorkDir dir = pool.acquire();
+    Path copy = dir.copyOf("src/file.c", 1, source);
+    assertThat(copy).hasContent("abc");
+    dir.release();
+
+    dir = pool.acquire();
+    assertThat(dir.copyOf("src/file.c", 1, source)).isEqualTo(copy).hasContent("abc");
+    verify(source, times(1)).copy(any(), anyInt(), any());
+
+    dir.copyOf("src/file.c", 2, source);
+    dir.copyOf("src/file.c", IResource.NULL_STAMP, source);
+    verify(source, times(3)).copy(any(), anyInt(), any());
+    dir.release();
+
+    // Not used by the last analysis
+    dir = pool.acquire();
+    dir.release();
+    assertThat(copy).doesNotExist();
+  }
+
+  @Test
+  public void should_not_retain_copies_above_size_limit() throws Exception {
+    AnalysisWorkDir dir = pool.acquire();
+    Path copy = dir.copyOf("file.c", 1, remoteFile("more than 10 bytes"));
+    dir.release();
+
+    assertThat(copy).doesNotExist();
+  }
+
+  private static IFileStore remoteFile(String content) throws Exception {
+    IFileStore source = mock(IFileStore.class);
+    doAnswer(invocation -> {
+      IFileStore destination = invocation.getArgument(0);
+      Files.write(destination.toLocalFile(0, null).toPath(), content.getBytes(StandardCharsets.UTF_8));
+      return null;
+    }).when(source).copy(any(), anyInt(), any());
+    return source;
+  }
+
+}
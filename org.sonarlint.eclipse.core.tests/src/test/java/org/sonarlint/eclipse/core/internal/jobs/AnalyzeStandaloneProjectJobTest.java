@@ -19,14 +19,21 @@
  */
 package org.sonarlint.eclipse.core.internal.jobs;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import org.assertj.core.groups.Tuple;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -34,6 +41,7 @@ import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.text.IDocument;
@@ -58,10 +66,16 @@ import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfigurat
 import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintFileAdapter;
 import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintProjectAdapter;
 import org.sonarlint.eclipse.tests.common.SonarTestCase;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class AnalyzeStandaloneProjectJobTest extends SonarTestCase {
 
@@ -200,6 +214,88 @@ public class AnalyzeStandaloneProjectJobTest extends SonarTestCase {
 
   }
 
+  @Test
+  public void streaming_analysis_should_prepare_tracking_before_using_the_engine() throws Exception {
+    DefaultSonarLintProjectAdapter slProject = new DefaultSonarLintProjectAdapter(project);
+    IFolder folder = project.getFolder("src/main/streaming");
+    if (!folder.exists()) {
+      folder.create(true, true, null);
+    }
+    String content = "var a = 1;\n";
+    List<FileWithDocument> filesToAnalyze = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      IFile file = folder.getFile("file" + i + ".js");
+      if (!file.exists()) {
+        file.create(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), true, null);
+      }
+      filesToAnalyze.add(new FileWithDocument(new DefaultSonarLintFileAdapter(slProject, file), new SimpleDocument(content)));
+    }
+
+    EngineLockingJob underTest = new EngineLockingJob(new AnalyzeProjectRequest(slProject, filesToAnalyze, TriggerType.MANUAL));
+    underTest.schedule();
+    assertThat(underTest.join(30_000, new NullProgressMonitor())).isTrue();
+    assertThat(underTest.getResult().isOK()).isTrue();
+
+    assertThat(underTest.exclusiveAccessBeforeTracking).isTrue();
+    IFile lastFile = (IFile) filesToAnalyze.get(filesToAnalyze.size() - 1).getFile().getResource();
+    assertThat(lastFile.findMarkers(SonarLintCorePlugin.MARKER_REPORT_ID, true, IResource.DEPTH_ZERO)).hasSize(1);
+  }
+
+  /**
+   * Reports one issue per file while holding the engine, like the engine does, and needs exclusive access to the engine before
+   * tracking issues, like a connected analysis downloading server issues.
+   */
+  private static class EngineLockingJob extends AnalyzeStandaloneProjectJob {
+    private final ReadWriteLock engineLock = new ReentrantReadWriteLock();
+    private volatile boolean exclusiveAccessBeforeTracking;
+
+    private EngineLockingJob(AnalyzeProjectRequest request) {
+      super(request);
+    }
+
+    @Override
+    protected AnalysisResults runAnalysis(StandaloneAnalysisConfiguration analysisConfig, SonarLintIssueListener issueListener, IProgressMonitor monitor) {
+      engineLock.readLock().lock();
+      try {
+        for (ClientInputFile inputFile : analysisConfig.inputFiles()) {
+          issueListener.handle(issue(inputFile));
+        }
+      } finally {
+        engineLock.readLock().unlock();
+      }
+      AnalysisResults results = mock(AnalysisResults.class);
+      when(results.failedAnalysisFiles()).thenReturn(Collections.emptyList());
+      return results;
+    }
+
+    @Override
+    protected void beforeTrackingIssues(TriggerType triggerType, int totalTrackedFiles) {
+      try {
+        // A read lock can't be upgraded, so this fails if called by the issue listener
+        exclusiveAccessBeforeTracking = engineLock.writeLock().tryLock(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (exclusiveAccessBeforeTracking) {
+        engineLock.writeLock().unlock();
+      }
+    }
+
+    private static Issue issue(ClientInputFile inputFile) {
+      Issue issue = mock(Issue.class);
+      when(issue.getInputFile()).thenReturn(inputFile);
+      when(issue.getRuleKey()).thenReturn("javascript:S3504");
+      when(issue.getMessage()).thenReturn("Unexpected var");
+      when(issue.getSeverity()).thenReturn("MAJOR");
+      when(issue.getType()).thenReturn("CODE_SMELL");
+      when(issue.getStartLine()).thenReturn(1);
+      when(issue.getStartLineOffset()).thenReturn(0);
+      when(issue.getEndLine()).thenReturn(1);
+      when(issue.getEndLineOffset()).thenReturn(3);
+      return issue;
+    }
+  }
+
   private void verifyMarkers(FileWithDocument file1ToAnalyze, FileWithDocument file2ToAnalyze, String markerType) throws CoreException {
     List<IMarker> markers1 = Arrays.asList(file1ToAnalyze.getFile().getResource().findMarkers(markerType, true, IResource.DEPTH_ONE));
     assertThat(markers1).extracting(markerAttributes(IMarker.LINE_NUMBER, IMarker.MESSAGE)).hasSize(6);
@@ -0,0 +1,130 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jface.text.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintFileAdapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EclipseInputFileTest {
+
+  private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void should_read_content_from_disk_with_file_charset() throws IOException {
+    Path path = temp.newFile("Foo.java").toPath();
+    Files.write(path, "café".getBytes(StandardCharsets.ISO_8859_1));
+    DefaultSonarLintFileAdapter file = file(path, StandardCharsets.ISO_8859_1, false);
+
+    EclipseInputFile underTest = new EclipseInputFile(false, file, mock(AnalysisWorkDir.class), null, null);
+
+    assertThat(underTest.getCharset()).isEqualTo(StandardCharsets.ISO_8859_1);
+    assertThat(underTest.contents()).isEqualTo("café");
+    assertThat(read(underTest)).isEqualTo(Files.readAllBytes(path));
+    verify(file, never()).getDocument();
+  }
+
+  @Test
+  public void should_strip_bom_from_contents() throws IOException {
+    Path path = temp.newFile("Foo.java").toPath();
+    Files.write(path, concat(UTF8_BOM, "class Foo {}".getBytes(StandardCharsets.UTF_8)));
+
+    EclipseInputFile underTest = new EclipseInputFile(false, file(path, StandardCharsets.UTF_8, false), mock(AnalysisWorkDir.class), null, null);
+
+    assertThat(underTest.contents()).isEqualTo("class Foo {}");
+  }
+
+  @Test
+  public void should_strip_bom_from_stream() throws IOException {
+    Path path = temp.newFile("Foo.java").toPath();
+    Files.write(path, concat(UTF8_BOM, "class Foo {}".getBytes(StandardCharsets.UTF_8)));
+
+    EclipseInputFile underTest = new EclipseInputFile(false, file(path, StandardCharsets.UTF_8, false), mock(AnalysisWorkDir.class), null, null);
+
+    // Same content as contents()
+    assertThat(read(underTest)).isEqualTo("class Foo {}".getBytes(StandardCharsets.UTF_8));
+    assertThat(underTest.getCharset()).isEqualTo(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void should_read_file_buffer_when_it_has_unsaved_changes() throws IOException {
+    Path path = temp.newFile("Foo.java").toPath();
+    Files.write(path, "on disk".getBytes(StandardCharsets.ISO_8859_1));
+    DefaultSonarLintFileAdapter file = file(path, StandardCharsets.ISO_8859_1, true);
+    when(file.getDocument()).thenReturn(new Document("unsaved café"));
+
+    EclipseInputFile underTest = new EclipseInputFile(false, file, mock(AnalysisWorkDir.class), null, null);
+
+    assertThat(underTest.contents()).isEqualTo("unsaved café");
+    // Content of documents is streamed in UTF-8
+    assertThat(underTest.getCharset()).isEqualTo(StandardCharsets.UTF_8);
+    assertThat(read(underTest)).isEqualTo("unsaved café".getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static DefaultSonarLintFileAdapter file(Path path, Charset charset, boolean dirty) {
+    IFile iFile = mock(IFile.class);
+    when(iFile.getLocationURI()).thenReturn(path.toUri());
+    DefaultSonarLintFileAdapter file = mock(DefaultSonarLintFileAdapter.class);
+    when(file.getResource()).thenReturn(iFile);
+    when(file.getProjectRelativePath()).thenReturn(path.getFileName().toString());
+    when(file.getCharset()).thenReturn(charset);
+    when(file.isDirty()).thenReturn(dirty);
+    return file;
+  }
+
+  private static byte[] read(EclipseInputFile inputFile) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = inputFile.inputStream()) {
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] concat(byte[] first, byte[] second) {
+    byte[] result = new byte[first.length + second.length];
+    System.arraycopy(first, 0, result, 0, first.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+
+}
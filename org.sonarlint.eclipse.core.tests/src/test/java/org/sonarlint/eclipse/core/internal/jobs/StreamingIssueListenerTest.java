@@ -0,0 +1,120 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintIssuable;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StreamingIssueListenerTest {
+
+  private final ISonarLintProject project = mock(ISonarLintProject.class);
+  private final Map<ISonarLintIssuable, List<Issue>> issuesPerResource = new LinkedHashMap<>();
+  private final List<Map<ISonarLintIssuable, List<Issue>>> batches = new ArrayList<>();
+  private final StreamingIssueListener listener = new StreamingIssueListener(project, issuesPerResource, 2, batches::add);
+
+  private static Issue issueOn(ISonarLintIssuable resource) {
+    Issue issue = mock(Issue.class);
+    if (resource instanceof ISonarLintFile) {
+      ClientInputFile inputFile = mock(ClientInputFile.class);
+      when(inputFile.getClientObject()).thenReturn(resource);
+      when(issue.getInputFile()).thenReturn(inputFile);
+    }
+    return issue;
+  }
+
+  @Test
+  public void should_flush_done_files_by_batches() {
+    ISonarLintFile file1 = mock(ISonarLintFile.class);
+    ISonarLintFile file2 = mock(ISonarLintFile.class);
+    ISonarLintFile file3 = mock(ISonarLintFile.class);
+    ISonarLintFile fileWithoutIssue = mock(ISonarLintFile.class);
+    issuesPerResource.put(fileWithoutIssue, new ArrayList<>());
+
+    Issue issue1 = issueOn(file1);
+    Issue issue2 = issueOn(file2);
+    listener.handle(issue1);
+    listener.handle(issueOn(file1));
+    listener.handle(issue2);
+    assertThat(batches).isEmpty();
+
+    Issue projectIssue = issueOn(project);
+    listener.handle(projectIssue);
+    listener.handle(issueOn(file3));
+
+    assertThat(batches).hasSize(1);
+    assertThat(batches.get(0)).containsOnlyKeys(file1, file2);
+    assertThat(batches.get(0).get(file1)).hasSize(2).contains(issue1);
+    assertThat(batches.get(0).get(file2)).containsExactly(issue2);
+    assertThat(issuesPerResource).containsOnlyKeys(fileWithoutIssue, project, file3);
+    assertThat(issuesPerResource.get(project)).containsExactly(projectIssue);
+    assertThat(listener.getIssueCount()).isEqualTo(5);
+  }
+
+  @Test
+  public void should_not_consider_file_done_if_it_gets_issues_again_before_flush() {
+    ISonarLintFile file1 = mock(ISonarLintFile.class);
+    ISonarLintFile file2 = mock(ISonarLintFile.class);
+
+    listener.handle(issueOn(file1));
+    listener.handle(issueOn(file2));
+    listener.handle(issueOn(file1));
+    assertThat(batches).isEmpty();
+    assertThat(issuesPerResource.get(file1)).hasSize(2);
+
+    listener.handle(issueOn(file2));
+    assertThat(batches).isEmpty();
+    assertThat(listener.getLateIssuesPerResource()).isEmpty();
+  }
+
+  @Test
+  public void should_keep_issues_of_flushed_files_apart() {
+    ISonarLintFile file1 = mock(ISonarLintFile.class);
+    ISonarLintFile file2 = mock(ISonarLintFile.class);
+    ISonarLintFile file3 = mock(ISonarLintFile.class);
+
+    listener.handle(issueOn(file1));
+    listener.handle(issueOn(file2));
+    listener.handle(issueOn(file3));
+    assertThat(batches).hasSize(1);
+
+    Issue lateIssue = issueOn(file1);
+    listener.handle(lateIssue);
+    listener.handle(issueOn(file3));
+
+    assertThat(listener.getLateIssuesPerResource()).containsOnlyKeys(file1);
+    assertThat(listener.getLateIssuesPerResource().get(file1)).containsExactly(lateIssue);
+    assertThat(issuesPerResource).containsOnlyKeys(file3);
+    assertThat(issuesPerResource.get(file3)).hasSize(2);
+    assertThat(batches).hasSize(1);
+  }
+
+}
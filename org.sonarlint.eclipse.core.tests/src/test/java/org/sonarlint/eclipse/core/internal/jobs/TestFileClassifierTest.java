@@ -0,0 +1,85 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.preferences.ConfigurationScope;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
+import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintFileAdapter;
+import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintProjectAdapter;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.tests.common.SonarTestCase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestFileClassifierTest extends SonarTestCase {
+
+  private IProject project;
+  private List<ISonarLintFile> files;
+
+  @Before
+  public void prepare() throws Exception {
+    project = importEclipseProject("SimpleProject");
+    DefaultSonarLintProjectAdapter slProject = new DefaultSonarLintProjectAdapter(project);
+    files = Arrays.asList(
+      new DefaultSonarLintFileAdapter(slProject, project.getFile("src/main/java/ViolationOnFile.java")),
+      new DefaultSonarLintFileAdapter(slProject, project.getFile("src/main/java/ViolationOnFileCrLf.java")),
+      new DefaultSonarLintFileAdapter(slProject, project.getFile("src/main/java/ClassOnDefaultPackage.java")));
+  }
+
+  @After
+  public void resetPatterns() {
+    setTestFilePatterns(SonarLintGlobalConfiguration.PREF_TEST_FILE_REGEXPS_DEFAULT);
+  }
+
+  @Test
+  public void bulk_classification_should_match_single_file_classification() {
+    setTestFilePatterns("**/*CrLf.java,**/ClassOn*");
+    TestFileClassifier classifier = new TestFileClassifier();
+
+    assertThat(classifier.getTestFiles(files)).containsOnly(files.get(1), files.get(2));
+    assertThat(files).filteredOn(classifier::isTest).containsExactly(files.get(1), files.get(2));
+  }
+
+  @Test
+  public void should_classify_again_when_patterns_change() {
+    setTestFilePatterns("**/*CrLf.java");
+    TestFileClassifier classifier = new TestFileClassifier();
+    assertThat(classifier.getTestFiles(files)).containsOnly(files.get(1));
+
+    setTestFilePatterns("**/ViolationOnFile.java");
+    assertThat(classifier.getTestFiles(files)).containsOnly(files.get(0));
+
+    classifier.invalidate(project.getName());
+    assertThat(classifier.getTestFiles(files)).containsOnly(files.get(0));
+  }
+
+  private static void setTestFilePatterns(String patterns) {
+    IEclipsePreferences node = ConfigurationScope.INSTANCE.getNode(SonarLintCorePlugin.UI_PLUGIN_ID);
+    node.put(SonarLintGlobalConfiguration.PREF_TEST_FILE_REGEXPS, patterns);
+  }
+}
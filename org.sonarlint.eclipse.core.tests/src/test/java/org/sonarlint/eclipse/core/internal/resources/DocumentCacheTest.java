@@ -0,0 +1,104 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.resources;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DocumentCacheTest {
+
+  private final ISonarLintProject project = mock(ISonarLintProject.class);
+  private final ISonarLintFile file1 = new DefaultSonarLintFileAdapter(project, file("/DocumentCacheTest/File1.java"));
+  private final ISonarLintFile file2 = new DefaultSonarLintFileAdapter(project, file("/DocumentCacheTest/File2.java"));
+
+  @Test
+  public void should_cache_documents_of_files_in_open_scopes_only() {
+    IDocument document = new Document("content");
+    DocumentCache.offer(file1, () -> document);
+    assertThat(DocumentCache.get(file1)).isNull();
+
+    try (DocumentCache.Scope scope = DocumentCache.open(Collections.singletonList(file1))) {
+      DocumentCache.offer(file1, () -> document);
+      DocumentCache.offer(file1, () -> new Document("other"));
+      DocumentCache.offer(file2, () -> document);
+
+      assertThat(DocumentCache.get(file1)).isSameAs(document);
+      assertThat(DocumentCache.get(file2)).isNull();
+    }
+
+    assertThat(DocumentCache.get(file1)).isNull();
+  }
+
+  @Test
+  public void should_keep_documents_until_last_scope_is_closed() {
+    IDocument document = new Document("content");
+    DocumentCache.Scope scope1 = DocumentCache.open(Arrays.asList(file1, file2));
+    DocumentCache.Scope scope2 = DocumentCache.open(Collections.singletonList(file1));
+    DocumentCache.offer(file1, () -> document);
+
+    scope1.close();
+    scope1.close();
+    assertThat(DocumentCache.get(file1)).isSameAs(document);
+
+    scope2.close();
+    assertThat(DocumentCache.get(file1)).isNull();
+  }
+
+  @Test
+  public void should_release_document_before_end_of_scope() {
+    try (DocumentCache.Scope scope = DocumentCache.open(Collections.singletonList(file1))) {
+      DocumentCache.offer(file1, () -> new Document("content"));
+      DocumentCache.release(file1);
+
+      assertThat(DocumentCache.get(file1)).isNull();
+      IDocument reloaded = new Document("reloaded");
+      DocumentCache.offer(file1, () -> reloaded);
+      assertThat(DocumentCache.get(file1)).isSameAs(reloaded);
+    }
+  }
+
+  @Test
+  public void should_ignore_other_file_implementations() {
+    ISonarLintFile otherFile = mock(ISonarLintFile.class);
+    try (DocumentCache.Scope scope = DocumentCache.open(Collections.singletonList(otherFile))) {
+      DocumentCache.offer(otherFile, () -> new Document("content"));
+
+      assertThat(DocumentCache.get(otherFile)).isNull();
+    }
+  }
+
+  private static IFile file(String fullPath) {
+    IFile file = mock(IFile.class);
+    when(file.getFullPath()).thenReturn(new Path(fullPath));
+    return file;
+  }
+
+}
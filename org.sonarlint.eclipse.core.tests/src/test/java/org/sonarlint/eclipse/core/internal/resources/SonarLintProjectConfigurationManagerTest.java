@@ -23,8 +23,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonarlint.eclipse.core.SonarLintLogger;
@@ -32,9 +36,17 @@ import org.sonarlint.eclipse.core.internal.LogListener;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration.EclipseProjectBinding;
+import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfigurationManager;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarlint.eclipse.tests.common.SonarTestCase;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class SonarLintProjectConfigurationManagerTest extends SonarTestCase {
 
@@ -87,4 +99,53 @@ public class SonarLintProjectConfigurationManagerTest extends SonarTestCase {
     assertThat(errors).isEmpty();
 
   }
+
+  @Test
+  public void snapshots_are_shared_until_settings_change() throws IOException, CoreException {
+    IProject project = importEclipseProject("SimpleProject");
+    ISonarLintProject slProject = new DefaultSonarLintProjectAdapter(project);
+    SonarLintProjectConfigurationManager configManager = SonarLintCorePlugin.getInstance().getProjectConfigManager();
+
+    SonarLintProjectConfiguration snapshot = configManager.loadSnapshot(slProject);
+    assertThat(snapshot.isReadOnly()).isTrue();
+    assertThat(configManager.loadSnapshot(slProject)).isSameAs(snapshot);
+    assertThatThrownBy(() -> snapshot.setAutoEnabled(false)).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> snapshot.getFileExclusions().clear()).isInstanceOf(UnsupportedOperationException.class);
+
+    SonarLintProjectConfiguration copy = snapshot.copy();
+    assertThat(copy.isReadOnly()).isFalse();
+    copy.setProjectBinding(new EclipseProjectBinding("myServer", "myProjectKey", "aPrefix", "aSuffix"));
+    configManager.save(slProject.getScopeContext(), copy);
+
+    SonarLintProjectConfiguration updated = configManager.loadSnapshot(slProject);
+    assertThat(updated).isNotSameAs(snapshot);
+    assertThat(updated.getVersion()).isGreaterThan(snapshot.getVersion());
+    assertThat(updated.getProjectBinding()).contains(new EclipseProjectBinding("myServer", "myProjectKey", "aPrefix", "aSuffix"));
+    assertThat(snapshot.getProjectBinding()).isEmpty();
+  }
+
+  @Test
+  public void snapshots_of_closed_projects_are_forgotten() {
+    IProject project = mock(IProject.class);
+    when(project.getType()).thenReturn(IResource.PROJECT);
+    IEclipsePreferences projectNode = mock(IEclipsePreferences.class);
+    IScopeContext projectScope = mock(IScopeContext.class);
+    when(projectScope.getNode(anyString())).thenReturn(projectNode);
+    ISonarLintProject slProject = mock(ISonarLintProject.class);
+    when(slProject.getResource()).thenReturn(project);
+    when(slProject.getName()).thenReturn("closed");
+    when(slProject.getScopeContext()).thenReturn(projectScope);
+    SonarLintProjectConfigurationManager configManager = new SonarLintProjectConfigurationManager();
+
+    SonarLintProjectConfiguration snapshot = configManager.loadSnapshot(slProject);
+    verify(projectNode).addPreferenceChangeListener(any());
+
+    IResourceChangeEvent event = mock(IResourceChangeEvent.class);
+    when(event.getType()).thenReturn(IResourceChangeEvent.PRE_CLOSE);
+    when(event.getResource()).thenReturn(project);
+    configManager.resourceChanged(event);
+
+    verify(projectNode).removePreferenceChangeListener(any());
+    assertThat(configManager.loadSnapshot(slProject)).isNotSameAs(snapshot);
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.Collections;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompactTrackableTest {
+
+  private Trackable newRaw() {
+    Issue issue = mock(Issue.class);
+    when(issue.getStartLine()).thenReturn(3);
+    when(issue.getMessage()).thenReturn(new String("Remove this"));
+    when(issue.getRuleKey()).thenReturn(new String("java:S123"));
+    when(issue.getRuleName()).thenReturn("Rule name");
+    when(issue.getSeverity()).thenReturn("MAJOR");
+    when(issue.getType()).thenReturn("BUG");
+    when(issue.flows()).thenReturn(Collections.singletonList(mock(Flow.class)));
+    return new RawIssueTrackable(issue, TextRange.get(3, 1, 3, 5), "this", "  this");
+  }
+
+  @Test
+  public void should_copy_all_attributes() {
+    Trackable raw = newRaw();
+    Trackable previous = mock(Trackable.class);
+    when(previous.getCreationDate()).thenReturn(1000L);
+    when(previous.getServerIssueKey()).thenReturn("AX-123");
+    when(previous.getAssignee()).thenReturn("alice");
+    when(previous.getSeverity()).thenReturn("BLOCKER");
+    when(previous.getMarkerId()).thenReturn(0L);
+    Trackable tracked = new PreviousTrackable(previous, raw);
+
+    Trackable compact = CompactTrackable.of(tracked);
+
+    assertThat(compact).isEqualToComparingOnlyGivenFields(tracked, "markerId", "line", "message", "textRangeHash", "lineHash", "ruleKey", "ruleName",
+      "creationDate", "serverIssueKey", "resolved", "assignee", "severity", "rawSeverity", "type", "rawType", "textRange");
+    assertThat(compact.getMarkerId()).isEqualTo(0L);
+    assertThat(compact.getRuleKey()).isSameAs("java:S123");
+    assertThat(compact.getMessage()).isSameAs("Remove this");
+  }
+
+  @Test
+  public void should_keep_flows_once_marker_exists() {
+    Trackable raw = newRaw();
+    Trackable withoutMarker = CompactTrackable.of(raw);
+    assertThat(withoutMarker.getFlows()).hasSize(1);
+    assertThat(withoutMarker.getMarkerId()).isNull();
+    assertThat(withoutMarker.getLineHash()).isEqualTo(raw.getLineHash());
+    assertThat(withoutMarker.getCreationDate()).isNull();
+
+    withoutMarker.setMarkerId(12L);
+    Trackable withMarker = CompactTrackable.of(withoutMarker);
+    assertThat(withMarker).isSameAs(withoutMarker);
+    assertThat(withMarker.getFlows()).hasSize(1);
+
+    // Markers recreated with server data keep their secondary locations
+    Trackable combined = new CombinedTrackable(mock(Trackable.class), withMarker);
+    assertThat(combined.getFlows()).hasSize(1);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DigestUtilsTest {
+
+  private static final char[] ALPHABET = {'a', 'Z', '0', ';', ' ', '\t', '\n', '\r', '\f', 0x0B, 0xA0, 'é', '中', '\uD83D', '\uDE00'};
+
+  private static String randomContent(Random random) {
+    char[] chars = new char[random.nextInt(2000)];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+    }
+    return new String(chars);
+  }
+
+  @Test
+  public void checksum_should_be_compatible_with_persisted_digest() {
+    assertThat(DigestUtils.checksum("")).isEqualTo(DigestUtils.digest("").hashCode());
+    assertThat(DigestUtils.checksum("  int i = 0;\r\n")).isEqualTo(DigestUtils.digest("  int i = 0;\r\n").hashCode());
+    assertThat(DigestUtils.checksum("x = \"\uD83D \uDE00\";")).isEqualTo(DigestUtils.digest("x = \"\uD83D \uDE00\";").hashCode());
+
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      String content = randomContent(random);
+      assertThat(DigestUtils.checksum(content)).as(content).isEqualTo(DigestUtils.digest(content).hashCode());
+      int start = content.isEmpty() ? 0 : random.nextInt(content.length());
+      int end = start + random.nextInt(content.length() - start + 1);
+      assertThat(DigestUtils.checksum(content, start, end)).isEqualTo(DigestUtils.digest(content.substring(start, end)).hashCode());
+    }
+  }
+
+  @Test
+  public void checksum_should_be_thread_safe() throws Exception {
+    Random random = new Random(42);
+    List<String> contents = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      contents.add(randomContent(random));
+    }
+    int[] expected = contents.stream().mapToInt(c -> DigestUtils.digest(c).hashCode()).toArray();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<int[]>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        results.add(executor.submit(() -> contents.stream().mapToInt(DigestUtils::checksum).toArray()));
+      }
+      for (Future<int[]> result : results) {
+        assertThat(result.get()).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
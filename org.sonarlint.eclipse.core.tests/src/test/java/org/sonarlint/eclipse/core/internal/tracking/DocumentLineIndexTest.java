@@ -0,0 +1,83 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DocumentLineIndexTest {
+
+  private static final String CONTENT = "package foo;\r\n"
+    + "\n"
+    + "  public static String INSTANCE;\r"
+    + "\tint été = \"中😀\"; \n"
+    + "  broken \uD83D \uDE00 \uDE00 end\uD83D";
+
+  @Test
+  public void should_compute_same_lines_as_document() throws Exception {
+    IDocument document = new Document(CONTENT);
+    DocumentLineIndex index = DocumentLineIndex.of(document);
+
+    assertThat(index.getLineCount()).isEqualTo(document.getNumberOfLines());
+    for (int line = 1; line <= index.getLineCount(); line++) {
+      Position position = MarkerUtils.getPosition(document, line);
+      assertThat(index.getLineOffset(line)).isEqualTo(position.getOffset());
+      assertThat(index.getLineEndOffset(line)).isEqualTo(position.getOffset() + position.getLength());
+      assertThat(index.getLineHash(line)).isEqualTo(DigestUtils.digest(document.get(position.getOffset(), position.getLength())).hashCode());
+    }
+    assertThat(index.getLineOffset(0)).isEqualTo(-1);
+    assertThat(index.getLineHash(6)).isNull();
+  }
+
+  @Test
+  public void should_compute_same_text_range_hashes_as_digest() throws Exception {
+    IDocument document = new Document(CONTENT);
+    DocumentLineIndex index = DocumentLineIndex.of(document);
+
+    TextRange[] ranges = {TextRange.get(3, 2, 3, 15), TextRange.get(1, 0, 4, 3), TextRange.get(4, 0, 5, 19), TextRange.get(5, 9, 5, 10), TextRange.get(2)};
+    for (TextRange range : ranges) {
+      Position position = MarkerUtils.getPosition(document, range);
+      assertThat(index.getTextRangeHash(range)).isEqualTo(DigestUtils.digest(document.get(position.getOffset(), position.getLength())).hashCode());
+    }
+    assertThat(index.getTextRangeHash(TextRange.get(5, 0, 6, 1))).isNull();
+    assertThat(index.getTextRangeHash(TextRange.get(5, 0, 5, 100))).isNull();
+    assertThat(index.getTextRangeHash(TextRange.get(null))).isNull();
+  }
+
+  @Test
+  public void should_reuse_index_until_document_is_modified() throws Exception {
+    Document document = new Document(CONTENT);
+    DocumentLineIndex index = DocumentLineIndex.of(document);
+    assertThat(DocumentLineIndex.of(document)).isSameAs(index);
+
+    document.replace(0, 0, "\n");
+
+    DocumentLineIndex modifiedIndex = DocumentLineIndex.of(document);
+    assertThat(modifiedIndex).isNotSameAs(index);
+    assertThat(modifiedIndex.getLineCount()).isEqualTo(index.getLineCount() + 1);
+  }
+
+}
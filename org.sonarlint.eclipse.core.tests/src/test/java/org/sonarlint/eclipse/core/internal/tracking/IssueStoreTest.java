@@ -0,0 +1,91 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueStoreTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path basePath;
+  private ISonarLintProject project;
+
+  @Before
+  public void prepare() throws IOException {
+    basePath = temp.newFolder().toPath();
+    project = mock(ISonarLintProject.class);
+    when(project.exists(anyString())).thenReturn(true);
+  }
+
+  @Test
+  public void should_migrate_legacy_store_and_delete_it() throws IOException {
+    StringStoreIndex legacyIndex = new StringStoreIndex(basePath);
+    IndexedObjectStore<String, Sonarlint.Issues> legacyStore = new IndexedObjectStore<>(legacyIndex, new HashingPathMapper(basePath, 2),
+      is -> {
+        throw new UnsupportedOperationException();
+      }, (os, issues) -> {
+        try {
+          issues.writeTo(os);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }, key -> true);
+    legacyStore.write("src/Foo.java", Sonarlint.Issues.newBuilder()
+      .addIssue(Sonarlint.Issues.Issue.newBuilder().setRuleKey("java:S100").setMessage("msg").setLine(1))
+      .build());
+    legacyIndex.compact();
+
+    IssueStore store = new IssueStore(basePath, project, false);
+
+    Collection<Trackable> migrated = store.read("src/Foo.java");
+    assertThat(migrated).extracting(Trackable::getRuleKey).containsExactly("java:S100");
+    assertThat(basePath.resolve(StringStoreIndex.INDEX_FILENAME)).doesNotExist();
+    store.close();
+  }
+
+  @Test
+  public void should_keep_legacy_store_when_migration_fails() throws IOException {
+    Path legacyIndexPath = basePath.resolve(StringStoreIndex.INDEX_FILENAME);
+    Files.write(legacyIndexPath, "not an index".getBytes(StandardCharsets.UTF_8));
+
+    IssueStore store = new IssueStore(basePath, project, false);
+
+    assertThat(legacyIndexPath).exists();
+    store.close();
+  }
+}
@@ -190,6 +190,31 @@ public class IssueTrackerTest {
     assertThat(tracker.matchAndTrackAsNew(file1, trackables)).isEqualTo(trackables);
   }
 
+  @Test
+  public void should_track_late_issues_against_previous_issues_not_yet_matched() {
+    Trackable previous1 = builder().ruleKey("dummy rule").line(1).lineHash(11).creationDate(1000L).build();
+    Trackable previous2 = builder().ruleKey("dummy rule").line(2).lineHash(22).creationDate(2000L).build();
+    cache.put(DUMMY_FILE1_PATH, Arrays.asList(previous1, previous2));
+    Collection<Trackable> previousTrackables = tracker.getPreviousTrackables(file1);
+
+    tracker.updateCache(file1, tracker.matchAndTrackAsNew(file1, Collections.singletonList(builder().ruleKey("dummy rule").line(1).lineHash(11).build())));
+    Trackable lateMatching = builder().ruleKey("dummy rule").line(2).lineHash(22).build();
+    Trackable lateNew = builder().ruleKey("dummy rule").line(3).lineHash(33).build();
+    Collection<Trackable> tracked = tracker.matchAndTrackLateIssues(file1, Arrays.asList(lateMatching, lateNew), previousTrackables);
+
+    assertThat(tracked).extracting(Trackable::getLine, Trackable::getCreationDate).contains(tuple(2, 2000L));
+    assertThat(tracked).filteredOn(t -> t.getLine() == 3).extracting(Trackable::getCreationDate).doesNotContain(1000L, 2000L, null);
+  }
+
+  @Test
+  public void should_not_track_late_issues_on_first_analysis() {
+    assertThat(tracker.getPreviousTrackables(file1)).isNull();
+    tracker.updateCache(file1, tracker.matchAndTrackAsNew(file1, Collections.singletonList(trackable1)));
+
+    Collection<Trackable> lateIssues = Collections.singletonList(trackable2);
+    assertThat(tracker.matchAndTrackLateIssues(file1, lateIssues, null)).isSameAs(lateIssues);
+  }
+
   @Test
   public void should_preserve_known_standalone_trackables_with_null_date() {
     Collection<Trackable> trackables = Arrays.asList(trackable1, trackable2);
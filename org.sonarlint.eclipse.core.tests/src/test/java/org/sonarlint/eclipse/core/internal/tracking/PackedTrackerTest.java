@@ -0,0 +1,228 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Differential tests, checking that {@link PackedTracker} matches exactly the same pairs as {@link Tracker}.
+ */
+public class PackedTrackerTest {
+
+  private static final int ITERATIONS = 2000;
+
+  @Test
+  public void should_match_like_tracker_for_raw_issues() {
+    Random random = new Random(42);
+    for (int i = 0; i < ITERATIONS; i++) {
+      List<Trackable> raws = randomTrackables(random, random.nextInt(30), false);
+      List<Trackable> bases = randomTrackables(random, random.nextInt(30), false);
+
+      Tracking<Trackable, Trackable> expected = new Tracker<>().trackRaw(() -> raws, () -> bases);
+      Tracking<Trackable, Trackable> actual = new PackedTracker<>().trackRaw(() -> raws, () -> bases);
+
+      assertSameMatches(actual, expected);
+    }
+  }
+
+  @Test
+  public void should_match_like_tracker_for_server_issues() {
+    Random random = new Random(24);
+    for (int i = 0; i < ITERATIONS; i++) {
+      List<Trackable> current = randomTrackables(random, random.nextInt(30), true);
+      List<Trackable> server = randomTrackables(random, random.nextInt(30), true);
+
+      Tracking<Trackable, Trackable> expected = new Tracker<>().trackServer(() -> current, () -> server);
+      Tracking<Trackable, Trackable> actual = new PackedTracker<>().trackServer(() -> current, () -> server);
+
+      assertSameMatches(actual, expected);
+    }
+  }
+
+  @Test
+  public void should_match_like_tracker_with_many_identical_issues() {
+    Random random = new Random(7);
+    List<Trackable> raws = new ArrayList<>();
+    List<Trackable> bases = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      raws.add(new StubTrackable("java:S1", "Duplicated", random.nextInt(3) + 1, 12, 34, null));
+      bases.add(new StubTrackable("java:S1", "Duplicated", random.nextInt(3) + 1, 12, random.nextBoolean() ? 34 : null, null));
+    }
+
+    Tracking<Trackable, Trackable> expected = new Tracker<>().trackRaw(() -> raws, () -> bases);
+    Tracking<Trackable, Trackable> actual = new PackedTracker<>().trackRaw(() -> raws, () -> bases);
+
+    assertSameMatches(actual, expected);
+    assertThat(actual.getMatchedRaws()).hasSize(5000);
+  }
+
+  private static void assertSameMatches(Tracking<Trackable, Trackable> actual, Tracking<Trackable, Trackable> expected) {
+    assertThat(actual.getMatchedRaws()).hasSameSizeAs(expected.getMatchedRaws());
+    for (Map.Entry<Trackable, Trackable> entry : expected.getMatchedRaws().entrySet()) {
+      assertThat(actual.baseFor(entry.getKey())).isSameAs(entry.getValue());
+    }
+    assertThat(actual.getUnmatchedRaws()).containsExactlyElementsOf(expected.getUnmatchedRaws());
+    assertThat(actual.getUnmatchedBases()).containsExactlyElementsOf(expected.getUnmatchedBases());
+  }
+
+  /**
+   * Values are picked in small domains, with nulls, so that keys of the different passes often collide.
+   */
+  private static List<Trackable> randomTrackables(Random random, int count, boolean withServerIssueKeys) {
+    List<Trackable> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String serverIssueKey = null;
+      if (withServerIssueKeys) {
+        int k = random.nextInt(6);
+        serverIssueKey = k == 0 ? null : (k == 1 ? " " : ("AX" + k));
+      }
+      result.add(new StubTrackable("rule" + random.nextInt(3), "message" + random.nextInt(3), randomNullable(random, 4), randomNullable(random, 3),
+        randomNullable(random, 3), serverIssueKey));
+    }
+    return result;
+  }
+
+  @Nullable
+  private static Integer randomNullable(Random random, int bound) {
+    int value = random.nextInt(bound + 1);
+    return value == bound ? null : (value - 1);
+  }
+
+  private static class StubTrackable implements Trackable {
+    private final String ruleKey;
+    private final String message;
+    private final Integer line;
+    private final Integer textRangeHash;
+    private final Integer lineHash;
+    private final String serverIssueKey;
+
+    StubTrackable(String ruleKey, String message, @Nullable Integer line, @Nullable Integer textRangeHash, @Nullable Integer lineHash,
+      @Nullable String serverIssueKey) {
+      // New string instances, so that tracking can't rely on identity
+      this.ruleKey = new String(ruleKey);
+      this.message = new String(message);
+      this.line = line;
+      this.textRangeHash = textRangeHash;
+      this.lineHash = lineHash;
+      this.serverIssueKey = serverIssueKey;
+    }
+
+    @Override
+    public Long getMarkerId() {
+      return null;
+    }
+
+    @Override
+    public void setMarkerId(Long id) {
+      // not needed
+    }
+
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public Integer getTextRangeHash() {
+      return textRangeHash;
+    }
+
+    @Override
+    public Integer getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public String getRuleKey() {
+      return ruleKey;
+    }
+
+    @Override
+    public String getRuleName() {
+      return ruleKey;
+    }
+
+    @Override
+    public Long getCreationDate() {
+      return null;
+    }
+
+    @Override
+    public String getServerIssueKey() {
+      return serverIssueKey;
+    }
+
+    @Override
+    public boolean isResolved() {
+      return false;
+    }
+
+    @Override
+    public String getAssignee() {
+      return "";
+    }
+
+    @Override
+    public String getSeverity() {
+      return "MAJOR";
+    }
+
+    @Override
+    public String getRawSeverity() {
+      return "MAJOR";
+    }
+
+    @Override
+    public String getType() {
+      return "BUG";
+    }
+
+    @Override
+    public String getRawType() {
+      return "BUG";
+    }
+
+    @Override
+    public TextRange getTextRange() {
+      return TextRange.get(line);
+    }
+
+    @Override
+    public List<Flow> getFlows() {
+      return Collections.emptyList();
+    }
+  }
+}
@@ -20,10 +20,15 @@
 package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
 import org.junit.Before;
@@ -41,6 +46,8 @@ import static org.mockito.Mockito.mock;
 
 public class PersistentIssueTrackerCacheTest extends SonarTestCase {
 
+  private static final int MAX_WEIGHT = 100;
+
   @Rule
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
@@ -50,7 +57,8 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
   private StubIssueStore stubIssueStore;
 
   class StubIssueStore extends IssueStore {
-    private final Map<String, Collection<Trackable>> cache = new HashMap<>();
+    private final Map<String, Collection<Trackable>> cache = Collections.synchronizedMap(new HashMap<>());
+    private CountDownLatch savesAllowed = new CountDownLatch(0);
 
     public StubIssueStore(ISonarLintProject project) throws IOException {
       super(temporaryFolder.newFolder().toPath(), project);
@@ -58,6 +66,11 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
 
     @Override
     public void save(String key, Collection<Trackable> issues) throws IOException {
+      try {
+        savesAllowed.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
       cache.put(key, issues);
     }
 
@@ -79,6 +92,10 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
     int size() {
       return cache.size();
     }
+
+    void blockSavesUntil(CountDownLatch latch) {
+      this.savesAllowed = latch;
+    }
   }
 
   @BeforeClass
@@ -91,13 +108,13 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
   @Before
   public void setUp() throws IOException {
     stubIssueStore = new StubIssueStore(new DefaultSonarLintProjectAdapter(project));
-    cache = new PersistentIssueTrackerCache(stubIssueStore);
+    cache = new PersistentIssueTrackerCache(stubIssueStore, new IssueTrackerCacheBudget(MAX_WEIGHT, false), false);
   }
 
   @Test
   public void should_persist_issues_when_inmemory_limit_reached() {
     int i = 0;
-    for (; i < PersistentIssueTrackerCache.MAX_ENTRIES; i++) {
+    for (; i < MAX_WEIGHT; i++) {
       cache.put("file" + i, Collections.emptyList());
     }
     assertThat(stubIssueStore.size()).isEqualTo(0);
@@ -111,7 +128,7 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
 
   @Test
   public void should_persist_issues_on_shutdown() {
-    int count = PersistentIssueTrackerCache.MAX_ENTRIES / 2;
+    int count = MAX_WEIGHT / 2;
     for (int i = 0; i < count; i++) {
       cache.put("file" + i, Collections.emptyList());
     }
@@ -157,4 +174,97 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
     assertThat(cache.getCurrentTrackables(file)).isEmpty();
     assertThat(stubIssueStore.size()).isEqualTo(0);
   }
+
+  @Test
+  public void should_serve_evicted_issues_while_they_are_written_behind() {
+    CountDownLatch savesAllowed = new CountDownLatch(1);
+    stubIssueStore.blockSavesUntil(savesAllowed);
+    cache = new PersistentIssueTrackerCache(stubIssueStore, new IssueTrackerCacheBudget(MAX_WEIGHT, false), true);
+
+    Collection<Trackable> evicted = Collections.singletonList(mock(Trackable.class));
+    cache.put("file0", evicted);
+    for (int i = 1; i <= MAX_WEIGHT; i++) {
+      cache.put("file" + i, Collections.emptyList());
+    }
+
+    // The eviction didn't wait for the store
+    assertThat(stubIssueStore.size()).isEqualTo(0);
+    assertThat(cache.isFirstAnalysis("file0")).isFalse();
+    assertThat(cache.getCurrentTrackables("file0")).containsExactlyElementsOf(evicted);
+
+    savesAllowed.countDown();
+    cache.shutdown();
+    assertThat(cache.getPendingWriteCount()).isEqualTo(0);
+    assertThat(stubIssueStore.size()).isEqualTo(MAX_WEIGHT + 1);
+    assertThat(stubIssueStore.contains("file0")).isTrue();
+  }
+
+  @Test
+  public void should_wait_for_writer_without_locking_caches() throws Exception {
+    CountDownLatch savesAllowed = new CountDownLatch(1);
+    stubIssueStore.blockSavesUntil(savesAllowed);
+    IssueTrackerCacheBudget budget = new IssueTrackerCacheBudget(MAX_WEIGHT, false);
+    cache = new PersistentIssueTrackerCache(stubIssueStore, budget, true);
+    PersistentIssueTrackerCache otherCache = new PersistentIssueTrackerCache(new StubIssueStore(new DefaultSonarLintProjectAdapter(project)), budget, false);
+    otherCache.put("other", Collections.emptyList());
+
+    Thread producer = new Thread(() -> {
+      for (int i = 0; i < MAX_WEIGHT + PersistentIssueTrackerCache.MAX_PENDING_WRITES + 10; i++) {
+        cache.put("file" + i, Collections.emptyList());
+      }
+    });
+    producer.start();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (cache.getPendingWriteCount() <= PersistentIssueTrackerCache.MAX_PENDING_WRITES && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    // The producer is waiting for the writer
+    assertThat(producer.isAlive()).isTrue();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertThat(executor.submit(() -> cache.getCurrentTrackables("file0")).get(5, TimeUnit.SECONDS)).isEmpty();
+      assertThat(executor.submit(() -> otherCache.isFirstAnalysis("other")).get(5, TimeUnit.SECONDS)).isFalse();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    savesAllowed.countDown();
+    producer.join(5000);
+    assertThat(producer.isAlive()).isFalse();
+    cache.shutdown();
+    otherCache.shutdown();
+  }
+
+  @Test
+  public void should_evict_least_recently_used_entries_of_all_projects() throws IOException {
+    IssueTrackerCacheBudget budget = new IssueTrackerCacheBudget(10, true);
+    StubIssueStore otherStore = new StubIssueStore(new DefaultSonarLintProjectAdapter(project));
+    cache = new PersistentIssueTrackerCache(stubIssueStore, budget, false);
+    PersistentIssueTrackerCache otherCache = new PersistentIssueTrackerCache(otherStore, budget, false);
+
+    // Weight of 5 each
+    Collection<Trackable> evicted = Arrays.asList(mock(Trackable.class), mock(Trackable.class), mock(Trackable.class), mock(Trackable.class));
+    cache.put("file1", evicted);
+    otherCache.put("file2", Arrays.asList(mock(Trackable.class), mock(Trackable.class), mock(Trackable.class), mock(Trackable.class)));
+    assertThat(budget.getWeight()).isEqualTo(10);
+    assertThat(budget.getEvictionCount()).isEqualTo(0);
+
+    otherCache.put("file3", Collections.emptyList());
+    assertThat(stubIssueStore.contains("file1")).isTrue();
+    assertThat(otherStore.size()).isEqualTo(0);
+    assertThat(budget.getWeight()).isEqualTo(6);
+    assertThat(budget.getEvictionCount()).isEqualTo(1);
+
+    // Served by the soft reference
+    assertThat(cache.getCurrentTrackables("file1")).containsExactlyElementsOf(evicted);
+    assertThat(budget.getHitCount()).isEqualTo(1);
+    assertThat(budget.getSoftHitCount()).isEqualTo(1);
+
+    assertThat(otherCache.getCurrentTrackables("unknown")).isEmpty();
+    assertThat(budget.getMissCount()).isEqualTo(1);
+
+    otherCache.shutdown();
+    assertThat(budget.getWeight()).isEqualTo(0);
+  }
 }
@@ -0,0 +1,282 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SegmentedObjectStoreTest {
+
+  private static final Reader<String> READER = SegmentedObjectStoreTest::readString;
+  private static final Writer<String> WRITER = (out, value) -> {
+    try {
+      out.write(value.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  };
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path basePath;
+  private SegmentedObjectStore<String> underTest;
+
+  @Before
+  public void prepare() throws IOException {
+    basePath = temp.newFolder().toPath();
+    underTest = newStore(false, SegmentedObjectStore.DEFAULT_MAX_SEGMENT_SIZE);
+  }
+
+  @After
+  public void close() {
+    underTest.close();
+  }
+
+  @Test
+  public void should_read_last_written_value() throws IOException {
+    underTest.write("a", "value1");
+    underTest.write("b", "value2");
+    underTest.write("a", "value3");
+    underTest.delete("b");
+    underTest.delete("unknown");
+
+    assertThat(underTest.read("a")).contains("value3");
+    assertThat(underTest.read("b")).isEmpty();
+    assertThat(underTest.contains("b")).isFalse();
+
+    underTest.close();
+    SegmentedObjectStore<String> reopened = newStore(false, SegmentedObjectStore.DEFAULT_MAX_SEGMENT_SIZE);
+    assertThat(reopened.keys()).containsOnly("a");
+    assertThat(reopened.read("a")).contains("value3");
+    reopened.close();
+  }
+
+  @Test
+  public void should_drop_truncated_record() throws IOException {
+    underTest.write("a", "value1");
+    underTest.write("b", "value2");
+    underTest.close();
+    Path segment = segmentFiles()[0];
+    long size = Files.size(segment);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(size - 3);
+    }
+
+    SegmentedObjectStore<String> reopened = newStore(false, SegmentedObjectStore.DEFAULT_MAX_SEGMENT_SIZE);
+    assertThat(reopened.keys()).containsOnly("a");
+    reopened.write("c", "value3");
+    reopened.close();
+
+    reopened = newStore(false, SegmentedObjectStore.DEFAULT_MAX_SEGMENT_SIZE);
+    assertThat(reopened.keys()).containsOnly("a", "c");
+    assertThat(reopened.read("c")).contains("value3");
+    reopened.close();
+  }
+
+  @Test
+  public void should_load_segments_from_hint_files() throws IOException {
+    underTest.close();
+    underTest = newStore(false, 100);
+    for (int i = 0; i < 20; i++) {
+      underTest.write("key" + i, "value" + i);
+    }
+    underTest.delete("key0");
+    underTest.close();
+    Path[] segments = segmentFiles();
+    assertThat(hintFiles()).hasSameSizeAs(segments);
+
+    // Records of segments are not read again when hint files are up to date
+    try (FileChannel channel = FileChannel.open(segments[0], StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(4), 0);
+    }
+
+    underTest = newStore(false, 100);
+    assertThat(underTest.keys()).hasSize(19).doesNotContain("key0");
+    for (int i = 1; i < 20; i++) {
+      assertThat(underTest.read("key" + i)).contains("value" + i);
+    }
+  }
+
+  @Test
+  public void should_rebuild_missing_hint_files() throws IOException {
+    underTest.close();
+    underTest = newStore(false, 100);
+    for (int i = 0; i < 20; i++) {
+      underTest.write("key" + i, "value" + i);
+    }
+    underTest.close();
+    for (Path hintFile : hintFiles()) {
+      Files.delete(hintFile);
+    }
+
+    underTest = newStore(false, 100);
+    assertThat(underTest.keys()).hasSize(20);
+    // Hint files of sealed segments are written right away
+    assertThat(hintFiles()).hasSize(segmentFiles().length - 1);
+  }
+
+  @Test
+  public void should_skip_corrupted_records_of_sealed_segment_without_truncating_it() throws IOException {
+    underTest.close();
+    underTest = newStore(false, 100);
+    for (int i = 0; i < 20; i++) {
+      underTest.write("key" + i, "value" + i);
+    }
+    underTest.close();
+    for (Path hintFile : hintFiles()) {
+      Files.delete(hintFile);
+    }
+    Path firstSegment = segmentFiles()[0];
+    long size = Files.size(firstSegment);
+    // Corrupt the value of the last record of the first segment
+    try (FileChannel channel = FileChannel.open(firstSegment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'X'}), size - 1);
+    }
+
+    underTest = newStore(false, 100);
+    Collection<String> keys = underTest.keys();
+    assertThat(Files.size(firstSegment)).isEqualTo(size);
+    assertThat(keys).hasSize(19).contains("key19");
+  }
+
+  @Test
+  public void should_roll_segments_and_read_them_memory_mapped() throws IOException {
+    underTest.close();
+    underTest = newStore(true, 100);
+    for (int i = 0; i < 20; i++) {
+      underTest.write("key" + i, "value" + i);
+    }
+
+    assertThat(segmentFiles().length).isGreaterThan(1);
+    for (int i = 0; i < 20; i++) {
+      assertThat(underTest.read("key" + i)).contains("value" + i);
+    }
+  }
+
+  @Test
+  public void should_compact_obsolete_records() throws IOException {
+    underTest.close();
+    underTest = newStore(false, 64 * 1024);
+    String bigValue = String.join("", Collections.nCopies(1000, "x"));
+    for (int i = 0; i < 3000; i++) {
+      underTest.write("key" + (i % 10), bigValue + i);
+    }
+    underTest.compact();
+
+    assertThat(segmentFiles()).hasSize(1);
+    for (int i = 0; i < 10; i++) {
+      assertThat(underTest.read("key" + i)).contains(bigValue + (2990 + i));
+    }
+    underTest.close();
+    underTest = newStore(false, 64 * 1024);
+    assertThat(underTest.keys()).hasSize(10);
+  }
+
+  @Test
+  public void should_migrate_legacy_issue_store() throws IOException {
+    Reader<Sonarlint.Issues> reader = is -> {
+      try {
+        return Sonarlint.Issues.parseFrom(is);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    };
+    Writer<Sonarlint.Issues> writer = (os, issues) -> {
+      try {
+        issues.writeTo(os);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    };
+    IndexedObjectStore<String, Sonarlint.Issues> legacyStore = new IndexedObjectStore<>(new StringStoreIndex(basePath), new HashingPathMapper(basePath, 2), reader,
+      writer, k -> true);
+    legacyStore.write("src/Foo.java", Sonarlint.Issues.newBuilder().addIssue(Sonarlint.Issues.Issue.newBuilder().setRuleKey("java:S123").setMessage("msg")).build());
+    ISonarLintProject project = mock(ISonarLintProject.class);
+    when(project.exists(anyString())).thenReturn(true);
+
+    IssueStore issueStore = new IssueStore(basePath, project, false);
+
+    Collection<Trackable> issues = issueStore.read("src/Foo.java");
+    assertThat(issues).extracting(Trackable::getRuleKey).containsExactly("java:S123");
+    assertThat(basePath.resolve(StringStoreIndex.INDEX_FILENAME)).doesNotExist();
+    assertThat(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME)).doesNotExist();
+    try (Stream<Path> files = Files.list(basePath)) {
+      assertThat(files).allMatch(SegmentedObjectStore::isSegmentFile);
+    }
+    issueStore.close();
+  }
+
+  private SegmentedObjectStore<String> newStore(boolean memoryMapped, long maxSegmentSize) {
+    return new SegmentedObjectStore<>(basePath, READER, WRITER, k -> true, memoryMapped, maxSegmentSize);
+  }
+
+  private Path[] segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(basePath)) {
+      return files.filter(SegmentedObjectStore::isSegmentFile).sorted().toArray(Path[]::new);
+    }
+  }
+
+  private Path[] hintFiles() throws IOException {
+    try (Stream<Path> files = Files.list(basePath)) {
+      return files.filter(p -> p.getFileName().toString().endsWith(".hint")).toArray(Path[]::new);
+    }
+  }
+
+  private static String readString(InputStream in) {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
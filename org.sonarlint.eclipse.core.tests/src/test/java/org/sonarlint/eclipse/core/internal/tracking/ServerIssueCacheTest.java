@@ -0,0 +1,247 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.tracking.ServerIssueCache.ServerIssueSource;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
+import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ServerIssueCacheTest {
+
+  private static final long TTL = 1000;
+  private static final long WINDOW = 100;
+  private static final int THRESHOLD = 3;
+
+  private long now = 0;
+  private final StubServer server = new StubServer();
+  private final ServerIssueCache cache = new ServerIssueCache(TTL, WINDOW, THRESHOLD, () -> now);
+
+  /**
+   * Counts requests, and copies issues to the storage like the engine does.
+   */
+  private static class StubServer implements ServerIssueSource {
+    private final Map<String, List<ServerIssue>> remote = new ConcurrentHashMap<>();
+    private final Map<String, List<ServerIssue>> storage = new ConcurrentHashMap<>();
+    private final AtomicInteger fileRequests = new AtomicInteger();
+    private final AtomicInteger projectRequests = new AtomicInteger();
+    private volatile boolean offline;
+    private volatile CountDownLatch blockDownloads = new CountDownLatch(0);
+
+    private void addIssue(String filePath) {
+      remote.computeIfAbsent(filePath, k -> Collections.synchronizedList(new ArrayList<>())).add(mock(ServerIssue.class));
+    }
+
+    @Override
+    public List<ServerIssue> downloadFileIssues(String filePath) {
+      fileRequests.incrementAndGet();
+      await();
+      if (offline) {
+        throw new DownloadException("Server is offline", null);
+      }
+      List<ServerIssue> issues = new ArrayList<>(remote.getOrDefault(filePath, Collections.emptyList()));
+      storage.put(filePath, issues);
+      return issues;
+    }
+
+    @Override
+    public void downloadProjectIssues() {
+      projectRequests.incrementAndGet();
+      await();
+      if (offline) {
+        throw new DownloadException("Server is offline", null);
+      }
+      remote.forEach((k, v) -> storage.put(k, new ArrayList<>(v)));
+    }
+
+    @Override
+    public List<ServerIssue> getStoredIssues(String filePath) {
+      return storage.getOrDefault(filePath, Collections.emptyList());
+    }
+
+    private void await() {
+      try {
+        blockDownloads.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Test
+  public void should_download_file_issues_again_after_ttl() {
+    server.addIssue("A.java");
+
+    assertThat(cache.getServerIssues(server, "A.java")).hasSize(1);
+    server.addIssue("A.java");
+    now += TTL - 1;
+    assertThat(cache.getServerIssues(server, "A.java")).hasSize(1);
+    assertThat(server.fileRequests).hasValue(1);
+
+    now += 1;
+    assertThat(cache.getServerIssues(server, "A.java")).hasSize(2);
+    assertThat(server.fileRequests).hasValue(2);
+    assertThat(server.projectRequests).hasValue(0);
+  }
+
+  @Test
+  public void should_fallback_to_storage_when_download_fails() {
+    server.addIssue("A.java");
+    cache.getServerIssues(server, "A.java");
+    server.addIssue("A.java");
+    server.offline = true;
+    now += TTL;
+
+    assertThat(cache.getServerIssues(server, "A.java")).hasSize(1);
+    // Failures are not cached
+    assertThat(cache.getServerIssues(server, "A.java")).hasSize(1);
+    assertThat(server.fileRequests).hasValue(3);
+  }
+
+  @Test
+  public void should_download_project_issues_when_many_files_are_requested() {
+    server.addIssue("A.java");
+    server.addIssue("B.java");
+    server.addIssue("C.java");
+
+    Map<String, List<ServerIssue>> issues = cache.getServerIssues(server, Arrays.asList("A.java", "B.java", "C.java", "D.java"));
+
+    assertThat(issues).containsOnlyKeys("A.java", "B.java", "C.java", "D.java");
+    assertThat(issues.get("A.java")).hasSize(1);
+    assertThat(issues.get("D.java")).isEmpty();
+    assertThat(server.projectRequests).hasValue(1);
+    assertThat(server.fileRequests).hasValue(0);
+
+    // Other files are read from the storage until the TTL expires
+    server.addIssue("E.java");
+    now += WINDOW * 2;
+    assertThat(cache.getServerIssues(server, "E.java")).isEmpty();
+    assertThat(server.fileRequests).hasValue(0);
+
+    now = TTL;
+    assertThat(cache.getServerIssues(server, "E.java")).hasSize(1);
+    assertThat(server.fileRequests).hasValue(1);
+    assertThat(server.projectRequests).hasValue(1);
+  }
+
+  @Test
+  public void should_download_project_issues_when_many_files_are_requested_within_window() {
+    cache.getServerIssues(server, "A.java");
+    now += WINDOW / 2;
+    cache.getServerIssues(server, "B.java");
+    assertThat(server.fileRequests).hasValue(2);
+
+    now += WINDOW / 2;
+    cache.getServerIssues(server, "C.java");
+    assertThat(server.fileRequests).hasValue(2);
+    assertThat(server.projectRequests).hasValue(1);
+  }
+
+  @Test
+  public void should_not_download_project_issues_when_files_are_requested_slowly() {
+    for (int i = 0; i < 10; i++) {
+      cache.getServerIssues(server, "File" + i + ".java");
+      now += WINDOW;
+    }
+    assertThat(server.fileRequests).hasValue(10);
+    assertThat(server.projectRequests).hasValue(0);
+  }
+
+  @Test
+  public void should_coalesce_concurrent_lookups_of_same_file() throws Exception {
+    server.addIssue("A.java");
+    server.blockDownloads = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<ServerIssue>>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> cache.getServerIssues(server, "A.java")));
+      }
+      // Let other threads join the first download
+      Thread.sleep(200);
+      server.blockDownloads.countDown();
+      for (Future<List<ServerIssue>> result : results) {
+        assertThat(result.get(10, TimeUnit.SECONDS)).hasSize(1);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(server.fileRequests).hasValue(1);
+  }
+
+  @Test
+  public void should_coalesce_concurrent_project_downloads() throws Exception {
+    server.blockDownloads = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> cache.downloadProjectIssues(server)));
+      }
+      Thread.sleep(200);
+      server.blockDownloads.countDown();
+      for (Future<Boolean> result : results) {
+        assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(server.projectRequests).hasValue(1);
+  }
+
+  @Test
+  public void should_evict_expired_entries() {
+    cache.getServerIssues(server, "A.java");
+    cache.getServerIssues(server, "B.java");
+    assertThat(cache.size()).isEqualTo(2);
+
+    now += TTL;
+    cache.getServerIssues(server, "C.java");
+    // A and B are not requested anymore, but are evicted once expired
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_forget_everything_on_clear() {
+    cache.downloadProjectIssues(server);
+    cache.getServerIssues(server, "A.java");
+    cache.clear();
+
+    cache.getServerIssues(server, "A.java");
+    assertThat(server.fileRequests).hasValue(1);
+    assertThat(server.projectRequests).hasValue(1);
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.engine.connected.ConnectedEngineFacade;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerIssueUpdaterTest {
+
+  private final ProjectBinding binding = new ProjectBinding("projectKey", "", "");
+  private ConnectedEngineFacade engineFacade;
+  private ServerIssueUpdater underTest;
+
+  @Before
+  public void prepare() {
+    engineFacade = mock(ConnectedEngineFacade.class);
+    when(engineFacade.getId()).thenReturn("connection");
+    underTest = new ServerIssueUpdater(mock(IssueTrackerRegistry.class));
+  }
+
+  @Test
+  public void should_keep_cache_of_binding_shared_with_another_project() {
+    ISonarLintProject project1 = mock(ISonarLintProject.class);
+    ISonarLintProject project2 = mock(ISonarLintProject.class);
+
+    underTest.downloadProjectIssues(engineFacade, project1, binding);
+    underTest.downloadProjectIssues(engineFacade, project2, binding);
+    verify(engineFacade, times(1)).downloadServerIssues("projectKey");
+
+    underTest.clearCache(project1);
+    underTest.downloadProjectIssues(engineFacade, project2, binding);
+    verify(engineFacade, times(1)).downloadServerIssues("projectKey");
+
+    underTest.clearCache(project2);
+    underTest.downloadProjectIssues(engineFacade, project2, binding);
+    verify(engineFacade, times(2)).downloadServerIssues("projectKey");
+  }
+}
@@ -22,10 +22,13 @@ package org.sonarlint.eclipse.core.internal.tracking;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -44,6 +47,7 @@ import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintFileAdapter
 import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintProjectAdapter;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
 import org.sonarlint.eclipse.tests.common.SonarTestCase;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -242,4 +246,39 @@ public class SonarLintMarkerUpdaterTest extends SonarTestCase {
     assertThat(markers).hasSize(1);
     assertThat(markers[0].getAttribute(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR)).isNull();
   }
+
+  @Test
+  public void should_reconcile_markers_in_a_single_resource_delta() throws Exception {
+    Issue issue1 = mock(Issue.class);
+    when(issue1.getStartLine()).thenReturn(4);
+    when(issue1.getSeverity()).thenReturn("MAJOR");
+    when(issue1.getMessage()).thenReturn("First issue");
+    Issue issue2 = mock(Issue.class);
+    when(issue2.getStartLine()).thenReturn(5);
+    when(issue2.getSeverity()).thenReturn("MINOR");
+    when(issue2.getMessage()).thenReturn("Second issue");
+    Trackable trackable1 = new RawIssueTrackable(issue1, TextRange.get(4), null, null);
+    Trackable trackable2 = new RawIssueTrackable(issue2, TextRange.get(5), null, null);
+
+    AtomicInteger deltaCount = new AtomicInteger();
+    IResourceChangeListener listener = event -> deltaCount.incrementAndGet();
+    workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+    try {
+      IMarker[] markers = processTrackable(trackable1, trackable2);
+      assertThat(markers).hasSize(2);
+      assertThat(deltaCount.get()).isEqualTo(1);
+
+      // Second issue is fixed, first one is updated
+      when(issue1.getMessage()).thenReturn("Updated issue");
+      Long markerId = trackable1.getMarkerId();
+      deltaCount.set(0);
+      markers = processTrackable(trackable1);
+      assertThat(deltaCount.get()).isEqualTo(1);
+      assertThat(markers).hasSize(1);
+      assertThat(markers[0].getId()).isEqualTo(markerId);
+      assertThat(markers[0].getAttribute(IMarker.MESSAGE)).isEqualTo("Updated issue");
+    } finally {
+      workspace.removeResourceChangeListener(listener);
+    }
+  }
 }
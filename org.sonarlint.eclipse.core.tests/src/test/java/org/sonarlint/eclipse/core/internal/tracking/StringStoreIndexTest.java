@@ -0,0 +1,114 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringStoreIndexTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path basePath;
+
+  @Before
+  public void prepare() throws IOException {
+    basePath = temp.newFolder().toPath();
+  }
+
+  @Test
+  public void should_reload_saved_and_deleted_keys() {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    index.save("a", basePath.resolve("a.pb"));
+    index.save("b", basePath.resolve("b.pb"));
+    index.save("c", basePath.resolve("c.pb"));
+    index.delete("b");
+
+    assertThat(index.keys()).containsOnly("a", "c");
+    assertThat(new StringStoreIndex(basePath).keys()).containsOnly("a", "c");
+  }
+
+  @Test
+  public void should_only_append_changes_to_journal() throws IOException {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    index.save("a", basePath.resolve("a.pb"));
+    long journalSize = Files.size(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME));
+
+    index.save("a", basePath.resolve("a.pb"));
+    index.delete("unknown");
+
+    assertThat(Files.size(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME))).isEqualTo(journalSize);
+    assertThat(basePath.resolve(StringStoreIndex.INDEX_FILENAME)).doesNotExist();
+  }
+
+  @Test
+  public void should_compact_journal_into_snapshot() {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    for (int i = 0; i < 2500; i++) {
+      index.save("key" + i, basePath.resolve("file" + i));
+    }
+    // Journal is compacted when it becomes bigger than the index
+    assertThat(basePath.resolve(StringStoreIndex.INDEX_FILENAME)).doesNotExist();
+    for (int i = 0; i < 2500; i++) {
+      index.save("key" + i, basePath.resolve("other" + i));
+    }
+
+    assertThat(basePath.resolve(StringStoreIndex.INDEX_FILENAME)).exists();
+    assertThat(new StringStoreIndex(basePath).keys()).hasSize(2500);
+
+    index.compact();
+    assertThat(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME)).doesNotExist();
+    assertThat(new StringStoreIndex(basePath).keys()).hasSize(2500);
+  }
+
+  @Test
+  public void should_ignore_truncated_journal_entry() throws IOException {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    index.save("a", basePath.resolve("a.pb"));
+    index.save("b", basePath.resolve("b.pb"));
+    // Simulate a crash in the middle of an append
+    Files.write(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME), new byte[] {42, 10, 1}, StandardOpenOption.APPEND);
+
+    StringStoreIndex reloaded = new StringStoreIndex(basePath);
+    assertThat(reloaded.keys()).containsOnly("a", "b");
+    reloaded.save("c", basePath.resolve("c.pb"));
+    assertThat(new StringStoreIndex(basePath).keys()).containsOnly("a", "b", "c");
+  }
+
+  @Test
+  public void should_forget_keys_on_reset() {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    index.save("a", basePath.resolve("a.pb"));
+    temp.delete();
+
+    index.reset();
+    assertThat(index.keys()).isEmpty();
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.resources.ExclusionItem;
+import org.sonarlint.eclipse.core.internal.resources.ExclusionItem.Type;
+import org.sonarsource.sonarlint.core.client.api.common.FileExclusions;
+
+import static java.util.stream.Collectors.toSet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledFileExclusionsTest {
+
+  private static final List<ExclusionItem> EXCLUSIONS = Arrays.asList(
+    new ExclusionItem(Type.FILE, "src/main/java/Excluded.java"),
+    new ExclusionItem(Type.DIRECTORY, "src/generated"),
+    new ExclusionItem(Type.GLOB, "**/*.min.js"),
+    new ExclusionItem(Type.GLOB, "src/test/**"),
+    new ExclusionItem(Type.GLOB, "src/main/resources/*.xml"),
+    new ExclusionItem(Type.GLOB, "src/ma?n/java/Gen*.java"),
+    new ExclusionItem(Type.GLOB, "lib/{a,b}/**"),
+    new ExclusionItem(Type.GLOB, "docs/README.md"),
+    new ExclusionItem(Type.GLOB, "/absolute/**"),
+    new ExclusionItem(Type.GLOB, "[invalid"));
+
+  private static final List<String> PATHS = Arrays.asList(
+    "src/main/java/Excluded.java",
+    "src/main/java/Included.java",
+    "src/generated/Foo.java",
+    "src/generated",
+    "src/generatedSources/Foo.java",
+    "web/app.min.js",
+    "app.min.js",
+    "web/app.js",
+    "src/test/java/FooTest.java",
+    "src/test",
+    "src/main/resources/config.xml",
+    "src/main/resources/sub/config.xml",
+    "src/main/java/GenFoo.java",
+    "src/main/java/sub/GenFoo.java",
+    "lib/a/x.js",
+    "lib/c/x.js",
+    "docs/README.md",
+    "docs/README.txt",
+    "absolute/foo",
+    "src//test/Foo.java");
+
+  @Test
+  public void should_match_like_file_exclusions() {
+    FileExclusions expected = new FileExclusions(itemsOfType(Type.FILE), itemsOfType(Type.DIRECTORY), itemsOfType(Type.GLOB));
+    CompiledFileExclusions underTest = new CompiledFileExclusions(EXCLUSIONS);
+
+    for (String path : PATHS) {
+      assertThat(underTest.test(path)).as(path).isEqualTo(expected.test(path));
+    }
+    assertThat(underTest.test("src/test/java/FooTest.java")).isTrue();
+    assertThat(underTest.test("src/main/java/Included.java")).isFalse();
+  }
+
+  @Test
+  public void should_not_exclude_anything_without_exclusions() {
+    CompiledFileExclusions underTest = new CompiledFileExclusions(Arrays.asList());
+
+    assertThat(PATHS).noneMatch(underTest);
+  }
+
+  @Test
+  public void should_compare_normalized_paths() {
+    CompiledFileExclusions underTest = new CompiledFileExclusions(Arrays.asList(
+      new ExclusionItem(Type.DIRECTORY, "src/"),
+      new ExclusionItem(Type.DIRECTORY, "./gen"),
+      new ExclusionItem(Type.FILE, "./docs/../README.md")));
+
+    assertThat(underTest.test("src/Foo.java")).isTrue();
+    assertThat(underTest.test("src")).isTrue();
+    assertThat(underTest.test("gen/Foo.java")).isTrue();
+    assertThat(underTest.test("README.md")).isTrue();
+    assertThat(underTest.test("./README.md")).isTrue();
+    assertThat(underTest.test("srcs/Foo.java")).isFalse();
+    assertThat(underTest.test("docs/README.md")).isFalse();
+  }
+
+  @Test
+  public void should_index_globs_by_leading_directories() {
+    assertThat(CompiledFileExclusions.leadingLiteralDirectories("**/*.js")).isEmpty();
+    assertThat(CompiledFileExclusions.leadingLiteralDirectories("src/test/**")).containsExactly("src", "test");
+    assertThat(CompiledFileExclusions.leadingLiteralDirectories("src/ma?n/**")).containsExactly("src");
+    assertThat(CompiledFileExclusions.leadingLiteralDirectories("docs/README.md")).containsExactly("docs");
+    assertThat(CompiledFileExclusions.leadingLiteralDirectories("/absolute/**")).isEmpty();
+    assertThat(CompiledFileExclusions.leadingLiteralDirectories("src//test/**")).containsExactly("src");
+  }
+
+  private static Set<String> itemsOfType(Type type) {
+    return EXCLUSIONS.stream().filter(e -> e.type() == type).map(ExclusionItem::item).collect(toSet());
+  }
+}
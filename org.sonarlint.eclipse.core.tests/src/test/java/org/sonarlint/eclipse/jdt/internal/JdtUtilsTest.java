@@ -36,6 +36,7 @@ import org.eclipse.jdt.core.IJavaModel;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
+import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
@@ -51,6 +52,7 @@ import org.sonarlint.eclipse.tests.common.SonarTestCase;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -70,6 +72,11 @@ public class JdtUtilsTest extends SonarTestCase {
     nonJdtProject = importEclipseProject("SimpleNonJdtProject");
   }
 
+  @After
+  public void clearClasspathCache() {
+    JdtUtils.clearCache();
+  }
+
   @Test
   public void shouldConfigureJavaSourceAndTarget() throws JavaModelException, IOException {
     IJavaProject project = mock(IJavaProject.class);
@@ -254,6 +261,70 @@ public class JdtUtilsTest extends SonarTestCase {
 
   }
 
+  @Test
+  public void shouldReuseClasspathConfigurationUntilInvalidated() throws JavaModelException, IOException {
+    IJavaProject project = mockProjectWithOutput(temp.newFolder("cachedOutput"));
+    IJavaProject otherProject = mock(IJavaProject.class);
+
+    jdtUtils.configureJavaProject(project, mock(IPreAnalysisContext.class));
+    IPreAnalysisContext context = mock(IPreAnalysisContext.class);
+    jdtUtils.configureJavaProject(project, context);
+
+    verify(project, times(1)).getResolvedClasspath(true);
+    verify(context).setAnalysisProperty("sonar.java.source", "1.8");
+    verify(context).setAnalysisProperty(ArgumentMatchers.eq("sonar.java.binaries"), ArgumentMatchers.<Collection<String>>any());
+
+    JdtUtils.invalidate(otherProject);
+    jdtUtils.configureJavaProject(project, mock(IPreAnalysisContext.class));
+    verify(project, times(1)).getResolvedClasspath(true);
+
+    JdtUtils.invalidate(project);
+    jdtUtils.configureJavaProject(project, mock(IPreAnalysisContext.class));
+    verify(project, times(2)).getResolvedClasspath(true);
+  }
+
+  @Test
+  public void shouldInvalidateClasspathConfigurationOfDependentProjects() throws JavaModelException, IOException {
+    IJavaProject dependency = mock(IJavaProject.class);
+    when(dependency.getResolvedClasspath(true)).thenReturn(new IClasspathEntry[] {});
+    when(dependency.getOutputLocation()).thenReturn(new Path(temp.newFolder("dependencyOutput").getAbsolutePath()));
+    IJavaModel javaModel = mock(IJavaModel.class);
+    when(javaModel.getJavaProject("dependency")).thenReturn(dependency);
+
+    IClasspathEntry projectEntry = mock(IClasspathEntry.class);
+    when(projectEntry.getEntryKind()).thenReturn(IClasspathEntry.CPE_PROJECT);
+    when(projectEntry.getPath()).thenReturn(new Path("/dependency"));
+    when(projectEntry.getExtraAttributes()).thenReturn(new IClasspathAttribute[0]);
+    IJavaProject project = mockProjectWithOutput(temp.newFolder("projectOutput"));
+    when(project.getResolvedClasspath(true)).thenReturn(new IClasspathEntry[] {projectEntry});
+    when(project.getJavaModel()).thenReturn(javaModel);
+
+    jdtUtils.configureJavaProject(project, mock(IPreAnalysisContext.class));
+    JdtUtils.invalidate(dependency);
+    jdtUtils.configureJavaProject(project, mock(IPreAnalysisContext.class));
+
+    verify(project, times(2)).getResolvedClasspath(true);
+  }
+
+  @Test
+  public void shouldNotCacheClasspathConfigurationWithMissingOutput() throws JavaModelException, IOException {
+    IJavaProject project = mockProjectWithOutput(new File(temp.getRoot(), "notBuiltYet"));
+
+    jdtUtils.configureJavaProject(project, mock(IPreAnalysisContext.class));
+    jdtUtils.configureJavaProject(project, mock(IPreAnalysisContext.class));
+
+    verify(project, times(2)).getResolvedClasspath(true);
+  }
+
+  private static IJavaProject mockProjectWithOutput(File outputFolder) throws JavaModelException {
+    IJavaProject project = mock(IJavaProject.class);
+    when(project.getOption(JavaCore.COMPILER_SOURCE, true)).thenReturn("1.8");
+    when(project.getOption(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, true)).thenReturn("1.8");
+    when(project.getResolvedClasspath(true)).thenReturn(new IClasspathEntry[] {});
+    when(project.getOutputLocation()).thenReturn(new Path(outputFolder.getAbsolutePath()));
+    return project;
+  }
+
   private IClasspathEntry createCPE(int kind, File path, @Nullable File outputLocation) {
     IClasspathEntry cpe = mock(IClasspathEntry.class);
     when(cpe.getEntryKind()).thenReturn(kind);
@@ -0,0 +1,111 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.m2e.internal;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.Path;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProjectLocationIndexTest {
+
+  private IProject[] projects = new IProject[0];
+  private final ProjectLocationIndex underTest = new ProjectLocationIndex(() -> projects);
+
+  @Test
+  public void should_find_nested_modules_most_specific_first() {
+    IProject parent = project("/a");
+    IProject module = project("/a/mod");
+    IProject subModule = project("/a/mod/sub");
+    projects = new IProject[] {parent, subModule, module};
+
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/mod/sub/src/Foo.java"))).containsExactly(subModule, module, parent);
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/mod/src/Foo.java"))).containsExactly(module, parent);
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/mod"))).containsExactly(module, parent);
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/b/Foo.java"))).isEmpty();
+  }
+
+  @Test
+  public void should_not_match_sibling_modules_sharing_a_prefix() {
+    IProject mod = project("/a/mod");
+    IProject module = project("/a/module");
+    projects = new IProject[] {mod, module};
+
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/module/pom.xml"))).containsExactly(module);
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/mod/pom.xml"))).containsExactly(mod);
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/modules/pom.xml"))).isEmpty();
+  }
+
+  @Test
+  public void should_ignore_projects_without_location() {
+    IProject virtual = mock(IProject.class);
+    IProject mod = project("/a/mod");
+    projects = new IProject[] {virtual, mod};
+
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/mod/pom.xml"))).containsExactly(mod);
+  }
+
+  @Test
+  public void should_rebuild_after_project_change() {
+    IProject mod = project("/a/mod");
+    projects = new IProject[] {mod};
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/module/pom.xml"))).isEmpty();
+
+    IProject module = project("/a/module");
+    projects = new IProject[] {mod, module};
+    // Content changes don't rebuild the index
+    underTest.resourceChanged(event(module, IResourceDelta.CHANGED, IResourceDelta.CONTENT));
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/module/pom.xml"))).isEmpty();
+
+    underTest.resourceChanged(event(module, IResourceDelta.ADDED, 0));
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/module/pom.xml"))).containsExactly(module);
+
+    projects = new IProject[] {module};
+    underTest.resourceChanged(event(mod, IResourceDelta.CHANGED, IResourceDelta.OPEN));
+    assertThat(underTest.projectsContaining(Path.fromPortableString("/a/mod/pom.xml"))).isEmpty();
+  }
+
+  private static IProject project(String location) {
+    IProject project = mock(IProject.class);
+    when(project.getLocation()).thenReturn(Path.fromPortableString(location));
+    return project;
+  }
+
+  private static IResourceChangeEvent event(IProject project, int kind, int flags) {
+    IResourceDelta projectDelta = mock(IResourceDelta.class);
+    when(project.getType()).thenReturn(IResource.PROJECT);
+    when(projectDelta.getResource()).thenReturn(project);
+    when(projectDelta.getKind()).thenReturn(kind);
+    when(projectDelta.getFlags()).thenReturn(flags);
+    IResourceDelta rootDelta = mock(IResourceDelta.class);
+    when(rootDelta.getAffectedChildren(anyInt(), anyInt())).thenReturn(new IResourceDelta[] {projectDelta});
+    IResourceChangeEvent event = mock(IResourceChangeEvent.class);
+    when(event.getDelta()).thenReturn(rootDelta);
+    return event;
+  }
+
+}
@@ -21,6 +21,8 @@ package org.sonarlint.eclipse.core.internal;
 
 import java.nio.file.Path;
 import org.eclipse.core.net.proxy.IProxyService;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
@@ -34,6 +36,8 @@ import org.sonarlint.eclipse.core.internal.engine.StandaloneEngineFacade;
 import org.sonarlint.eclipse.core.internal.engine.connected.ConnectedEngineFacadeManager;
 import org.sonarlint.eclipse.core.internal.event.AnalysisListenerManager;
 import org.sonarlint.eclipse.core.internal.extension.SonarLintExtensionTracker;
+import org.sonarlint.eclipse.core.internal.jobs.AnalysisScheduler;
+import org.sonarlint.eclipse.core.internal.jobs.TestFileClassifier;
 import org.sonarlint.eclipse.core.internal.notifications.NotificationsManager;
 import org.sonarlint.eclipse.core.internal.notifications.NotificationsTracker;
 import org.sonarlint.eclipse.core.internal.notifications.NotificationsTrackerRegistry;
@@ -42,6 +46,7 @@ import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfigura
 import org.sonarlint.eclipse.core.internal.telemetry.SonarLintTelemetry;
 import org.sonarlint.eclipse.core.internal.tracking.IssueStore;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTracker;
+import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerCacheBudget;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerCacheFactory;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerRegistry;
 import org.sonarlint.eclipse.core.internal.tracking.PersistentIssueTrackerCache;
@@ -63,6 +68,7 @@ public class SonarLintCorePlugin extends Plugin {
   private static NotificationsManager notificationsManager;
 
   private IssueTrackerRegistry issueTrackerRegistry;
+  private IssueTrackerCacheBudget issueTrackerCacheBudget;
   private ServerIssueUpdater serverIssueUpdater;
 
   private StandaloneEngineFacade sonarlint;
@@ -74,6 +80,7 @@ public class SonarLintCorePlugin extends Plugin {
 
   private NotificationsTrackerRegistry notificationsTrackerRegistry;
   private NodeJsManager nodeJsManager;
+  private AnalysisScheduler analysisScheduler;
 
   public SonarLintCorePlugin() {
     plugin = this;
@@ -103,10 +110,11 @@ public class SonarLintCorePlugin extends Plugin {
   public void start(BundleContext context) throws Exception {
     super.start(context);
 
+    issueTrackerCacheBudget = IssueTrackerCacheBudget.createDefault();
     IssueTrackerCacheFactory factory = project -> {
       Path storeBasePath = StoragePathManager.getIssuesDir(project);
       IssueStore issueStore = new IssueStore(storeBasePath, project);
-      return new PersistentIssueTrackerCache(issueStore);
+      return new PersistentIssueTrackerCache(issueStore, issueTrackerCacheBudget, true);
     };
     issueTrackerRegistry = new IssueTrackerRegistry(factory);
 
@@ -116,6 +124,11 @@ public class SonarLintCorePlugin extends Plugin {
 
     nodeJsManager = new NodeJsManager();
 
+    analysisScheduler = new AnalysisScheduler();
+
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(TestFileClassifier.get(), IResourceChangeEvent.POST_CHANGE);
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(getProjectConfigManager(), IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+
     startupAsync();
   }
 
@@ -149,12 +162,18 @@ public class SonarLintCorePlugin extends Plugin {
   public void stop(BundleContext context) throws Exception {
     telemetry.stop();
 
+    analysisScheduler.shutdown();
+
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(TestFileClassifier.get());
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(getProjectConfigManager());
+
     if (sonarlint != null) {
       sonarlint.stop();
     }
     proxyTracker.close();
 
     issueTrackerRegistry.shutdown();
+    SonarLintLogger.get().debug("Issue tracker cache: " + issueTrackerCacheBudget);
     if (serversManager != null) {
       serversManager.stop();
     }
@@ -184,6 +203,11 @@ public class SonarLintCorePlugin extends Plugin {
 
   public static void clearIssueTracker(ISonarLintProject project) {
     getInstance().issueTrackerRegistry.get(project).ifPresent(IssueTracker::clear);
+    getInstance().serverIssueUpdater.clearCache(project);
+  }
+
+  public static IssueTrackerCacheBudget getIssueTrackerCacheBudget() {
+    return getInstance().issueTrackerCacheBudget;
   }
 
   public static AnalysisListenerManager getAnalysisListenerManager() {
@@ -198,6 +222,10 @@ public class SonarLintCorePlugin extends Plugin {
     return getInstance().nodeJsManager;
   }
 
+  public static AnalysisScheduler getAnalysisScheduler() {
+    return getInstance().analysisScheduler;
+  }
+
   public static synchronized ConnectedEngineFacadeManager getServersManager() {
     if (getInstance().serversManager == null) {
       getInstance().serversManager = new ConnectedEngineFacadeManager();
@@ -210,8 +238,11 @@ public class SonarLintCorePlugin extends Plugin {
     return getInstance().notificationsTrackerRegistry.getOrCreate(project);
   }
 
+  /**
+   * @return a read-only snapshot of the project configuration, call {@link SonarLintProjectConfiguration#copy()} to edit it
+   */
   public static SonarLintProjectConfiguration loadConfig(ISonarLintProject project) {
-    return getInstance().getProjectConfigManager().load(project.getScopeContext(), project.getName());
+    return getInstance().getProjectConfigManager().loadSnapshot(project);
   }
 
   public static void saveConfig(ISonarLintProject project, SonarLintProjectConfiguration config) {
@@ -0,0 +1,119 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.engine;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+
+/**
+ * Coordinates the usage of a wrapped SonarLint engine by several threads:
+ * <ul>
+ * <li>the engine can be used concurrently, but starting or stopping it requires exclusive access. This way stopping an engine
+ * (for example when Node.js path is changed) waits for running analyses instead of pulling the engine from under them.</li>
+ * <li>the number of analyses running at the same time on the engine is bounded. The limit is read each time an analysis
+ * is about to start, so that changing the preference doesn't require to restart the engine.</li>
+ * </ul>
+ */
+public class EngineLifecycle {
+
+  private static final long CANCEL_POLLING_MS = 100;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final IntSupplier maxConcurrentAnalyses;
+  private final Object analysisSlotsMonitor = new Object();
+  private int runningAnalyses;
+
+  public EngineLifecycle(IntSupplier maxConcurrentAnalyses) {
+    this.maxConcurrentAnalyses = maxConcurrentAnalyses;
+  }
+
+  /**
+   * Run an action that needs the engine, possibly at the same time than other actions.
+   */
+  public <G> G shared(Supplier<G> action) {
+    lock.readLock().lock();
+    try {
+      return action.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Run an action that starts or stops the engine. Wait for all shared actions to complete.
+   */
+  public void exclusive(Runnable action) {
+    lock.writeLock().lock();
+    try {
+      action.run();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Run an analysis. Wait for an analysis slot to be available before taking the shared access, so that a pending
+   * analysis never delays an engine stop.
+   * @throws CanceledException if the monitor is canceled while waiting for an analysis slot
+   */
+  public <G> G analysis(IProgressMonitor monitor, Supplier<G> action) {
+    acquireAnalysisSlot(monitor);
+    try {
+      return shared(action);
+    } finally {
+      releaseAnalysisSlot();
+    }
+  }
+
+  public int getRunningAnalyses() {
+    synchronized (analysisSlotsMonitor) {
+      return runningAnalyses;
+    }
+  }
+
+  private void acquireAnalysisSlot(IProgressMonitor monitor) {
+    synchronized (analysisSlotsMonitor) {
+      while (runningAnalyses >= Math.max(1, maxConcurrentAnalyses.getAsInt())) {
+        if (monitor.isCanceled()) {
+          throw new CanceledException();
+        }
+        try {
+          analysisSlotsMonitor.wait(CANCEL_POLLING_MS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CanceledException();
+        }
+      }
+      runningAnalyses++;
+    }
+  }
+
+  private void releaseAnalysisSlot() {
+    synchronized (analysisSlotsMonitor) {
+      runningAnalyses--;
+      analysisSlotsMonitor.notifyAll();
+    }
+  }
+
+}
@@ -26,6 +26,7 @@ import java.util.Enumeration;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.Nullable;
@@ -33,6 +34,7 @@ import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.jobs.SonarLintAnalyzerLogOutput;
 import org.sonarlint.eclipse.core.internal.jobs.WrappedProgressMonitor;
+import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
 import org.sonarlint.eclipse.core.internal.utils.NodeJsManager;
 import org.sonarlint.eclipse.core.internal.utils.SonarLintUtils;
 import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
@@ -50,10 +52,30 @@ import static java.util.stream.Collectors.toSet;
 
 public class StandaloneEngineFacade {
 
-  private StandaloneSonarLintEngine wrappedEngine;
+  private final EngineLifecycle lifecycle;
+  private volatile StandaloneSonarLintEngine wrappedEngine;
+
+  public StandaloneEngineFacade() {
+    this.lifecycle = new EngineLifecycle(SonarLintGlobalConfiguration::getMaxConcurrentAnalyses);
+  }
+
+  /**
+   * Wrap an engine that is already started. Used by benchmarks, that run without a workbench.
+   */
+  public StandaloneEngineFacade(StandaloneSonarLintEngine engine, IntSupplier maxConcurrentAnalyses) {
+    this.lifecycle = new EngineLifecycle(maxConcurrentAnalyses);
+    this.wrappedEngine = engine;
+  }
 
   @Nullable
-  private synchronized StandaloneSonarLintEngine getOrCreateEngine() {
+  private StandaloneSonarLintEngine getOrCreateEngine() {
+    if (wrappedEngine == null) {
+      lifecycle.exclusive(this::startEngineIfNeeded);
+    }
+    return wrappedEngine;
+  }
+
+  private void startEngineIfNeeded() {
     if (wrappedEngine == null) {
       SonarLintLogger.get().info("Starting standalone SonarLint engine " + SonarLintUtils.getPluginVersion() + "...");
       Enumeration<URL> pluginEntriesEnum = SonarLintCorePlugin.getInstance().getBundle().findEntries("/plugins", "*.jar", false);
@@ -80,26 +102,32 @@ public class StandaloneEngineFacade {
         throw new IllegalStateException("Unable to find any embedded plugin");
       }
     }
-    return wrappedEngine;
   }
 
   private <G> Optional<G> withEngine(Function<StandaloneSonarLintEngine, G> function) {
     getOrCreateEngine();
-    synchronized (this) {
-      if (wrappedEngine != null) {
-        return Optional.ofNullable(function.apply(wrappedEngine));
-      }
+    return lifecycle.shared(() -> applyIfStarted(function));
+  }
+
+  private <G> Optional<G> applyIfStarted(Function<StandaloneSonarLintEngine, G> function) {
+    StandaloneSonarLintEngine engine = wrappedEngine;
+    if (engine != null) {
+      return Optional.ofNullable(function.apply(engine));
     }
     return Optional.empty();
   }
 
+  /**
+   * Several analyses can run at the same time on the standalone engine, up to {@link SonarLintGlobalConfiguration#getMaxConcurrentAnalyses()}.
+   */
   @Nullable
   public AnalysisResults runAnalysis(StandaloneAnalysisConfiguration config, IssueListener issueListener, IProgressMonitor monitor) {
-    return withEngine(engine -> {
+    getOrCreateEngine();
+    return lifecycle.analysis(monitor, () -> applyIfStarted(engine -> {
       AnalysisResults analysisResults = engine.analyze(config, issueListener, null, new WrappedProgressMonitor(monitor, "Analysis"));
       AnalysisRequirementNotifications.notifyOnceForSkippedPlugins(analysisResults, engine.getPluginDetails());
       return analysisResults;
-    }).orElse(null);
+    })).orElse(null);
   }
 
   @Nullable
@@ -115,11 +143,16 @@ public class StandaloneEngineFacade {
         .orElse(emptySet());
   }
 
-  public synchronized void stop() {
-    if (wrappedEngine != null) {
-      wrappedEngine.stop();
-      wrappedEngine = null;
-    }
+  /**
+   * Wait for running analyses to complete before stopping the engine.
+   */
+  public void stop() {
+    lifecycle.exclusive(() -> {
+      if (wrappedEngine != null) {
+        wrappedEngine.stop();
+        wrappedEngine = null;
+      }
+    });
   }
 
 }
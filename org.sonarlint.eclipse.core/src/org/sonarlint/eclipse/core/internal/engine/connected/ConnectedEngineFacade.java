@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -44,9 +45,11 @@ import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.StoragePathManager;
 import org.sonarlint.eclipse.core.internal.engine.AnalysisRequirementNotifications;
+import org.sonarlint.eclipse.core.internal.engine.EngineLifecycle;
 import org.sonarlint.eclipse.core.internal.engine.SkippedPluginsNotifier;
 import org.sonarlint.eclipse.core.internal.jobs.SonarLintAnalyzerLogOutput;
 import org.sonarlint.eclipse.core.internal.jobs.WrappedProgressMonitor;
+import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration.EclipseProjectBinding;
 import org.sonarlint.eclipse.core.internal.resources.ProjectsProviderUtils;
@@ -94,10 +97,12 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
   private String host;
   private String organization;
   private boolean hasAuth;
-  private ConnectedSonarLintEngine wrappedEngine;
+  private final EngineLifecycle lifecycle = new EngineLifecycle(SonarLintGlobalConfiguration::getMaxConcurrentAnalyses);
+  private volatile ConnectedSonarLintEngine wrappedEngine;
   private final List<IConnectedEngineFacadeListener> facadeListeners = new ArrayList<>();
   private GlobalStorageStatus updateStatus;
   private boolean hasUpdates;
+  private final AtomicLong storageVersion = new AtomicLong();
   private boolean notificationsDisabled;
   // Cache the project list to avoid dead lock
   private final Map<String, RemoteProject> allProjectsByKey = new ConcurrentHashMap<>();
@@ -112,7 +117,14 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
   }
 
   @Nullable
-  private synchronized ConnectedSonarLintEngine getOrCreateEngine() {
+  private ConnectedSonarLintEngine getOrCreateEngine() {
+    if (wrappedEngine == null) {
+      lifecycle.exclusive(this::startEngineIfNeeded);
+    }
+    return wrappedEngine;
+  }
+
+  private void startEngineIfNeeded() {
     if (wrappedEngine == null) {
       SonarLintLogger.get().info("Starting SonarLint engine for connection '" + id + "'...");
       NodeJsManager nodeJsManager = SonarLintCorePlugin.getNodeJsManager();
@@ -137,26 +149,26 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
         wrappedEngine = null;
       }
     }
-    return wrappedEngine;
   }
 
   private <G> Optional<G> withEngine(Function<ConnectedSonarLintEngine, G> function) {
     getOrCreateEngine();
-    synchronized (this) {
-      if (wrappedEngine != null) {
-        return Optional.ofNullable(function.apply(wrappedEngine));
-      }
+    return lifecycle.shared(() -> applyIfStarted(function));
+  }
+
+  private <G> Optional<G> applyIfStarted(Function<ConnectedSonarLintEngine, G> function) {
+    ConnectedSonarLintEngine engine = wrappedEngine;
+    if (engine != null) {
+      return Optional.ofNullable(function.apply(engine));
     }
     return Optional.empty();
   }
 
   private void doWithEngine(Consumer<ConnectedSonarLintEngine> consumer) {
-    getOrCreateEngine();
-    synchronized (this) {
-      if (wrappedEngine != null) {
-        consumer.accept(wrappedEngine);
-      }
-    }
+    withEngine(engine -> {
+      consumer.accept(engine);
+      return null;
+    });
   }
 
   private void reloadProjects(ConnectedSonarLintEngine engine) {
@@ -166,6 +178,7 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
 
   @Override
   public void stateChanged(State state) {
+    storageVersion.incrementAndGet();
     if (state.equals(State.UPDATED)) {
       reloadProjects(wrappedEngine);
     }
@@ -318,8 +331,8 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
   }
 
   @Override
-  public synchronized void delete() {
-    doStop();
+  public void delete() {
+    stop();
     for (ISonarLintProject sonarLintProject : getBoundProjects()) {
       unbind(sonarLintProject);
     }
@@ -328,7 +341,7 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
 
   public static void unbind(ISonarLintProject project) {
     SonarLintCorePlugin.getInstance().notificationsManager().unsubscribe(project);
-    SonarLintProjectConfiguration config = SonarLintCorePlugin.loadConfig(project);
+    SonarLintProjectConfiguration config = SonarLintCorePlugin.loadConfig(project).copy();
     config.setProjectBinding(null);
     SonarLintCorePlugin.saveConfig(project, config);
     project.deleteAllMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID);
@@ -350,11 +363,12 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
   @Nullable
   @Override
   public AnalysisResults runAnalysis(ConnectedAnalysisConfiguration config, IssueListener issueListener, IProgressMonitor monitor) {
-    return withEngine(engine -> {
+    getOrCreateEngine();
+    return lifecycle.analysis(monitor, () -> applyIfStarted(engine -> {
       AnalysisResults analysisResults = engine.analyze(config, issueListener, null, new WrappedProgressMonitor(monitor, "Analysis"));
       AnalysisRequirementNotifications.notifyOnceForSkippedPlugins(analysisResults, engine.getPluginDetails());
       return analysisResults;
-    }).orElse(null);
+    })).orElse(null);
   }
 
   @Nullable
@@ -363,15 +377,16 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
     return withEngine(engine -> engine.getActiveRuleDetails(ruleKey, projectKey)).orElse(null);
   }
 
-  public synchronized void stop() {
-    doStop();
-  }
-
-  private void doStop() {
-    if (wrappedEngine != null) {
-      wrappedEngine.stop(false);
-      wrappedEngine = null;
-    }
+  /**
+   * Wait for running analyses and storage updates to complete before stopping the engine.
+   */
+  public void stop() {
+    lifecycle.exclusive(() -> {
+      if (wrappedEngine != null) {
+        wrappedEngine.stop(false);
+        wrappedEngine = null;
+      }
+    });
   }
 
   @Override
@@ -387,6 +402,7 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
       }
       updateStatus = updateResult.status();
       hasUpdates = false;
+      storageVersion.incrementAndGet();
       SkippedPluginsNotifier.notifyForSkippedPlugins(engine.getPluginDetails(), id);
     });
   }
@@ -460,12 +476,13 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
     doWithEngine(engine -> {
       engine.updateProject(getConfig(), projectKey,
         new WrappedProgressMonitor(monitor, "Update configuration from server '" + getId() + "' for project '" + projectKey + "'"));
+      storageVersion.incrementAndGet();
       getBoundProjects(projectKey).forEach(p -> {
         ProjectBinding projectBinding = engine.calculatePathPrefixes(projectKey, p.files().stream().map(ISonarLintFile::getProjectRelativePath).collect(toList()));
         String idePathPrefix = projectBinding.idePathPrefix();
         String sqPathPrefix = projectBinding.sqPathPrefix();
         SonarLintLogger.get().debug("Detected prefixes for " + p.getName() + ":\n  IDE prefix: " + idePathPrefix + "\n  Server side prefix: " + sqPathPrefix);
-        SonarLintProjectConfiguration config = SonarLintCorePlugin.loadConfig(p);
+        SonarLintProjectConfiguration config = SonarLintCorePlugin.loadConfig(p).copy();
         config.setProjectBinding(new EclipseProjectBinding(getId(), projectKey, sqPathPrefix, idePathPrefix));
         SonarLintCorePlugin.saveConfig(p, config);
       });
@@ -584,6 +601,11 @@ public class ConnectedEngineFacade implements IConnectedEngineFacade, StateListe
     return withEngine(engine -> engine.getExcludedFiles(binding, files, ISonarLintFile::getProjectRelativePath, testFilePredicate)).orElse(emptyList());
   }
 
+  @Override
+  public long getStorageVersion() {
+    return storageVersion.get();
+  }
+
   @Override
   public void addConnectedEngineListener(IConnectedEngineFacadeListener listener) {
     facadeListeners.add(listener);
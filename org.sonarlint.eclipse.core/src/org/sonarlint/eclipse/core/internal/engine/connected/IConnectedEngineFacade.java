@@ -128,4 +128,10 @@ public interface IConnectedEngineFacade {
 
   List<ISonarLintFile> getServerFileExclusions(ProjectBinding binding, Collection<ISonarLintFile> files, Predicate<ISonarLintFile> testFilePredicate);
 
+  /**
+   * Increased every time the local storage is updated from the server, or the engine is restarted. Can be used as a cache key for data derived
+   * from the storage.
+   */
+  long getStorageVersion();
+
 }
@@ -19,7 +19,7 @@
  */
 package org.sonarlint.eclipse.core.internal.jobs;
 
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -35,16 +35,17 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.jdt.annotation.Nullable;
-import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.Position;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.analysis.IAnalysisConfigurator;
 import org.sonarlint.eclipse.core.analysis.IFileLanguageProvider;
@@ -56,11 +57,12 @@ import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.engine.connected.ConnectedEngineFacade;
 import org.sonarlint.eclipse.core.internal.extension.SonarLintExtensionTracker;
 import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
-import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
 import org.sonarlint.eclipse.core.internal.markers.TextRange;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
+import org.sonarlint.eclipse.core.internal.resources.DocumentCache;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProperty;
 import org.sonarlint.eclipse.core.internal.telemetry.SonarLintTelemetry;
+import org.sonarlint.eclipse.core.internal.tracking.DocumentLineIndex;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTracker;
 import org.sonarlint.eclipse.core.internal.tracking.RawIssueTrackable;
 import org.sonarlint.eclipse.core.internal.tracking.Trackable;
@@ -74,18 +76,34 @@ import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
-import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
 import static java.text.MessageFormat.format;
 
 public abstract class AbstractAnalyzeProjectJob<CONFIG extends AbstractAnalysisConfiguration> extends AbstractSonarProjectJob {
+  /**
+   * Number of files whose markers are updated in the same workspace operation
+   */
+  private static final int MARKER_UPDATE_CHUNK_SIZE = 100;
+
+  /**
+   * Minimal number of files for markers to be updated during the analysis, by batches of files
+   */
+  private static final int STREAMING_MIN_FILE_COUNT = 100;
+  private static final int STREAMING_BATCH_SIZE = 20;
+
   private final List<SonarLintProperty> extraProps;
   private final TriggerType triggerType;
   private final boolean shouldClearReport;
   private final Collection<FileWithDocument> files;
+  private final SharedAnalysisPreparation sharedPreparation;
 
   protected AbstractAnalyzeProjectJob(AnalyzeProjectRequest request) {
+    this(request, new SharedAnalysisPreparation());
+  }
+
+  AbstractAnalyzeProjectJob(AnalyzeProjectRequest request, SharedAnalysisPreparation sharedPreparation) {
     super(jobTitle(request), request.getProject());
+    this.sharedPreparation = sharedPreparation;
     this.extraProps = SonarLintGlobalConfiguration.getExtraPropertiesForLocalAnalysis(request.getProject());
     this.files = request.getFiles();
     this.triggerType = request.getTriggerType();
@@ -93,10 +111,15 @@ public abstract class AbstractAnalyzeProjectJob<CONFIG extends AbstractAnalysisC
   }
 
   public static AbstractSonarProjectJob create(AnalyzeProjectRequest request) {
+    return create(request, new SharedAnalysisPreparation());
+  }
+
+  static AbstractAnalyzeProjectJob<?> create(AnalyzeProjectRequest request, SharedAnalysisPreparation sharedPreparation) {
     return SonarLintCorePlugin.getServersManager()
       .resolveBinding(request.getProject())
-      .<AbstractSonarProjectJob>map(b -> new AnalyzeConnectedProjectJob(request, b.getProjectBinding(), (ConnectedEngineFacade) b.getEngineFacade()))
-      .orElseGet(() -> new AnalyzeStandaloneProjectJob(request));
+      .<AbstractAnalyzeProjectJob<?>>map(
+        b -> new AnalyzeConnectedProjectJob(request, b.getProjectBinding(), (ConnectedEngineFacade) b.getEngineFacade(), sharedPreparation))
+      .orElseGet(() -> new AnalyzeStandaloneProjectJob(request, sharedPreparation));
   }
 
   private static String jobTitle(AnalyzeProjectRequest request) {
@@ -111,79 +134,157 @@ public abstract class AbstractAnalyzeProjectJob<CONFIG extends AbstractAnalysisC
     if (monitor.isCanceled()) {
       return Status.CANCEL_STATUS;
     }
+    PreparedAnalysis preparedAnalysis;
+    try {
+      preparedAnalysis = prepare(monitor);
+    } catch (Exception e) {
+      return toStatus(e);
+    }
+    return analyze(preparedAnalysis, monitor);
+  }
+
+  /**
+   * First step of the analysis, that doesn't need the engine: apply exclusions, run configurators and build input files.
+   * When analyzing several projects, this step can run in parallel for different projects.
+   * @return null if there is nothing to analyze
+   */
+  @Nullable
+  PreparedAnalysis prepare(final IProgressMonitor monitor) throws CoreException, IOException {
     long startTime = System.currentTimeMillis();
     SonarLintLogger.get().debug("Trigger: " + triggerType.name());
 
-    Path analysisWorkDir = null;
-    try {
-      Collection<ISonarLintFile> excludedFiles = new ArrayList<>();
-      Collection<FileWithDocument> filesToAnalyze = new ArrayList<>();
-
-      FileExclusionsChecker exclusionsChecker = new FileExclusionsChecker(getProject());
-      files.forEach(fWithDoc -> {
-        if (exclusionsChecker.isExcluded(fWithDoc.getFile(), true)) {
-          excludedFiles.add(fWithDoc.getFile());
-        } else {
-          filesToAnalyze.add(fWithDoc);
-        }
-      });
+    Collection<ISonarLintFile> excludedFiles = new ArrayList<>();
+    Collection<FileWithDocument> filesToAnalyze = new ArrayList<>();
 
-      Map<ISonarLintFile, IDocument> filesToAnalyzeMap = filesToAnalyze
-        .stream()
-        .collect(HashMap::new, (m, fWithDoc) -> m.put(fWithDoc.getFile(), fWithDoc.getDocument()), HashMap::putAll);
+    FileExclusionsChecker exclusionsChecker = new FileExclusionsChecker(getProject());
+    Collection<ISonarLintFile> notExcludedFiles = exclusionsChecker.filterExcludedFiles(getProject(),
+      files.stream().map(FileWithDocument::getFile).collect(Collectors.toList()), true);
+    files.forEach(fWithDoc -> {
+      if (notExcludedFiles.contains(fWithDoc.getFile())) {
+        filesToAnalyze.add(fWithDoc);
+      } else {
+        excludedFiles.add(fWithDoc.getFile());
+      }
+    });
 
-      SonarLintLogger.get().debug("Clear markers on " + excludedFiles.size() + " excluded files");
-      ResourcesPlugin.getWorkspace().run(m -> {
-        excludedFiles.forEach(SonarLintMarkerUpdater::clearMarkers);
+    Map<ISonarLintFile, IDocument> filesToAnalyzeMap = filesToAnalyze
+      .stream()
+      .collect(HashMap::new, (m, fWithDoc) -> m.put(fWithDoc.getFile(), fWithDoc.getDocument()), HashMap::putAll);
 
-        if (shouldClearReport) {
-          SonarLintMarkerUpdater.deleteAllMarkersFromReport();
-        }
-      }, monitor);
+    SonarLintLogger.get().debug("Clear markers on " + excludedFiles.size() + " excluded files");
+    ISchedulingRule clearMarkersRule = SonarLintMarkerUpdater.markerRule(excludedFiles);
+    if (shouldClearReport) {
+      clearMarkersRule = MultiRule.combine(clearMarkersRule, SonarLintMarkerUpdater.reportMarkersRule());
+    }
+    ResourcesPlugin.getWorkspace().run(m -> {
+      excludedFiles.forEach(SonarLintMarkerUpdater::clearMarkers);
 
-      if (filesToAnalyze.isEmpty()) {
-        return Status.OK_STATUS;
+      if (shouldClearReport) {
+        SonarLintMarkerUpdater.deleteAllMarkersFromReport();
       }
+    }, clearMarkersRule, IWorkspace.AVOID_UPDATE, monitor);
 
-      // Analyze
-      SonarLintLogger.get().info(this.getName() + "...");
-      // Configure
-      Map<String, String> mergedExtraProps = new LinkedHashMap<>();
-      Collection<ProjectConfigurator> usedDeprecatedConfigurators = configureDeprecated(getProject(), filesToAnalyzeMap.keySet(), mergedExtraProps, monitor);
+    if (filesToAnalyze.isEmpty()) {
+      return null;
+    }
 
-      analysisWorkDir = Files.createTempDirectory(getProject().getWorkingDir(), "sonarlint");
+    // Analyze
+    SonarLintLogger.get().info(this.getName() + "...");
+    // Configure
+    Map<String, String> mergedExtraProps = new LinkedHashMap<>();
+    Collection<ProjectConfigurator> usedDeprecatedConfigurators = configureDeprecated(getProject(), filesToAnalyzeMap.keySet(), mergedExtraProps, monitor);
+
+    AnalysisWorkDir analysisWorkDir = AnalysisWorkDirPool.get(getProject()).acquire();
+    // Files open in an editor already have a document
+    DocumentCache.Scope documentScope = DocumentCache.open(filesToAnalyzeMap.entrySet().stream()
+      .filter(e -> e.getValue() == null)
+      .map(Map.Entry::getKey)
+      .collect(Collectors.toList()));
+    boolean prepared = false;
+    try {
       List<ClientInputFile> inputFiles = buildInputFiles(analysisWorkDir, filesToAnalyzeMap);
-      Collection<IAnalysisConfigurator> usedConfigurators = configure(getProject(), inputFiles, mergedExtraProps, analysisWorkDir, monitor);
+      Collection<IAnalysisConfigurator> usedConfigurators = configure(getProject(), inputFiles, mergedExtraProps, analysisWorkDir.getPath(), monitor);
 
       extraProps.forEach(sonarProperty -> mergedExtraProps.put(sonarProperty.getName(), sonarProperty.getValue()));
 
-      if (!inputFiles.isEmpty()) {
-        runAnalysisAndUpdateMarkers(filesToAnalyzeMap, monitor, mergedExtraProps, inputFiles, analysisWorkDir);
+      PreparedAnalysis preparedAnalysis = new PreparedAnalysis(startTime, filesToAnalyzeMap, inputFiles, mergedExtraProps, analysisWorkDir, documentScope,
+        usedDeprecatedConfigurators, usedConfigurators);
+      prepared = true;
+      return preparedAnalysis;
+    } finally {
+      if (!prepared) {
+        documentScope.close();
+        analysisWorkDir.release();
       }
+    }
+  }
 
-      analysisCompleted(usedDeprecatedConfigurators, usedConfigurators, mergedExtraProps, monitor);
-      SonarLintCorePlugin.getAnalysisListenerManager().notifyListeners();
-      SonarLintLogger.get().debug(String.format("Done in %d ms", System.currentTimeMillis() - startTime));
-    } catch (
+  /**
+   * Second step of the analysis: run the engine and update markers. The analysis work directory is always given back to the pool, and
+   * cached documents are released.
+   */
+  IStatus analyze(@Nullable PreparedAnalysis preparedAnalysis, final IProgressMonitor monitor) {
+    if (preparedAnalysis == null) {
+      return Status.OK_STATUS;
+    }
+    try {
+      if (!preparedAnalysis.inputFiles.isEmpty()) {
+        runAnalysisAndUpdateMarkers(preparedAnalysis.filesToAnalyze, monitor, preparedAnalysis.mergedExtraProps, preparedAnalysis.inputFiles,
+          preparedAnalysis.analysisWorkDir.getPath());
+      }
 
-    CanceledException e) {
-      return Status.CANCEL_STATUS;
+      analysisCompleted(preparedAnalysis.usedDeprecatedConfigurators, preparedAnalysis.usedConfigurators, preparedAnalysis.mergedExtraProps, monitor);
+      SonarLintCorePlugin.getAnalysisListenerManager().notifyListeners();
+      SonarLintLogger.get().debug(String.format("Done in %d ms", System.currentTimeMillis() - preparedAnalysis.startTime));
     } catch (Exception e) {
-      SonarLintLogger.get().error("Error during execution of SonarLint analysis", e);
-      return new Status(IStatus.WARNING, SonarLintCorePlugin.PLUGIN_ID, "Error when executing SonarLint analysis", e);
+      return toStatus(e);
     } finally {
-      if (analysisWorkDir != null) {
-        try {
-          FileUtils.deleteRecursively(analysisWorkDir);
-        } catch (Exception e) {
-          SonarLintLogger.get().debug("Unable to delete temp directory: " + analysisWorkDir, e);
-        }
-      }
+      preparedAnalysis.discard();
     }
 
     return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
   }
 
+  static IStatus toStatus(Exception e) {
+    if (e instanceof CanceledException) {
+      return Status.CANCEL_STATUS;
+    }
+    SonarLintLogger.get().error("Error during execution of SonarLint analysis", e);
+    return new Status(IStatus.WARNING, SonarLintCorePlugin.PLUGIN_ID, "Error when executing SonarLint analysis", e);
+  }
+
+  static class PreparedAnalysis {
+    private final long startTime;
+    private final Map<ISonarLintFile, IDocument> filesToAnalyze;
+    private final List<ClientInputFile> inputFiles;
+    private final Map<String, String> mergedExtraProps;
+    private final AnalysisWorkDir analysisWorkDir;
+    private final DocumentCache.Scope documentScope;
+    private final Collection<ProjectConfigurator> usedDeprecatedConfigurators;
+    private final Collection<IAnalysisConfigurator> usedConfigurators;
+
+    private PreparedAnalysis(long startTime, Map<ISonarLintFile, IDocument> filesToAnalyze, List<ClientInputFile> inputFiles, Map<String, String> mergedExtraProps,
+      AnalysisWorkDir analysisWorkDir, DocumentCache.Scope documentScope, Collection<ProjectConfigurator> usedDeprecatedConfigurators,
+      Collection<IAnalysisConfigurator> usedConfigurators) {
+      this.startTime = startTime;
+      this.filesToAnalyze = filesToAnalyze;
+      this.inputFiles = inputFiles;
+      this.mergedExtraProps = mergedExtraProps;
+      this.analysisWorkDir = analysisWorkDir;
+      this.documentScope = documentScope;
+      this.usedDeprecatedConfigurators = usedDeprecatedConfigurators;
+      this.usedConfigurators = usedConfigurators;
+    }
+
+    /**
+     * Clean resources of an analysis, once done or when it will not be run
+     */
+    void discard() {
+      documentScope.close();
+      analysisWorkDir.release();
+    }
+  }
+
   private void runAnalysisAndUpdateMarkers(Map<ISonarLintFile, IDocument> docPerFiles, final IProgressMonitor monitor,
     Map<String, String> mergedExtraProps, List<ClientInputFile> inputFiles, Path analysisWorkDir) throws CoreException {
     IPath projectLocation = getProject().getResource().getLocation();
@@ -196,13 +297,98 @@ public abstract class AbstractAnalyzeProjectJob<CONFIG extends AbstractAnalysisC
     docPerFiles.keySet().forEach(slFile -> issuesPerResource.put(slFile, new ArrayList<>()));
 
     long start = System.currentTimeMillis();
-    AnalysisResults result = run(config, issuesPerResource, monitor);
+    AnalysisResults result;
+    if (docPerFiles.size() >= STREAMING_MIN_FILE_COUNT) {
+      result = runStreamingAnalysisAndUpdateMarkers(config, docPerFiles, issuesPerResource, monitor);
+    } else {
+      result = run(config, issuesPerResource, monitor);
+      if (!monitor.isCanceled()) {
+        updateMarkers(docPerFiles, issuesPerResource, result, triggerType, monitor);
+      }
+    }
     if (!monitor.isCanceled()) {
-      updateMarkers(docPerFiles, issuesPerResource, result, triggerType, monitor);
       updateTelemetry(result, start);
     }
   }
 
+  /**
+   * Markers of the first analyzed files are updated while the engine is still analyzing the others, and their raw issues released.
+   */
+  private AnalysisResults runStreamingAnalysisAndUpdateMarkers(CONFIG config, Map<ISonarLintFile, IDocument> docPerFiles,
+    Map<ISonarLintIssuable, List<Issue>> issuesPerResource, IProgressMonitor monitor) {
+    int totalTrackedFiles = docPerFiles.size();
+    IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject());
+    List<ISonarLintIssuable> filesWithAtLeastOneIssue = new ArrayList<>();
+    // Needed to track issues reported on files after they were flushed
+    Map<ISonarLintIssuable, Collection<Trackable>> previousTrackablesOfFlushedFiles = new HashMap<>();
+    // Batches are tracked by the engine thread while it holds the engine, so anything that needs exclusive access to the engine (like
+    // downloading server issues) must be done before
+    beforeTrackingIssues(triggerType, totalTrackedFiles);
+    StreamingIssueListener issueListener = new StreamingIssueListener(getProject(), issuesPerResource, STREAMING_BATCH_SIZE, batch -> {
+      if (monitor.isCanceled()) {
+        return;
+      }
+      batch.keySet().forEach(file -> previousTrackablesOfFlushedFiles.put(file, issueTracker.getPreviousTrackables((ISonarLintFile) file)));
+      filesWithAtLeastOneIssue.addAll(batch.keySet());
+      trackIssues(docPerFiles, batch, triggerType, totalTrackedFiles, monitor);
+    });
+    AnalysisResults result = run(config, issueListener, monitor);
+    if (monitor.isCanceled()) {
+      return result;
+    }
+
+    Map<ISonarLintIssuable, List<Issue>> successfulFiles = successfulFiles(issuesPerResource, result);
+    trackIssues(docPerFiles, successfulFiles, triggerType, totalTrackedFiles, monitor);
+    filesWithAtLeastOneIssue.addAll(filesWithAtLeastOneIssue(successfulFiles));
+    successfulFiles(issueListener.getLateIssuesPerResource(), result).forEach((file, lateIssues) -> {
+      if (!monitor.isCanceled()) {
+        trackLateIssuesAndAddMarkers(docPerFiles, (ISonarLintFile) file, lateIssues, previousTrackablesOfFlushedFiles.get(file), totalTrackedFiles);
+      }
+    });
+    Set<ISonarLintFile> failedFiles = failedFiles(result);
+    List<ISonarLintFile> failedFlushedFiles = previousTrackablesOfFlushedFiles.keySet().stream()
+      .filter(failedFiles::contains)
+      .map(ISonarLintFile.class::cast)
+      .collect(Collectors.toList());
+    if (!failedFlushedFiles.isEmpty()) {
+      revertMarkers(docPerFiles, failedFlushedFiles, previousTrackablesOfFlushedFiles, monitor);
+      filesWithAtLeastOneIssue.removeAll(failedFlushedFiles);
+    }
+    afterTrackingIssues(docPerFiles, filesWithAtLeastOneIssue, triggerType);
+    return result;
+  }
+
+  /**
+   * Files whose analysis failed keep the markers they had before the analysis. Markers of files that were flushed before the engine
+   * reported the failure are restored from the issues cached before the analysis.
+   */
+  private void revertMarkers(Map<ISonarLintFile, IDocument> docPerFiles, List<ISonarLintFile> failedFlushedFiles,
+    Map<ISonarLintIssuable, Collection<Trackable>> previousTrackablesOfFlushedFiles, IProgressMonitor monitor) {
+    SonarLintLogger.get().debug("Restore markers of " + failedFlushedFiles.size() + " file(s) that failed to be analyzed");
+    IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject());
+    try {
+      ResourcesPlugin.getWorkspace().run(m -> {
+        for (ISonarLintFile file : failedFlushedFiles) {
+          Collection<Trackable> previous = previousTrackablesOfFlushedFiles.get(file);
+          if (previous == null) {
+            // Never analyzed before
+            SonarLintMarkerUpdater.clearMarkers(file);
+            issueTracker.updateCache(file, Collections.emptyList());
+          } else {
+            SonarLintMarkerUpdater.createOrUpdateMarkers(file, Optional.ofNullable(docPerFiles.get(file)), previous, triggerType);
+            issueTracker.updateCache(file, previous);
+          }
+        }
+      }, SonarLintMarkerUpdater.markerRule(failedFlushedFiles), IWorkspace.AVOID_UPDATE, monitor);
+    } catch (CoreException e) {
+      SonarLintLogger.get().error("Unable to restore markers", e);
+    }
+  }
+
+  SharedAnalysisPreparation getSharedPreparation() {
+    return sharedPreparation;
+  }
+
   protected abstract CONFIG prepareAnalysisConfig(Path projectBaseDir, List<ClientInputFile> inputFiles, Map<String, String> mergedExtraProps);
 
   private static void updateTelemetry(AnalysisResults result, long start) {
@@ -214,14 +400,15 @@ public abstract class AbstractAnalyzeProjectJob<CONFIG extends AbstractAnalysisC
     }
   }
 
-  private static List<ClientInputFile> buildInputFiles(Path tempDirectory, final Map<ISonarLintFile, IDocument> filesToAnalyze) {
+  private static List<ClientInputFile> buildInputFiles(AnalysisWorkDir workDir, final Map<ISonarLintFile, IDocument> filesToAnalyze) {
     List<ClientInputFile> inputFiles = new ArrayList<>(filesToAnalyze.size());
+    Set<ISonarLintFile> testFiles = TestFileClassifier.get().getTestFiles(filesToAnalyze.keySet());
 
     for (final Map.Entry<ISonarLintFile, IDocument> fileWithDoc : filesToAnalyze.entrySet()) {
       ISonarLintFile file = fileWithDoc.getKey();
       Language language = tryDetectLanguage(file);
-      boolean isTest = TestFileClassifier.get().isTest(file);
-      ClientInputFile inputFile = new EclipseInputFile(isTest, file, tempDirectory, fileWithDoc.getValue(), language);
+      boolean isTest = testFiles.contains(file);
+      ClientInputFile inputFile = new EclipseInputFile(isTest, file, workDir, fileWithDoc.getValue(), language);
       inputFiles.add(inputFile);
     }
     return inputFiles;
@@ -283,80 +470,138 @@ public abstract class AbstractAnalyzeProjectJob<CONFIG extends AbstractAnalysisC
 
   private void updateMarkers(Map<ISonarLintFile, IDocument> docPerFile, Map<ISonarLintIssuable, List<Issue>> issuesPerResource, AnalysisResults result,
     TriggerType triggerType, final IProgressMonitor monitor) throws CoreException {
-    Set<ISonarLintFile> failedFiles = result.failedAnalysisFiles().stream().map(ClientInputFile::<ISonarLintFile>getClientObject).collect(Collectors.toSet());
-    Map<ISonarLintIssuable, List<Issue>> successfulFiles = issuesPerResource.entrySet().stream()
+    Map<ISonarLintIssuable, List<Issue>> successfulFiles = successfulFiles(issuesPerResource, result);
+
+    beforeTrackingIssues(triggerType, successfulFiles.size());
+    trackIssues(docPerFile, successfulFiles, triggerType, successfulFiles.size(), monitor);
+    afterTrackingIssues(docPerFile, filesWithAtLeastOneIssue(successfulFiles), triggerType);
+  }
+
+  private static Set<ISonarLintFile> failedFiles(AnalysisResults result) {
+    return result.failedAnalysisFiles().stream().map(ClientInputFile::<ISonarLintFile>getClientObject).collect(Collectors.toSet());
+  }
+
+  private static Map<ISonarLintIssuable, List<Issue>> successfulFiles(Map<ISonarLintIssuable, List<Issue>> issuesPerResource, AnalysisResults result) {
+    Set<ISonarLintFile> failedFiles = failedFiles(result);
+    return issuesPerResource.entrySet().stream()
       .filter(e -> !failedFiles.contains(e.getKey()))
       // TODO handle non-file-level issues
       .filter(e -> e.getKey() instanceof ISonarLintFile)
-      .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+      .collect(Collectors.toMap(Entry::getKey, Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+  }
 
-    ResourcesPlugin.getWorkspace().run(m -> trackIssues(docPerFile, successfulFiles, triggerType, monitor), monitor);
+  private static List<ISonarLintIssuable> filesWithAtLeastOneIssue(Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource) {
+    return rawIssuesPerResource.entrySet().stream()
+      .filter(e -> !e.getValue().isEmpty())
+      .map(Map.Entry::getKey)
+      .collect(Collectors.toList());
   }
 
-  protected void trackIssues(Map<ISonarLintFile, IDocument> docPerFile, Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource, TriggerType triggerType,
-    final IProgressMonitor monitor) {
+  /**
+   * Called once before issues are tracked. When markers are updated while the analysis is running, it is called before the analysis starts.
+   */
+  protected void beforeTrackingIssues(TriggerType triggerType, int totalTrackedFiles) {
+    // Nothing to do by default
+  }
+
+  /**
+   * Called once markers of all analyzed files are up to date
+   */
+  protected void afterTrackingIssues(Map<ISonarLintFile, IDocument> docPerFile, List<ISonarLintIssuable> filesWithAtLeastOneIssue, TriggerType triggerType) {
+    // Nothing to do by default
+  }
 
-    for (Map.Entry<ISonarLintIssuable, List<Issue>> entry : rawIssuesPerResource.entrySet()) {
+  /**
+   * Markers are written by chunks of files, each chunk in a workspace operation holding only the marker rules of its files, so that builds and
+   * other analyses are not blocked for the whole duration.
+   */
+  private void trackIssues(Map<ISonarLintFile, IDocument> docPerFile, Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource, TriggerType triggerType,
+    int totalTrackedFiles, final IProgressMonitor monitor) {
+    List<Map.Entry<ISonarLintIssuable, List<Issue>>> entries = new ArrayList<>(rawIssuesPerResource.entrySet());
+    for (int chunkStart = 0; chunkStart < entries.size(); chunkStart += MARKER_UPDATE_CHUNK_SIZE) {
       if (monitor.isCanceled()) {
         return;
       }
-      ISonarLintFile file = (ISonarLintFile) entry.getKey();
-      Optional<IDocument> openedDocument = Optional.ofNullable(docPerFile.get(file));
-      IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject());
-      List<Issue> rawIssues = entry.getValue();
-      List<Trackable> trackables;
-      if (!rawIssues.isEmpty()) {
-        IDocument document = openedDocument.orElseGet(file::getDocument);
-        trackables = rawIssues.stream().map(issue -> transform(issue, file, document)).collect(Collectors.toList());
-      } else {
-        trackables = Collections.emptyList();
+      List<Map.Entry<ISonarLintIssuable, List<Issue>>> chunk = entries.subList(chunkStart, Math.min(entries.size(), chunkStart + MARKER_UPDATE_CHUNK_SIZE));
+      ISchedulingRule chunkRule = SonarLintMarkerUpdater.markerRule(chunk.stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+      try {
+        ResourcesPlugin.getWorkspace().run(m -> {
+          for (Map.Entry<ISonarLintIssuable, List<Issue>> entry : chunk) {
+            if (monitor.isCanceled()) {
+              return;
+            }
+            trackIssuesAndUpdateMarkers(docPerFile, entry, triggerType, totalTrackedFiles);
+          }
+        }, chunkRule, IWorkspace.AVOID_UPDATE, monitor);
+      } catch (CoreException e) {
+        SonarLintLogger.get().error("Unable to update markers", e);
       }
-      Collection<Trackable> tracked = trackFileIssues(file, trackables, issueTracker, triggerType, rawIssuesPerResource.size());
-      SonarLintMarkerUpdater.createOrUpdateMarkers(file, openedDocument, tracked, triggerType);
-      // Now that markerId are set, store issues in cache
-      issueTracker.updateCache(file, tracked);
     }
   }
 
+  /**
+   * Issues reported on a file after its markers were updated, for example by another sensor, are tracked against the previous issues that are
+   * still unmatched, and get additional markers
+   */
+  private void trackLateIssuesAndAddMarkers(Map<ISonarLintFile, IDocument> docPerFile, ISonarLintFile file, List<Issue> lateIssues,
+    @Nullable Collection<Trackable> previousTrackables, int totalTrackedFiles) {
+    Optional<IDocument> openedDocument = Optional.ofNullable(docPerFile.get(file));
+    IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject());
+    DocumentLineIndex lineIndex = DocumentLineIndex.of(openedDocument.orElseGet(file::getDocument));
+    List<Trackable> trackables = lateIssues.stream().map(issue -> transform(issue, file, lineIndex)).collect(Collectors.toList());
+    Collection<Trackable> tracked = trackLateFileIssues(file, trackables, previousTrackables, issueTracker, triggerType, totalTrackedFiles);
+    SonarLintMarkerUpdater.addMarkers(file, openedDocument, tracked, triggerType);
+    List<Trackable> allTracked = new ArrayList<>();
+    Optional.ofNullable(issueTracker.getPreviousTrackables(file)).ifPresent(allTracked::addAll);
+    allTracked.addAll(tracked);
+    issueTracker.updateCache(file, allTracked);
+  }
+
+  private void trackIssuesAndUpdateMarkers(Map<ISonarLintFile, IDocument> docPerFile, Map.Entry<ISonarLintIssuable, List<Issue>> entry, TriggerType triggerType, int totalTrackedFiles) {
+    ISonarLintFile file = (ISonarLintFile) entry.getKey();
+    Optional<IDocument> openedDocument = Optional.ofNullable(docPerFile.get(file));
+    IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject());
+    List<Issue> rawIssues = entry.getValue();
+    List<Trackable> trackables;
+    if (!rawIssues.isEmpty()) {
+      DocumentLineIndex lineIndex = DocumentLineIndex.of(openedDocument.orElseGet(file::getDocument));
+      trackables = rawIssues.stream().map(issue -> transform(issue, file, lineIndex)).collect(Collectors.toList());
+    } else {
+      trackables = Collections.emptyList();
+    }
+    Collection<Trackable> tracked = trackFileIssues(file, trackables, issueTracker, triggerType, totalTrackedFiles);
+    SonarLintMarkerUpdater.createOrUpdateMarkers(file, openedDocument, tracked, triggerType);
+    if (tracked.isEmpty()) {
+      // Only documents of files with issues may be needed later, to add markers of late issues or server side data
+      DocumentCache.release(file);
+    }
+    // Now that markerId are set, store issues in cache
+    issueTracker.updateCache(file, tracked);
+  }
+
   protected Collection<Trackable> trackFileIssues(ISonarLintFile file, List<Trackable> trackables, IssueTracker issueTracker, TriggerType triggerType, int totalTrackedFiles) {
     return issueTracker.matchAndTrackAsNew(file, trackables);
   }
 
-  private static RawIssueTrackable transform(Issue issue, ISonarLintFile resource, IDocument document) {
+  /**
+   * Same as {@link #trackFileIssues(ISonarLintFile, List, IssueTracker, TriggerType, int)}, for issues reported on a file after its other issues
+   * were tracked
+   */
+  protected Collection<Trackable> trackLateFileIssues(ISonarLintFile file, List<Trackable> trackables, @Nullable Collection<Trackable> previousTrackables,
+    IssueTracker issueTracker, TriggerType triggerType, int totalTrackedFiles) {
+    return issueTracker.matchAndTrackLateIssues(file, trackables, previousTrackables);
+  }
+
+  private static RawIssueTrackable transform(Issue issue, ISonarLintFile resource, DocumentLineIndex lineIndex) {
     Integer startLine = issue.getStartLine();
     if (startLine == null) {
       return new RawIssueTrackable(issue);
     }
     TextRange textRange = TextRange.get(startLine, issue.getStartLineOffset(), issue.getEndLine(), issue.getEndLineOffset());
-    String textRangeContent = readTextRangeContent(resource, document, textRange);
-    String lineContent = readLineContent(resource, document, startLine);
-    return new RawIssueTrackable(issue, textRange, textRangeContent, lineContent);
-  }
-
-  @Nullable
-  private static String readTextRangeContent(ISonarLintFile resource, IDocument document, TextRange textRange) {
-    Position position = MarkerUtils.getPosition(document, textRange);
-    if (position != null) {
-      try {
-        return document.get(position.getOffset(), position.getLength());
-      } catch (BadLocationException e) {
-        SonarLintLogger.get().error("failed to get text range content of resource " + resource.getName(), e);
-      }
-    }
-    return null;
-  }
-
-  @Nullable
-  private static String readLineContent(ISonarLintFile resource, IDocument document, int startLine) {
-    Position position = MarkerUtils.getPosition(document, startLine);
-    if (position != null) {
-      try {
-        return document.get(position.getOffset(), position.getLength());
-      } catch (BadLocationException e) {
-        SonarLintLogger.get().error("Failed to get line content of file " + resource.getName(), e);
-      }
+    if (lineIndex.getLineOffset(startLine) < 0) {
+      SonarLintLogger.get().error("Failed to get line content of file " + resource.getName() + ", line " + startLine + " doesn't exist");
     }
-    return null;
+    return new RawIssueTrackable(issue, textRange, lineIndex);
   }
 
   private static void analysisCompleted(Collection<ProjectConfigurator> usedDeprecatedConfigurators, Collection<IAnalysisConfigurator> usedConfigurators,
@@ -384,8 +629,11 @@ public abstract class AbstractAnalyzeProjectJob<CONFIG extends AbstractAnalysisC
   }
 
   public AnalysisResults run(final CONFIG analysisConfig, final Map<ISonarLintIssuable, List<Issue>> issuesPerResource, IProgressMonitor monitor) {
+    return run(analysisConfig, new SonarLintIssueListener(getProject(), issuesPerResource), monitor);
+  }
+
+  private AnalysisResults run(final CONFIG analysisConfig, SonarLintIssueListener issueListener, IProgressMonitor monitor) {
     SonarLintLogger.get().debug("Starting analysis with configuration:\n" + analysisConfig.toString());
-    SonarLintIssueListener issueListener = new SonarLintIssueListener(getProject(), issuesPerResource);
     AnalysisResults result = runAnalysis(analysisConfig, issueListener, monitor);
     SonarLintLogger.get().info("Found " + issueListener.getIssueCount() + " issue(s)");
     return result;
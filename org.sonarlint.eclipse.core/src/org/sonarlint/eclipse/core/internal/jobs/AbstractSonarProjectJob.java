@@ -29,6 +29,8 @@ import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 
 public abstract class AbstractSonarProjectJob extends Job {
 
+  public static final String PROJECT_JOB_FAMILY = "org.sonarlint.eclipse.projectJob";
+
   private final ISonarLintProject project;
   private final SonarLintProjectConfiguration config;
 
@@ -60,7 +62,7 @@ public abstract class AbstractSonarProjectJob extends Job {
   
   @Override
   public final boolean belongsTo(Object family) {
-    return "org.sonarlint.eclipse.projectJob".equals(family);
+    return PROJECT_JOB_FAMILY.equals(family);
   }
 
 }
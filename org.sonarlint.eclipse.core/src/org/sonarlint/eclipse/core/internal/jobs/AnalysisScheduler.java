@@ -0,0 +1,267 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.internal.TriggerType;
+import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+/**
+ * Central entry point for automatic analyses. Instead of scheduling one analysis job per event, requests are queued per project:
+ * <ul>
+ * <li>requests received during the debounce delay are merged, the newest document and {@link TriggerType} win</li>
+ * <li>at most one analysis job is running per project. If a newer request contains some files of the running analysis,
+ * the running analysis is canceled and its files are analyzed again with the next batch</li>
+ * </ul>
+ * The queue of a project is dropped once its last analysis is done and nothing else is pending.
+ */
+public class AnalysisScheduler {
+
+  public static final long DEFAULT_DEBOUNCE_DELAY_MS = 300;
+
+  private final long debounceDelayMs;
+  private final Function<AnalyzeProjectRequest, Job> jobFactory;
+  private final Map<ISonarLintProject, ProjectQueue> queues = new HashMap<>();
+  private final AtomicLong receivedRequestCount = new AtomicLong();
+  private final AtomicLong mergedFileCount = new AtomicLong();
+  private final AtomicLong scheduledJobCount = new AtomicLong();
+  private final AtomicLong supersededJobCount = new AtomicLong();
+
+  public AnalysisScheduler() {
+    this(DEFAULT_DEBOUNCE_DELAY_MS, AbstractAnalyzeProjectJob::create);
+  }
+
+  public AnalysisScheduler(long debounceDelayMs, Function<AnalyzeProjectRequest, Job> jobFactory) {
+    this.debounceDelayMs = debounceDelayMs;
+    this.jobFactory = jobFactory;
+  }
+
+  public void schedule(AnalyzeProjectRequest request) {
+    if (request.getFiles().isEmpty()) {
+      return;
+    }
+    receivedRequestCount.incrementAndGet();
+    // Enqueue while holding the lock, so that the queue can't be dropped in between
+    synchronized (queues) {
+      queues.computeIfAbsent(request.getProject(), ProjectQueue::new).enqueue(request);
+    }
+  }
+
+  private void removeIfIdle(ProjectQueue queue) {
+    synchronized (queues) {
+      if (queue.isIdle()) {
+        queues.remove(queue.project, queue);
+      }
+    }
+  }
+
+  /**
+   * Cancel pending and running analyses of all projects.
+   */
+  public void shutdown() {
+    List<ProjectQueue> toCancel;
+    synchronized (queues) {
+      toCancel = new ArrayList<>(queues.values());
+      queues.clear();
+    }
+    toCancel.forEach(ProjectQueue::cancel);
+  }
+
+  /**
+   * @return number of files waiting to be analyzed, all projects included
+   */
+  public int getQueueDepth() {
+    synchronized (queues) {
+      return queues.values().stream().mapToInt(ProjectQueue::pendingFileCount).sum();
+    }
+  }
+
+  /**
+   * @return number of projects having pending or running analyses
+   */
+  public int getQueuedProjectCount() {
+    synchronized (queues) {
+      return queues.size();
+    }
+  }
+
+  public long getReceivedRequestCount() {
+    return receivedRequestCount.get();
+  }
+
+  /**
+   * @return number of times a file was requested while it was already waiting to be analyzed
+   */
+  public long getMergedFileCount() {
+    return mergedFileCount.get();
+  }
+
+  public long getScheduledJobCount() {
+    return scheduledJobCount.get();
+  }
+
+  public long getSupersededJobCount() {
+    return supersededJobCount.get();
+  }
+
+  private class ProjectQueue {
+
+    private final ISonarLintProject project;
+    private final Map<ISonarLintFile, FileWithDocument> pendingFiles = new LinkedHashMap<>();
+    @Nullable
+    private TriggerType pendingTriggerType;
+    private boolean pendingShouldClearReport;
+    @Nullable
+    private Job runningJob;
+    @Nullable
+    private AnalyzeProjectRequest runningRequest;
+    private boolean runningJobCanceled;
+    private final Job flushJob;
+
+    ProjectQueue(ISonarLintProject project) {
+      this.project = project;
+      this.flushJob = new FlushJob(this);
+    }
+
+    synchronized void enqueue(AnalyzeProjectRequest request) {
+      for (FileWithDocument fileWithDoc : request.getFiles()) {
+        if (pendingFiles.put(fileWithDoc.getFile(), fileWithDoc) != null) {
+          mergedFileCount.incrementAndGet();
+        }
+      }
+      pendingTriggerType = request.getTriggerType();
+      pendingShouldClearReport |= request.shouldClearReport();
+      cancelRunningJobIfSuperseded();
+      // Restart the debounce delay
+      flushJob.cancel();
+      flushJob.schedule(debounceDelayMs);
+    }
+
+    private void cancelRunningJobIfSuperseded() {
+      Job job = runningJob;
+      AnalyzeProjectRequest request = runningRequest;
+      if (job == null || request == null || runningJobCanceled
+        || request.getFiles().stream().noneMatch(f -> pendingFiles.containsKey(f.getFile()))) {
+        return;
+      }
+      // Files of the canceled analysis that were not requested again still have to be analyzed
+      request.getFiles().forEach(f -> pendingFiles.putIfAbsent(f.getFile(), f));
+      pendingShouldClearReport |= request.shouldClearReport();
+      runningJobCanceled = true;
+      supersededJobCount.incrementAndGet();
+      job.cancel();
+    }
+
+    synchronized void flush() {
+      TriggerType triggerType = pendingTriggerType;
+      if (runningJob != null || pendingFiles.isEmpty() || triggerType == null) {
+        // Will be flushed when the running job is done
+        return;
+      }
+      AnalyzeProjectRequest request = new AnalyzeProjectRequest(project, new ArrayList<>(pendingFiles.values()), triggerType, pendingShouldClearReport);
+      pendingFiles.clear();
+      pendingTriggerType = null;
+      pendingShouldClearReport = false;
+
+      Job job = jobFactory.apply(request);
+      job.addJobChangeListener(new JobChangeAdapter() {
+        @Override
+        public void done(IJobChangeEvent event) {
+          onJobDone(job);
+          removeIfIdle(ProjectQueue.this);
+        }
+      });
+      runningJob = job;
+      runningRequest = request;
+      runningJobCanceled = false;
+      scheduledJobCount.incrementAndGet();
+      job.schedule();
+    }
+
+    private synchronized void onJobDone(Job job) {
+      if (runningJob != job) {
+        return;
+      }
+      runningJob = null;
+      runningRequest = null;
+      runningJobCanceled = false;
+      if (!pendingFiles.isEmpty()) {
+        flushJob.schedule();
+      }
+    }
+
+    synchronized boolean isIdle() {
+      return runningJob == null && pendingFiles.isEmpty();
+    }
+
+    synchronized int pendingFileCount() {
+      return pendingFiles.size();
+    }
+
+    synchronized void cancel() {
+      flushJob.cancel();
+      pendingFiles.clear();
+      pendingTriggerType = null;
+      Job job = runningJob;
+      if (job != null) {
+        job.cancel();
+      }
+    }
+  }
+
+  private static class FlushJob extends Job {
+
+    private final ProjectQueue queue;
+
+    FlushJob(ProjectQueue queue) {
+      super("Schedule SonarLint analysis");
+      this.queue = queue;
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      queue.flush();
+      return Status.OK_STATUS;
+    }
+
+    @Override
+    public boolean belongsTo(Object family) {
+      return AbstractSonarProjectJob.PROJECT_JOB_FAMILY.equals(family);
+    }
+  }
+
+}
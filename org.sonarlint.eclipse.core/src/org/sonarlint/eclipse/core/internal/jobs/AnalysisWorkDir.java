@@ -0,0 +1,147 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+
+/**
+ * Work directory of one analysis at a time, see {@link AnalysisWorkDirPool}.
+ */
+public class AnalysisWorkDir {
+
+  private final AnalysisWorkDirPool pool;
+  private final Path path;
+  /**
+   * Modification stamp of files copied in this directory, by relative path
+   */
+  private final Map<String, Long> copyStamps = new HashMap<>();
+  private final Set<String> usedCopies = new HashSet<>();
+
+  AnalysisWorkDir(AnalysisWorkDirPool pool, Path path) {
+    this.pool = pool;
+    this.path = path;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * @param modificationStamp see {@link IResource#getModificationStamp()}
+   * @return a copy of the file in this directory, only copied again if it was modified since the previous copy
+   */
+  public synchronized Path copyOf(String relativePath, long modificationStamp, IFileStore source) throws CoreException, IOException {
+    Path target = path.resolve(relativePath);
+    Long previousStamp = copyStamps.get(relativePath);
+    if (modificationStamp == IResource.NULL_STAMP || previousStamp == null || previousStamp != modificationStamp || !Files.exists(target)) {
+      Files.createDirectories(target.getParent());
+      source.copy(EFS.getLocalFileSystem().fromLocalFile(target.toFile()), EFS.OVERWRITE, null);
+      copyStamps.put(relativePath, modificationStamp);
+    }
+    if (modificationStamp != IResource.NULL_STAMP) {
+      usedCopies.add(relativePath);
+    }
+    return target;
+  }
+
+  /**
+   * Give this directory back to the pool, once the analysis is done.
+   */
+  public void release() {
+    pool.release(this);
+  }
+
+  /**
+   * Delete everything except copies used by the last analysis, if their total size is below the limit.
+   * @return false if the directory could not be cleaned
+   */
+  synchronized boolean clean(long maxRetainedBytes) {
+    Set<Path> retained = new HashSet<>();
+    long retainedBytes = 0;
+    for (String relativePath : usedCopies) {
+      Path copy = path.resolve(relativePath);
+      retained.add(copy);
+      retainedBytes += copy.toFile().length();
+    }
+    if (retainedBytes > maxRetainedBytes) {
+      retained = Collections.emptySet();
+    }
+    try {
+      deleteAllExcept(retained);
+    } catch (IOException e) {
+      SonarLintLogger.get().debug("Unable to clean analysis work directory: " + path, e);
+      return false;
+    }
+    if (retained.isEmpty()) {
+      copyStamps.clear();
+    } else {
+      copyStamps.keySet().retainAll(usedCopies);
+    }
+    usedCopies.clear();
+    return true;
+  }
+
+  private void deleteAllExcept(Set<Path> retained) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (!retained.contains(file)) {
+          Files.delete(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        if (exc != null) {
+          throw exc;
+        }
+        if (!dir.equals(path)) {
+          try (Stream<Path> children = Files.list(dir)) {
+            if (!children.findAny().isPresent()) {
+              Files.delete(dir);
+            }
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Analysis work directories of a project, reused by successive analyses instead of creating and deleting a temporary directory each time.
+ * A released directory is cleaned, except for the copies of remote files it used, that will be reused if they were not modified.
+ * At most {@link #DEFAULT_MAX_IDLE_DIRS} idle directories are kept, and directories retaining more than
+ * {@link #DEFAULT_MAX_RETAINED_BYTES} of copies are fully cleaned.
+ */
+public class AnalysisWorkDirPool {
+
+  public static final int DEFAULT_MAX_IDLE_DIRS = 2;
+  public static final long DEFAULT_MAX_RETAINED_BYTES = 64L * 1024 * 1024;
+  private static final String POOL_DIRNAME = "analysis";
+  private static final Map<Path, AnalysisWorkDirPool> POOLS = new ConcurrentHashMap<>();
+
+  private final Path poolDir;
+  private final int maxIdleDirs;
+  private final long maxRetainedBytes;
+  // Most recently released first, since it is the most likely to contain copies of the files to analyze
+  private final Deque<AnalysisWorkDir> idleDirs = new ArrayDeque<>();
+  private int createdDirs;
+
+  public AnalysisWorkDirPool(Path poolDir, int maxIdleDirs, long maxRetainedBytes) {
+    this.poolDir = poolDir;
+    this.maxIdleDirs = maxIdleDirs;
+    this.maxRetainedBytes = maxRetainedBytes;
+    // Directories left by a previous session are not tracked, so start from scratch
+    delete(poolDir);
+  }
+
+  public static AnalysisWorkDirPool get(ISonarLintProject project) {
+    return POOLS.computeIfAbsent(project.getWorkingDir().resolve(POOL_DIRNAME), dir -> new AnalysisWorkDirPool(dir, DEFAULT_MAX_IDLE_DIRS, DEFAULT_MAX_RETAINED_BYTES));
+  }
+
+  public AnalysisWorkDir acquire() throws IOException {
+    AnalysisWorkDir dir;
+    synchronized (this) {
+      dir = idleDirs.pollFirst();
+      if (dir == null) {
+        dir = new AnalysisWorkDir(this, poolDir.resolve(Integer.toString(createdDirs++)));
+      }
+    }
+    Files.createDirectories(dir.getPath());
+    return dir;
+  }
+
+  void release(AnalysisWorkDir dir) {
+    boolean cleaned = dir.clean(maxRetainedBytes);
+    synchronized (this) {
+      if (cleaned && idleDirs.size() < maxIdleDirs) {
+        idleDirs.addFirst(dir);
+        return;
+      }
+    }
+    delete(dir.getPath());
+  }
+
+  synchronized int idleDirCount() {
+    return idleDirs.size();
+  }
+
+  private static void delete(Path dir) {
+    try {
+      FileUtils.deleteRecursively(dir);
+    } catch (Exception e) {
+      SonarLintLogger.get().debug("Unable to delete analysis work directory: " + dir, e);
+    }
+  }
+
+}
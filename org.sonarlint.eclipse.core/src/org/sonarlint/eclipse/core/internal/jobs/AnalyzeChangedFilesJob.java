@@ -51,6 +51,7 @@ public class AnalyzeChangedFilesJob extends WorkspaceJob {
   @Override
   public IStatus runInWorkspace(IProgressMonitor monitor) {
     SubMonitor global = SubMonitor.convert(monitor, 100);
+    IStatus status;
     try {
       global.setTaskName("Collect changed file(s) list");
       SonarLintMarkerUpdater.deleteAllMarkersFromReport();
@@ -68,32 +69,16 @@ public class AnalyzeChangedFilesJob extends WorkspaceJob {
       SonarLintLogger.get().info("Analyzing " + fileCount + " changed file(s) in " + changedFilesPerProject.size() + " project(s)");
 
       global.setTaskName("Analysis");
-      SubMonitor analysisMonitor = SubMonitor.convert(global.newChild(80), changedFilesPerProject.size());
-      for (Map.Entry<ISonarLintProject, List<ISonarLintFile>> entry : changedFilesPerProject.entrySet()) {
-        if (monitor.isCanceled()) {
-          return Status.CANCEL_STATUS;
-        }
-        ISonarLintProject project = entry.getKey();
-        if (!project.isOpen()) {
-          analysisMonitor.worked(1);
-          continue;
-        }
-        global.setTaskName("Analyzing project " + project.getName());
-        Collection<FileWithDocument> filesToAnalyze = entry.getValue().stream()
+      Map<ISonarLintProject, List<FileWithDocument>> filesToAnalyzePerProject = changedFilesPerProject.entrySet().stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().stream()
           .map(f -> new FileWithDocument(f, null))
-          .collect(Collectors.toList());
-        AnalyzeProjectRequest req = new AnalyzeProjectRequest(project, filesToAnalyze, TriggerType.MANUAL_CHANGESET);
-        AbstractSonarProjectJob job = AbstractAnalyzeProjectJob.create(req);
-        SubMonitor subMonitor = analysisMonitor.newChild(1);
-        job.run(subMonitor);
-        subMonitor.done();
-      }
-
+          .collect(Collectors.toList())));
+      status = new MultiProjectAnalysis(filesToAnalyzePerProject, TriggerType.MANUAL_CHANGESET).run(global.newChild(80));
     } catch (Exception e) {
       SonarLintLogger.get().error(UNABLE_TO_ANALYZE_CHANGED_FILES, e);
       return new Status(Status.ERROR, SonarLintCorePlugin.PLUGIN_ID, UNABLE_TO_ANALYZE_CHANGED_FILES, e);
     }
-    return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+    return monitor.isCanceled() ? Status.CANCEL_STATUS : status;
   }
 
   private static Collection<ISonarLintFile> collectChangedFiles(Collection<ISonarLintProject> projects, IProgressMonitor monitor) {
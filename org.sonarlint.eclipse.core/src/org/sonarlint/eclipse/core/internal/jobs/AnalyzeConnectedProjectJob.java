@@ -21,19 +21,21 @@ package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jface.text.IDocument;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.engine.connected.ConnectedEngineFacade;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration.EclipseProjectBinding;
+import org.sonarlint.eclipse.core.internal.resources.DocumentCache;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTracker;
 import org.sonarlint.eclipse.core.internal.tracking.ServerIssueTrackable;
-import org.sonarlint.eclipse.core.internal.tracking.ServerIssueUpdater;
 import org.sonarlint.eclipse.core.internal.tracking.Trackable;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintIssuable;
@@ -54,6 +56,13 @@ public class AnalyzeConnectedProjectJob extends AbstractAnalyzeProjectJob<Connec
     this.engineFacade = engineFacade;
   }
 
+  AnalyzeConnectedProjectJob(AnalyzeProjectRequest request, EclipseProjectBinding binding, ConnectedEngineFacade engineFacade,
+    SharedAnalysisPreparation sharedPreparation) {
+    super(request, sharedPreparation);
+    this.binding = binding;
+    this.engineFacade = engineFacade;
+  }
+
   @Override
   protected ConnectedAnalysisConfiguration prepareAnalysisConfig(Path projectBaseDir, List<ClientInputFile> inputFiles, Map<String, String> mergedExtraProps) {
     SonarLintLogger.get().debug("Connected mode (using configuration of '" + binding.projectKey() + "' in connection '" + binding.connectionId() + "')");
@@ -71,18 +80,29 @@ public class AnalyzeConnectedProjectJob extends AbstractAnalyzeProjectJob<Connec
   }
 
   @Override
-  protected void trackIssues(Map<ISonarLintFile, IDocument> docPerFile, Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource, TriggerType triggerType,
-    IProgressMonitor monitor) {
-    if (triggerType.shouldUpdateProjectIssuesSync(rawIssuesPerResource.size())) {
+  protected void beforeTrackingIssues(TriggerType triggerType, int totalTrackedFiles) {
+    if (triggerType.shouldUpdateProjectIssuesSync(totalTrackedFiles) && getSharedPreparation().shouldDownloadServerIssues(binding.projectKey())) {
       SonarLintLogger.get().debug("Download engineFacade issues for project " + getProject().getName());
-      engineFacade.downloadServerIssues(binding.projectKey());
+      SonarLintCorePlugin.getInstance().getServerIssueUpdater().downloadProjectIssues(engineFacade, getProject(), binding);
     }
-    super.trackIssues(docPerFile, rawIssuesPerResource, triggerType, monitor);
-    if (triggerType.shouldUpdateFileIssuesAsync()) {
-      List<ISonarLintIssuable> filesWithAtLeastOneIssue = filesWithAtLeastOneIssue(rawIssuesPerResource);
-      if (!filesWithAtLeastOneIssue.isEmpty()) {
-        trackServerIssuesAsync(engineFacade, filesWithAtLeastOneIssue, docPerFile, triggerType);
+  }
+
+  @Override
+  protected void afterTrackingIssues(Map<ISonarLintFile, IDocument> docPerFile, List<ISonarLintIssuable> filesWithAtLeastOneIssue, TriggerType triggerType) {
+    if (triggerType.shouldUpdateFileIssuesAsync() && !filesWithAtLeastOneIssue.isEmpty()) {
+      // Documents loaded during the analysis are released when it ends, so hand them over to the asynchronous update
+      Map<ISonarLintFile, IDocument> docPerFileWithCached = new HashMap<>(docPerFile);
+      for (ISonarLintIssuable issuable : filesWithAtLeastOneIssue) {
+        if (issuable instanceof ISonarLintFile && docPerFileWithCached.get(issuable) == null) {
+          IDocument cached = DocumentCache.get((ISonarLintFile) issuable);
+          if (cached != null) {
+            docPerFileWithCached.put((ISonarLintFile) issuable, cached);
+            // The asynchronous update holds the document from now on
+            DocumentCache.release((ISonarLintFile) issuable);
+          }
+        }
       }
+      trackServerIssuesAsync(engineFacade, filesWithAtLeastOneIssue, docPerFileWithCached, triggerType);
     }
   }
 
@@ -96,11 +116,15 @@ public class AnalyzeConnectedProjectJob extends AbstractAnalyzeProjectJob<Connec
 
   }
 
-  private static List<ISonarLintIssuable> filesWithAtLeastOneIssue(Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource) {
-    return rawIssuesPerResource.entrySet().stream()
-      .filter(e -> !e.getValue().isEmpty())
-      .map(Map.Entry::getKey)
-      .collect(Collectors.toList());
+  @Override
+  protected Collection<Trackable> trackLateFileIssues(ISonarLintFile file, List<Trackable> trackables, @Nullable Collection<Trackable> previousTrackables,
+    IssueTracker issueTracker, TriggerType triggerType, int totalTrackedFiles) {
+    Collection<Trackable> tracked = super.trackLateFileIssues(file, trackables, previousTrackables, issueTracker, triggerType, totalTrackedFiles);
+    if (!tracked.isEmpty()) {
+      // Server issues were already fetched if needed when the other issues of the file were tracked
+      tracked = trackServerIssuesSync(engineFacade, file, tracked, false);
+    }
+    return tracked;
   }
 
   private void trackServerIssuesAsync(ConnectedEngineFacade engineFacade, Collection<ISonarLintIssuable> resources, Map<ISonarLintFile, IDocument> docPerFile,
@@ -114,7 +138,7 @@ public class AnalyzeConnectedProjectJob extends AbstractAnalyzeProjectJob<Connec
   private Collection<Trackable> trackServerIssuesSync(ConnectedEngineFacade engineFacade, ISonarLintFile file, Collection<Trackable> tracked, boolean updateServerIssues) {
     List<ServerIssue> serverIssues;
     if (updateServerIssues) {
-      serverIssues = ServerIssueUpdater.fetchServerIssues(engineFacade, binding, file);
+      serverIssues = SonarLintCorePlugin.getInstance().getServerIssueUpdater().fetchServerIssues(engineFacade, binding, file);
     } else {
       serverIssues = engineFacade.getServerIssues(binding, file.getProjectRelativePath());
     }
@@ -46,32 +46,16 @@ public class AnalyzeProjectsJob extends WorkspaceJob {
   @Override
   public IStatus runInWorkspace(IProgressMonitor monitor) {
     SubMonitor global = SubMonitor.convert(monitor, 100);
+    IStatus status;
     try {
       global.setTaskName("Analysis");
       SonarLintMarkerUpdater.deleteAllMarkersFromReport();
-      SubMonitor analysisMonitor = SubMonitor.convert(global.newChild(100), filesPerProject.size());
-      for (Map.Entry<ISonarLintProject, Collection<FileWithDocument>> entry : filesPerProject.entrySet()) {
-        if (monitor.isCanceled()) {
-          return Status.CANCEL_STATUS;
-        }
-        ISonarLintProject project = entry.getKey();
-        if (!project.isOpen()) {
-          analysisMonitor.worked(1);
-          continue;
-        }
-        global.setTaskName("Analyzing project " + project.getName());
-        AnalyzeProjectRequest req = new AnalyzeProjectRequest(project, entry.getValue(), TriggerType.MANUAL);
-        AbstractSonarProjectJob job = AbstractAnalyzeProjectJob.create(req);
-        SubMonitor subMonitor = analysisMonitor.newChild(1);
-        job.run(subMonitor);
-        subMonitor.done();
-      }
-
+      status = new MultiProjectAnalysis(filesPerProject, TriggerType.MANUAL).run(global.newChild(100));
     } catch (Exception e) {
       SonarLintLogger.get().error(UNABLE_TO_ANALYZE_FILES, e);
       return new Status(Status.ERROR, SonarLintCorePlugin.PLUGIN_ID, UNABLE_TO_ANALYZE_FILES, e);
     }
-    return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+    return monitor.isCanceled() ? Status.CANCEL_STATUS : status;
   }
 
 }
@@ -29,7 +29,6 @@ import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.engine.StandaloneEngineFacade;
 import org.sonarlint.eclipse.core.internal.preferences.RuleConfig;
-import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.common.RuleKey;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
@@ -43,10 +42,14 @@ public class AnalyzeStandaloneProjectJob extends AbstractAnalyzeProjectJob<Stand
     super(request);
   }
 
+  AnalyzeStandaloneProjectJob(AnalyzeProjectRequest request, SharedAnalysisPreparation sharedPreparation) {
+    super(request, sharedPreparation);
+  }
+
   @Override
   protected StandaloneAnalysisConfiguration prepareAnalysisConfig(Path projectBaseDir, List<ClientInputFile> inputFiles, Map<String, String> mergedExtraProps) {
     SonarLintLogger.get().debug("Standalone mode (project not bound)");
-    Collection<RuleConfig> rulesConfig = SonarLintGlobalConfiguration.readRulesConfig();
+    Collection<RuleConfig> rulesConfig = getSharedPreparation().getStandaloneRulesConfig();
     return StandaloneAnalysisConfiguration.builder()
       .setBaseDir(projectBaseDir)
       .addInputFiles(inputFiles)
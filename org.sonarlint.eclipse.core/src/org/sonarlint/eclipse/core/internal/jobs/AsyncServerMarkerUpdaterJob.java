@@ -21,14 +21,15 @@ package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.util.Collection;
 import java.util.Map;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.jface.text.IDocument;
 import org.sonarlint.eclipse.core.internal.TriggerType;
+import org.sonarlint.eclipse.core.internal.resources.DocumentCache;
 import org.sonarlint.eclipse.core.internal.tracking.Trackable;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintIssuable;
@@ -49,7 +50,7 @@ public class AsyncServerMarkerUpdaterJob extends AbstractSonarProjectJob {
 
   @Override
   protected IStatus doRun(IProgressMonitor monitor) throws CoreException {
-    ResourcesPlugin.getWorkspace().run(this::updateMarkers, monitor);
+    ResourcesPlugin.getWorkspace().run(this::updateMarkers, SonarLintMarkerUpdater.markerRule(issuesPerResource.keySet()), IWorkspace.AVOID_UPDATE, monitor);
     return Status.OK_STATUS;
   }
 
@@ -57,20 +58,18 @@ public class AsyncServerMarkerUpdaterJob extends AbstractSonarProjectJob {
     for (Map.Entry<ISonarLintIssuable, Collection<Trackable>> entry : issuesPerResource.entrySet()) {
       ISonarLintIssuable issuable = entry.getKey();
       if (issuable instanceof ISonarLintFile) {
-        IDocument documentOrNull = docPerFile.get(issuable);
+        // The file may have been opened in an editor since the analysis, then the content of the editor is the reference
+        IDocument documentOrNull = DocumentCache.connectedDocument((ISonarLintFile) issuable);
+        if (documentOrNull == null) {
+          documentOrNull = docPerFile.get(issuable);
+        }
         final IDocument documentNotNull;
         if (documentOrNull == null) {
           documentNotNull = ((ISonarLintFile) issuable).getDocument();
         } else {
           documentNotNull = documentOrNull;
         }
-        ISchedulingRule markerRule = ResourcesPlugin.getWorkspace().getRuleFactory().markerRule(issuable.getResource());
-        try {
-          getJobManager().beginRule(markerRule, monitor);
-          SonarLintMarkerUpdater.updateMarkersWithServerSideData(issuable, documentNotNull, entry.getValue(), triggerType);
-        } finally {
-          getJobManager().endRule(markerRule);
-        }
+        SonarLintMarkerUpdater.updateMarkersWithServerSideData(issuable, documentNotNull, entry.getValue(), triggerType);
       }
     }
   }
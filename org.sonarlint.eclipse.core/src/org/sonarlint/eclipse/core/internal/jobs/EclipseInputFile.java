@@ -24,14 +24,20 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
+import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintFileAdapter;
+import org.sonarlint.eclipse.core.internal.resources.DocumentCache;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
@@ -41,19 +47,29 @@ import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile
  *   - either a IDocument is provided, which mean the file is open in an editor
  *   - if document is <code>null</code> then file is not open but that doesn't mean we can read from FS, since the file might be stored on a remote FS
  *
+ * When the document is <code>null</code> and the file has no unsaved changes, content is read from the local copy of the file
+ * using the file charset, without loading an {@link IDocument}.
  */
-class EclipseInputFile implements ClientInputFile {
+public class EclipseInputFile implements ClientInputFile {
+  /**
+   * Memory mapping prevents files to be deleted or renamed on Windows until buffers are garbage collected, so it is opt-in.
+   */
+  private static final boolean MEMORY_MAPPED = Boolean.getBoolean("sonarlint.internal.inputFile.mmap");
+  private static final long MEMORY_MAPPED_MIN_SIZE = 1024L * 1024L;
+  private static final char BOM = '\uFEFF';
+
   private final boolean isTestFile;
   private final ISonarLintFile file;
   private final Language language;
   private final IDocument editorDocument;
-  private final Path tempDirectory;
+  private final AnalysisWorkDir workDir;
   private Path filePath;
+  private Boolean diskBacked;
 
-  EclipseInputFile(boolean isTestFile, ISonarLintFile file, Path tempDirectory, @Nullable IDocument editorDocument, @Nullable Language language) {
+  public EclipseInputFile(boolean isTestFile, ISonarLintFile file, AnalysisWorkDir workDir, @Nullable IDocument editorDocument, @Nullable Language language) {
     this.isTestFile = isTestFile;
     this.file = file;
-    this.tempDirectory = tempDirectory;
+    this.workDir = workDir;
     this.language = language;
     this.editorDocument = editorDocument;
   }
@@ -61,21 +77,19 @@ class EclipseInputFile implements ClientInputFile {
   @Override
   public String getPath() {
     if (filePath == null) {
-      initFromFS(file, tempDirectory);
+      initFromFS(file, workDir);
     }
     return filePath.toString();
   }
 
-  private synchronized void initFromFS(ISonarLintFile file, Path temporaryDirectory) {
+  private synchronized void initFromFS(ISonarLintFile file, AnalysisWorkDir workDir) {
     IFileStore fileStore;
     try {
       fileStore = EFS.getStore(file.getResource().getLocationURI());
       File localFile = fileStore.toLocalFile(EFS.NONE, null);
       if (localFile == null) {
         // For analyzers to properly work we should ensure the temporary file has a "correct" name, and not a generated one
-        localFile = new File(temporaryDirectory.toFile(), file.getProjectRelativePath());
-        Files.createDirectories(localFile.getParentFile().toPath());
-        fileStore.copy(EFS.getStore(localFile.toURI()), EFS.OVERWRITE, null);
+        localFile = workDir.copyOf(file.getProjectRelativePath(), file.getResource().getModificationStamp(), fileStore).toFile();
       }
       filePath = localFile.toPath().toAbsolutePath();
     } catch (Exception e) {
@@ -100,7 +114,16 @@ class EclipseInputFile implements ClientInputFile {
 
   @Override
   public Charset getCharset() {
-    return StandardCharsets.UTF_8;
+    // Content of documents is encoded in UTF-8 by inputStream()
+    return isDiskBacked() ? file.getCharset() : StandardCharsets.UTF_8;
+  }
+
+  private boolean isDiskBacked() {
+    if (diskBacked == null) {
+      // Other implementations of ISonarLintFile may provide a document that is not the content of the file
+      diskBacked = editorDocument == null && file instanceof DefaultSonarLintFileAdapter && !((DefaultSonarLintFileAdapter) file).isDirty();
+    }
+    return diskBacked;
   }
 
   @Override
@@ -119,11 +142,33 @@ class EclipseInputFile implements ClientInputFile {
     if (editorDocument != null) {
       return editorDocument.get();
     }
+    if (isDiskBacked()) {
+      IDocument cached = DocumentCache.get(file);
+      return cached != null ? cached.get() : readFromDisk();
+    }
     return file.getDocument().get();
   }
 
+  private String readFromDisk() throws IOException {
+    Path path = Paths.get(getPath());
+    String content;
+    if (MEMORY_MAPPED && Files.size(path) >= MEMORY_MAPPED_MIN_SIZE) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        content = getCharset().decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).toString();
+      }
+    } else {
+      content = new String(Files.readAllBytes(path), getCharset());
+    }
+    // Like in documents, the byte order mark is not part of the content
+    String result = !content.isEmpty() && content.charAt(0) == BOM ? content.substring(1) : content;
+    // Issue tracking and markers will need a document of the same content
+    DocumentCache.offer(file, () -> new Document(result));
+    return result;
+  }
+
   @Override
   public InputStream inputStream() throws IOException {
+    // Same content as contents(), so that analyzers get the same source whatever the way they read it
     return new ByteArrayInputStream(contents().getBytes(getCharset()));
   }
 
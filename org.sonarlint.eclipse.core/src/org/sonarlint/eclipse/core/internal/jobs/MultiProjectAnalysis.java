@@ -0,0 +1,181 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.TriggerType;
+import org.sonarlint.eclipse.core.internal.jobs.AbstractAnalyzeProjectJob.PreparedAnalysis;
+import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
+import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration.EclipseProjectBinding;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+/**
+ * Analyze files of several projects in a single batch:
+ * <ul>
+ * <li>projects bound to the same connection (or all unbound projects) share a {@link SharedAnalysisPreparation}</li>
+ * <li>projects are prepared (exclusions, configurators, input files) in parallel on a bounded pool</li>
+ * <li>a project is analyzed as soon as it is prepared, and its markers are updated right after its analysis, without waiting
+ * for other projects</li>
+ * </ul>
+ * Projects that failed to be prepared or analyzed don't stop the batch, their errors are reported together at the end.
+ */
+class MultiProjectAnalysis {
+
+  private static final int MAX_PREPARATION_THREADS = 4;
+  private static final String STANDALONE_ENGINE_KEY = "";
+
+  private final Map<ISonarLintProject, ? extends Collection<FileWithDocument>> filesPerProject;
+  private final TriggerType triggerType;
+
+  MultiProjectAnalysis(Map<ISonarLintProject, ? extends Collection<FileWithDocument>> filesPerProject, TriggerType triggerType) {
+    this.filesPerProject = filesPerProject;
+    this.triggerType = triggerType;
+  }
+
+  IStatus run(IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor, filesPerProject.size());
+    // Progress monitors are not thread safe, preparation threads are only interested in cancellation
+    IProgressMonitor preparationMonitor = new NullProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return monitor.isCanceled();
+      }
+    };
+    int threadCount = Math.max(1, Math.min(MAX_PREPARATION_THREADS, Math.min(filesPerProject.size(), Runtime.getRuntime().availableProcessors())));
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+      Thread thread = new Thread(r, "SonarLint analysis preparation");
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<IStatus> failures = new ArrayList<>();
+    try {
+      CompletionService<PreparedProject> completionService = new ExecutorCompletionService<>(executor);
+      int submitted = submitPreparations(completionService, preparationMonitor, progress);
+      for (int i = 0; i < submitted; i++) {
+        PreparedProject preparedProject = completionService.take().get();
+        if (monitor.isCanceled()) {
+          // Wait for all preparations to complete, to clean their work directories
+          preparedProject.discard();
+          continue;
+        }
+        if (preparedProject.failure != null) {
+          addFailure(failures, preparedProject.job, preparedProject.failure);
+          progress.worked(1);
+          continue;
+        }
+        progress.setTaskName("Analyzing project " + preparedProject.job.getProject().getName());
+        addFailure(failures, preparedProject.job, preparedProject.job.analyze(preparedProject.preparedAnalysis, progress.newChild(1)));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Status.CANCEL_STATUS;
+    } catch (ExecutionException e) {
+      // Should not happen since preparation failures are caught
+      SonarLintLogger.get().error("Unable to prepare analysis", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    if (monitor.isCanceled()) {
+      return Status.CANCEL_STATUS;
+    }
+    if (!failures.isEmpty()) {
+      return new MultiStatus(SonarLintCorePlugin.PLUGIN_ID, IStatus.WARNING, failures.toArray(new IStatus[0]), "Failed to analyze " + failures.size() + " project(s)",
+        null);
+    }
+    return Status.OK_STATUS;
+  }
+
+  private static void addFailure(List<IStatus> failures, AbstractAnalyzeProjectJob<?> job, IStatus status) {
+    if (status.isOK() || status.matches(IStatus.CANCEL)) {
+      return;
+    }
+    failures.add(new Status(status.getSeverity(), SonarLintCorePlugin.PLUGIN_ID, "Unable to analyze project '" + job.getProject().getName() + "'",
+      status.getException()));
+  }
+
+  private int submitPreparations(CompletionService<PreparedProject> completionService, IProgressMonitor preparationMonitor, SubMonitor progress) {
+    Map<String, SharedAnalysisPreparation> sharedPreparationPerEngine = new HashMap<>();
+    int submitted = 0;
+    for (Map.Entry<ISonarLintProject, ? extends Collection<FileWithDocument>> entry : filesPerProject.entrySet()) {
+      ISonarLintProject project = entry.getKey();
+      if (!project.isOpen()) {
+        progress.worked(1);
+        continue;
+      }
+      SharedAnalysisPreparation sharedPreparation = sharedPreparationPerEngine.computeIfAbsent(engineKey(project), k -> new SharedAnalysisPreparation());
+      AnalyzeProjectRequest request = new AnalyzeProjectRequest(project, entry.getValue(), triggerType);
+      AbstractAnalyzeProjectJob<?> job = AbstractAnalyzeProjectJob.create(request, sharedPreparation);
+      completionService.submit(() -> {
+        try {
+          return new PreparedProject(job, job.prepare(preparationMonitor), null);
+        } catch (Exception e) {
+          return new PreparedProject(job, null, AbstractAnalyzeProjectJob.toStatus(e));
+        }
+      });
+      submitted++;
+    }
+    return submitted;
+  }
+
+  private static String engineKey(ISonarLintProject project) {
+    return SonarLintCorePlugin.loadConfig(project).getProjectBinding()
+      .map(EclipseProjectBinding::connectionId)
+      .orElse(STANDALONE_ENGINE_KEY);
+  }
+
+  private static class PreparedProject {
+    private final AbstractAnalyzeProjectJob<?> job;
+    @Nullable
+    private final PreparedAnalysis preparedAnalysis;
+    @Nullable
+    private final IStatus failure;
+
+    PreparedProject(AbstractAnalyzeProjectJob<?> job, @Nullable PreparedAnalysis preparedAnalysis, @Nullable IStatus failure) {
+      this.job = job;
+      this.preparedAnalysis = preparedAnalysis;
+      this.failure = failure;
+    }
+
+    void discard() {
+      if (preparedAnalysis != null) {
+        preparedAnalysis.discard();
+      }
+    }
+  }
+
+}
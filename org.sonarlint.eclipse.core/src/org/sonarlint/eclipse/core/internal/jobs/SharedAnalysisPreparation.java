@@ -0,0 +1,56 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.internal.preferences.RuleConfig;
+import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
+
+/**
+ * Preparation steps that only depend on the engine, and can be shared by the analyses of several projects using the same engine
+ * when they are analyzed in the same batch.
+ */
+class SharedAnalysisPreparation {
+
+  @Nullable
+  private Collection<RuleConfig> standaloneRulesConfig;
+  private final Set<String> projectKeysWithDownloadedServerIssues = ConcurrentHashMap.newKeySet();
+
+  synchronized Collection<RuleConfig> getStandaloneRulesConfig() {
+    Collection<RuleConfig> rulesConfig = standaloneRulesConfig;
+    if (rulesConfig == null) {
+      rulesConfig = SonarLintGlobalConfiguration.readRulesConfig();
+      standaloneRulesConfig = rulesConfig;
+    }
+    return rulesConfig;
+  }
+
+  /**
+   * Several Eclipse projects (for example modules of a Maven project) can be bound to the same SonarQube project.
+   * @return true the first time it is called for a given project key, meaning server issues of this project have to be downloaded
+   */
+  boolean shouldDownloadServerIssues(String projectKey) {
+    return projectKeysWithDownloadedServerIssues.add(projectKey);
+  }
+
+}
@@ -48,6 +48,10 @@ public class SonarLintIssueListener implements IssueListener {
     } else {
       r = inputFile.getClientObject();
     }
+    addIssue(r, issue);
+  }
+
+  protected void addIssue(ISonarLintIssuable r, Issue issue) {
     if (!issuesPerResource.containsKey(r)) {
       issuesPerResource.put(r, new ArrayList<Issue>());
     }
@@ -23,7 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -33,7 +33,13 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
@@ -57,26 +63,101 @@ public class SonarLintMarkerUpdater {
   private SonarLintMarkerUpdater() {
   }
 
+  /**
+   * Reconcile markers of the file with the tracked issues: the desired markers are computed in memory, compared to existing markers by id, and
+   * changes are applied in a single workspace operation, with one {@link IMarker#setAttributes(String[], Object[])} per modified marker, so
+   * that resource change listeners are notified with one delta per file.
+   */
   public static void createOrUpdateMarkers(ISonarLintFile file, Optional<IDocument> openedDocument, Collection<Trackable> issues, TriggerType triggerType) {
     try {
-      Set<IMarker> previousMarkersToDelete;
-      if (triggerType.isOnTheFly()) {
-        file.getResource().deleteMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_FLOW_ID, false, IResource.DEPTH_ZERO);
-        previousMarkersToDelete = new HashSet<>(Arrays.asList(file.getResource().findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, false, IResource.DEPTH_ZERO)));
-      } else {
-        previousMarkersToDelete = Collections.emptySet();
-      }
-
-      createOrUpdateMarkers(file, openedDocument, issues, triggerType, previousMarkersToDelete);
+      runBatched(file, m -> reconcileMarkers(file, openedDocument, issues, triggerType));
+    } catch (CoreException e) {
+      SonarLintLogger.get().error(e.getMessage(), e);
+    }
+  }
 
-      for (IMarker marker : previousMarkersToDelete) {
-        marker.delete();
-      }
+  /**
+   * Create markers for additional issues of the file, leaving existing markers untouched
+   */
+  public static void addMarkers(ISonarLintFile file, Optional<IDocument> openedDocument, Collection<Trackable> issues, TriggerType triggerType) {
+    try {
+      runBatched(file, m -> {
+        IDocument document = openedDocument.orElseGet(file::getDocument);
+        for (Trackable issue : issues) {
+          if (!issue.isResolved()) {
+            createMarker(document, file, issue, triggerType);
+          } else {
+            issue.setMarkerId(null);
+          }
+        }
+      });
     } catch (CoreException e) {
       SonarLintLogger.get().error(e.getMessage(), e);
     }
   }
 
+  private static void reconcileMarkers(ISonarLintFile file, Optional<IDocument> openedDocument, Collection<Trackable> issues, TriggerType triggerType)
+    throws CoreException {
+    IResource resource = file.getResource();
+    Map<Long, IMarker> previousMarkersToDelete;
+    if (triggerType.isOnTheFly()) {
+      resource.deleteMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_FLOW_ID, false, IResource.DEPTH_ZERO);
+      previousMarkersToDelete = new HashMap<>();
+      for (IMarker marker : resource.findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, false, IResource.DEPTH_ZERO)) {
+        previousMarkersToDelete.put(marker.getId(), marker);
+      }
+    } else {
+      previousMarkersToDelete = Collections.emptyMap();
+    }
+
+    IDocument lazyInitDocument = openedDocument.orElse(null);
+    for (Trackable issue : issues) {
+      if (!issue.isResolved()) {
+        lazyInitDocument = lazyInitDocument != null ? lazyInitDocument : file.getDocument();
+        IMarker marker = triggerType.isOnTheFly() && issue.getMarkerId() != null ? previousMarkersToDelete.remove(issue.getMarkerId()) : null;
+        if (marker == null) {
+          createMarker(lazyInitDocument, file, issue, triggerType);
+        } else {
+          updateMarkerAttributes(lazyInitDocument, file, issue, marker, triggerType);
+        }
+      } else {
+        issue.setMarkerId(null);
+      }
+    }
+
+    if (!previousMarkersToDelete.isEmpty()) {
+      ResourcesPlugin.getWorkspace().deleteMarkers(previousMarkersToDelete.values().toArray(new IMarker[0]));
+    }
+  }
+
+  /**
+   * Run marker modifications of a resource as a single workspace operation, to notify resource change listeners only once
+   */
+  private static void runBatched(ISonarLintIssuable issuable, IWorkspaceRunnable action) throws CoreException {
+    IWorkspace workspace = ResourcesPlugin.getWorkspace();
+    workspace.run(action, workspace.getRuleFactory().markerRule(issuable.getResource()), IWorkspace.AVOID_UPDATE, null);
+  }
+
+  /**
+   * Scheduling rule required to modify markers of the given resources. Unlike the workspace root, which is used when no rule is given to
+   * {@link IWorkspace#run(IWorkspaceRunnable, org.eclipse.core.runtime.IProgressMonitor)}, it doesn't block builds or analyses of other resources.
+   */
+  @Nullable
+  public static ISchedulingRule markerRule(Collection<? extends ISonarLintIssuable> issuables) {
+    IResourceRuleFactory ruleFactory = ResourcesPlugin.getWorkspace().getRuleFactory();
+    return MultiRule.combine(issuables.stream()
+      .map(issuable -> ruleFactory.markerRule(issuable.getResource()))
+      .toArray(ISchedulingRule[]::new));
+  }
+
+  /**
+   * Scheduling rule required by {@link #deleteAllMarkersFromReport()}
+   */
+  @Nullable
+  public static ISchedulingRule reportMarkersRule() {
+    return markerRule(ProjectsProviderUtils.allProjects().stream().filter(ISonarLintProject::isOpen).collect(Collectors.toList()));
+  }
+
   public static Set<IResource> getResourcesWithMarkers(ISonarLintProject project) throws CoreException {
     return Arrays.stream(project.getResource().findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, false, IResource.DEPTH_INFINITE))
       .map(IMarker::getResource)
@@ -94,9 +175,11 @@ public class SonarLintMarkerUpdater {
 
   public static void updateMarkersWithServerSideData(ISonarLintIssuable issuable, IDocument document, Collection<Trackable> issues, TriggerType triggerType) {
     try {
-      for (Trackable issue : issues) {
-        updateMarkerWithServerSideData(issuable, document, issue, triggerType);
-      }
+      runBatched(issuable, m -> {
+        for (Trackable issue : issues) {
+          updateMarkerWithServerSideData(issuable, document, issue, triggerType);
+        }
+      });
     } catch (CoreException e) {
       SonarLintLogger.get().error(e.getMessage(), e);
     }
@@ -118,7 +201,9 @@ public class SonarLintMarkerUpdater {
       issue.setMarkerId(null);
     } else {
       if (marker != null) {
-        updateServerMarkerAttributes(issue, marker);
+        MarkerAttributes attributes = new MarkerAttributes(marker.getAttributes());
+        addServerMarkerAttributes(issue, attributes);
+        attributes.applyTo(marker);
       } else {
         // Issue was previously resolved, and is now reopen, so we need to recreate a marker
         createMarker(document, issuable, issue, triggerType);
@@ -126,25 +211,6 @@ public class SonarLintMarkerUpdater {
     }
   }
 
-  private static void createOrUpdateMarkers(ISonarLintFile file, Optional<IDocument> openedDocument, Collection<Trackable> issues,
-    TriggerType triggerType, Set<IMarker> previousMarkersToDelete) throws CoreException {
-    IDocument lazyInitDocument = openedDocument.orElse(null);
-    for (Trackable issue : issues) {
-      if (!issue.isResolved()) {
-        lazyInitDocument = lazyInitDocument != null ? lazyInitDocument : file.getDocument();
-        if (!triggerType.isOnTheFly() || issue.getMarkerId() == null || file.getResource().findMarker(issue.getMarkerId()) == null) {
-          createMarker(lazyInitDocument, file, issue, triggerType);
-        } else {
-          IMarker marker = file.getResource().findMarker(issue.getMarkerId());
-          updateMarkerAttributes(lazyInitDocument, file, issue, marker, triggerType);
-          previousMarkersToDelete.remove(marker);
-        }
-      } else {
-        issue.setMarkerId(null);
-      }
-    }
-  }
-
   private static void createMarker(IDocument document, ISonarLintIssuable issuable, Trackable trackable, TriggerType triggerType) throws CoreException {
     IMarker marker = issuable.getResource()
       .createMarker(triggerType.isOnTheFly() ? SonarLintCorePlugin.MARKER_ON_THE_FLY_ID : SonarLintCorePlugin.MARKER_REPORT_ID);
@@ -152,37 +218,43 @@ public class SonarLintMarkerUpdater {
       trackable.setMarkerId(marker.getId());
     }
 
+    MarkerAttributes attributes = new MarkerAttributes(null);
     // See MarkerViewUtils
-    marker.setAttribute("org.eclipse.ui.views.markers.name", issuable.getResourceNameForMarker());
-    marker.setAttribute("org.eclipse.ui.views.markers.path", issuable.getResourceContainerForMarker());
-
-    updateMarkerAttributes(document, issuable, trackable, marker, triggerType);
+    attributes.put("org.eclipse.ui.views.markers.name", issuable.getResourceNameForMarker());
+    attributes.put("org.eclipse.ui.views.markers.path", issuable.getResourceContainerForMarker());
+    addMarkerAttributes(document, issuable, trackable, attributes, triggerType);
+    attributes.applyTo(marker);
   }
 
-  private static void updateMarkerAttributes(IDocument document, ISonarLintIssuable issuable, Trackable trackable, IMarker marker, TriggerType triggerType) throws CoreException {
-    Map<String, Object> existingAttributes = marker.getAttributes();
+  private static void updateMarkerAttributes(IDocument document, ISonarLintIssuable issuable, Trackable trackable, IMarker marker, TriggerType triggerType)
+    throws CoreException {
+    MarkerAttributes attributes = new MarkerAttributes(marker.getAttributes());
+    addMarkerAttributes(document, issuable, trackable, attributes, triggerType);
+    attributes.applyTo(marker);
+  }
 
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR, trackable.getRuleKey());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_RULE_NAME_ATTR, trackable.getRuleName());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.SEVERITY, SonarLintGlobalConfiguration.getMarkerSeverity());
+  private static void addMarkerAttributes(IDocument document, ISonarLintIssuable issuable, Trackable trackable, MarkerAttributes attributes, TriggerType triggerType) {
+    attributes.put(MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR, trackable.getRuleKey());
+    attributes.put(MarkerUtils.SONAR_MARKER_RULE_NAME_ATTR, trackable.getRuleName());
+    attributes.put(IMarker.SEVERITY, SonarLintGlobalConfiguration.getMarkerSeverity());
 
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.MESSAGE, trackable.getMessage());
+    attributes.put(IMarker.MESSAGE, trackable.getMessage());
 
     // File level issues (line == null) are displayed on line 1
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.LINE_NUMBER, trackable.getLine() != null ? trackable.getLine() : 1);
+    attributes.put(IMarker.LINE_NUMBER, trackable.getLine() != null ? trackable.getLine() : 1);
 
     Position position = MarkerUtils.getPosition(document, trackable.getTextRange());
     if (position != null) {
-      setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.CHAR_START, position.getOffset());
-      setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.CHAR_END, position.getOffset() + position.getLength());
+      attributes.put(IMarker.CHAR_START, position.getOffset());
+      attributes.put(IMarker.CHAR_END, position.getOffset() + position.getLength());
     }
 
-    createFlowMarkers(document, issuable, trackable, marker, triggerType);
+    attributes.put(MarkerUtils.SONAR_MARKER_EXTRA_LOCATIONS_ATTR, createFlowMarkers(document, issuable, trackable, triggerType));
 
-    updateServerMarkerAttributes(trackable, marker);
+    addServerMarkerAttributes(trackable, attributes);
   }
 
-  private static void createFlowMarkers(IDocument document, ISonarLintIssuable issuable, Trackable trackable, IMarker marker, TriggerType triggerType) throws CoreException {
+  private static List<MarkerFlow> createFlowMarkers(IDocument document, ISonarLintIssuable issuable, Trackable trackable, TriggerType triggerType) {
     List<MarkerFlow> flowsMarkers = new ArrayList<>();
     int i = 1;
     for (org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow engineFlow : trackable.getFlows()) {
@@ -194,13 +266,15 @@ public class SonarLintMarkerUpdater {
         MarkerFlowLocation flowLocation = new MarkerFlowLocation(flow, l.getMessage());
         try {
           IMarker m = issuable.getResource().createMarker(triggerType.isOnTheFly() ? SonarLintCorePlugin.MARKER_ON_THE_FLY_FLOW_ID : SonarLintCorePlugin.MARKER_REPORT_FLOW_ID);
-          m.setAttribute(IMarker.MESSAGE, l.getMessage());
-          m.setAttribute(IMarker.LINE_NUMBER, l.getStartLine() != null ? l.getStartLine() : 1);
+          MarkerAttributes attributes = new MarkerAttributes(null);
+          attributes.put(IMarker.MESSAGE, l.getMessage());
+          attributes.put(IMarker.LINE_NUMBER, l.getStartLine() != null ? l.getStartLine() : 1);
           Position flowPosition = MarkerUtils.getPosition(document, TextRange.get(l.getStartLine(), l.getStartLineOffset(), l.getEndLine(), l.getEndLineOffset()));
           if (flowPosition != null) {
-            m.setAttribute(IMarker.CHAR_START, flowPosition.getOffset());
-            m.setAttribute(IMarker.CHAR_END, flowPosition.getOffset() + flowPosition.getLength());
+            attributes.put(IMarker.CHAR_START, flowPosition.getOffset());
+            attributes.put(IMarker.CHAR_END, flowPosition.getOffset() + flowPosition.getLength());
           }
+          attributes.applyTo(m);
           flowLocation.setMarker(m);
         } catch (Exception e) {
           SonarLintLogger.get().debug("Unable to create flow marker", e);
@@ -208,7 +282,7 @@ public class SonarLintMarkerUpdater {
       }
       i++;
     }
-    marker.setAttribute(MarkerUtils.SONAR_MARKER_EXTRA_LOCATIONS_ATTR, flowsMarkers);
+    return flowsMarkers;
   }
 
   /**
@@ -217,22 +291,40 @@ public class SonarLintMarkerUpdater {
    *   - server issue key
    *   - creation date
    */
-  private static void updateServerMarkerAttributes(Trackable trackable, IMarker marker) throws CoreException {
-    Map<String, Object> existingAttributes = marker.getAttributes();
-
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.PRIORITY, getPriority(trackable.getSeverity()));
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, trackable.getSeverity());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_ISSUE_TYPE_ATTR, trackable.getType());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_SERVER_ISSUE_KEY_ATTR, trackable.getServerIssueKey());
+  private static void addServerMarkerAttributes(Trackable trackable, MarkerAttributes attributes) {
+    attributes.put(IMarker.PRIORITY, getPriority(trackable.getSeverity()));
+    attributes.put(MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, trackable.getSeverity());
+    attributes.put(MarkerUtils.SONAR_MARKER_ISSUE_TYPE_ATTR, trackable.getType());
+    attributes.put(MarkerUtils.SONAR_MARKER_SERVER_ISSUE_KEY_ATTR, trackable.getServerIssueKey());
 
     Long creationDate = trackable.getCreationDate();
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, creationDate != null ? String.valueOf(creationDate) : null);
+    attributes.put(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, creationDate != null ? String.valueOf(creationDate) : null);
   }
 
-  private static void setMarkerAttributeIfDifferent(IMarker marker, @Nullable Map<String, Object> existingAttributes, String attributeName, @Nullable Object value)
-    throws CoreException {
-    if (!Objects.equals(value, existingAttributes != null ? existingAttributes.get(attributeName) : null)) {
-      marker.setAttribute(attributeName, value);
+  /**
+   * Attributes that differ from the existing ones of a marker, to be set all at once
+   */
+  private static class MarkerAttributes {
+    @Nullable
+    private final Map<String, Object> existingAttributes;
+    private final List<String> names = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    private MarkerAttributes(@Nullable Map<String, Object> existingAttributes) {
+      this.existingAttributes = existingAttributes;
+    }
+
+    private void put(String attributeName, @Nullable Object value) {
+      if (!Objects.equals(value, existingAttributes != null ? existingAttributes.get(attributeName) : null)) {
+        names.add(attributeName);
+        values.add(value);
+      }
+    }
+
+    private void applyTo(IMarker marker) throws CoreException {
+      if (!names.isEmpty()) {
+        marker.setAttributes(names.toArray(new String[0]), values.toArray());
+      }
     }
   }
 
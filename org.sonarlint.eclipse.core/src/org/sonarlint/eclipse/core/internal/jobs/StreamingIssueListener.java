@@ -0,0 +1,100 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintIssuable;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+
+/**
+ * Hand over issues of files while the analysis is running, so that markers can be updated without waiting for the end of the analysis and
+ * raw issues released as soon as possible.
+ * The engine doesn't notify when it is done with a file, so a file is considered done once issues are reported on another file. Done files are
+ * flushed by batches. Issues reported on a file after it was flushed, for example by another sensor, are kept apart as late issues.
+ */
+public class StreamingIssueListener extends SonarLintIssueListener {
+  private final Map<ISonarLintIssuable, List<Issue>> issuesPerResource;
+  private final int batchSize;
+  private final Consumer<Map<ISonarLintIssuable, List<Issue>>> batchConsumer;
+  private final Set<ISonarLintIssuable> doneFiles = new LinkedHashSet<>();
+  private final Set<ISonarLintIssuable> flushedFiles = new HashSet<>();
+  private final Map<ISonarLintIssuable, List<Issue>> lateIssuesPerResource = new LinkedHashMap<>();
+  @Nullable
+  private ISonarLintIssuable currentResource;
+
+  /**
+   * @param issuesPerResource issues not flushed yet. Flushed files are removed from it.
+   * @param batchConsumer called by the thread running the analysis with each batch of done files and their issues
+   */
+  public StreamingIssueListener(ISonarLintProject project, Map<ISonarLintIssuable, List<Issue>> issuesPerResource, int batchSize,
+    Consumer<Map<ISonarLintIssuable, List<Issue>>> batchConsumer) {
+    super(project, issuesPerResource);
+    this.issuesPerResource = issuesPerResource;
+    this.batchSize = batchSize;
+    this.batchConsumer = batchConsumer;
+  }
+
+  @Override
+  protected void addIssue(ISonarLintIssuable r, Issue issue) {
+    if (r != currentResource) {
+      if (currentResource instanceof ISonarLintFile && !flushedFiles.contains(currentResource)) {
+        doneFiles.add(currentResource);
+      }
+      doneFiles.remove(r);
+      currentResource = r;
+      if (doneFiles.size() >= batchSize) {
+        flush();
+      }
+    }
+    if (flushedFiles.contains(r)) {
+      lateIssuesPerResource.computeIfAbsent(r, k -> new ArrayList<>()).add(issue);
+    } else {
+      super.addIssue(r, issue);
+    }
+  }
+
+  private void flush() {
+    Map<ISonarLintIssuable, List<Issue>> batch = new LinkedHashMap<>();
+    for (ISonarLintIssuable file : doneFiles) {
+      batch.put(file, issuesPerResource.remove(file));
+      flushedFiles.add(file);
+    }
+    doneFiles.clear();
+    batchConsumer.accept(batch);
+  }
+
+  /**
+   * Issues reported on files after they were flushed
+   */
+  public Map<ISonarLintIssuable, List<Issue>> getLateIssuesPerResource() {
+    return lateIssuesPerResource;
+  }
+
+}
@@ -25,7 +25,17 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.analysis.IFileTypeProvider;
 import org.sonarlint.eclipse.core.analysis.IFileTypeProvider.ISonarLintFileType;
@@ -33,15 +43,38 @@ import org.sonarlint.eclipse.core.internal.extension.SonarLintExtensionTracker;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 
-public class TestFileClassifier {
+/**
+ * Classifies files as test or main. Results are cached per project and file path, until test file patterns change, the classpath of the
+ * project changes (see {@link #invalidate(String)}), or files are moved or deleted.
+ */
+public class TestFileClassifier implements IResourceChangeListener {
   private static TestFileClassifier instance;
-  private List<PathMatcher> pathMatchersForTests;
+
+  /**
+   * Patterns and the classification computed with them, replaced as a whole when patterns change.
+   */
+  private static class State {
+    private final String allTestPattern;
+    private final List<PathMatcher> pathMatchersForTests;
+    private final Map<String, Map<String, Boolean>> isTestPerPathPerProject = new ConcurrentHashMap<>();
+
+    private State(String allTestPattern) {
+      this.allTestPattern = allTestPattern;
+      this.pathMatchersForTests = createMatchersForTests(allTestPattern.split(","));
+    }
+
+    private Map<String, Boolean> forProject(String projectName) {
+      return isTestPerPathPerProject.computeIfAbsent(projectName, k -> new ConcurrentHashMap<>());
+    }
+  }
+
+  private volatile State state;
 
   public TestFileClassifier() {
     reload();
   }
 
-  public static TestFileClassifier get() {
+  public static synchronized TestFileClassifier get() {
     if (instance == null) {
       instance = new TestFileClassifier();
     }
@@ -49,13 +82,30 @@ public class TestFileClassifier {
   }
 
   /**
-   * Reload patterns from global preferences.
-   * Should be called when preferences are changed.
+   * Reload patterns from global preferences, and forget all classifications.
    */
   public void reload() {
+    state = new State(SonarLintGlobalConfiguration.getTestFileRegexps());
+  }
+
+  /**
+   * Classifications are dropped as soon as test file patterns change in preferences.
+   */
+  private State currentState() {
+    State current = state;
     String allTestPattern = SonarLintGlobalConfiguration.getTestFileRegexps();
-    String[] testPatterns = allTestPattern.split(",");
-    pathMatchersForTests = createMatchersForTests(testPatterns);
+    if (!current.allTestPattern.equals(allTestPattern)) {
+      current = new State(allTestPattern);
+      state = current;
+    }
+    return current;
+  }
+
+  /**
+   * Forget classification of files of the given project, for example when its classpath changes.
+   */
+  public void invalidate(String projectName) {
+    state.isTestPerPathPerProject.remove(projectName);
   }
 
   private static List<PathMatcher> createMatchersForTests(String[] testPatterns) {
@@ -68,14 +118,52 @@ public class TestFileClassifier {
   }
 
   public boolean isTest(ISonarLintFile file) {
-    for (IFileTypeProvider typeProvider : SonarLintExtensionTracker.getInstance().getTypeProviders()) {
+    State current = currentState();
+    return isTest(current, current.forProject(file.getProject().getName()), SonarLintExtensionTracker.getInstance().getTypeProviders(), file);
+  }
+
+  /**
+   * Classify many files at once.
+   * @return test files among the given ones
+   */
+  public Set<ISonarLintFile> getTestFiles(Collection<? extends ISonarLintFile> files) {
+    State current = currentState();
+    Collection<IFileTypeProvider> typeProviders = SonarLintExtensionTracker.getInstance().getTypeProviders();
+    Set<ISonarLintFile> testFiles = new HashSet<>();
+    String projectName = null;
+    Map<String, Boolean> isTestPerPath = null;
+    for (ISonarLintFile file : files) {
+      String fileProjectName = file.getProject().getName();
+      if (!fileProjectName.equals(projectName)) {
+        projectName = fileProjectName;
+        isTestPerPath = current.forProject(projectName);
+      }
+      if (isTest(current, isTestPerPath, typeProviders, file)) {
+        testFiles.add(file);
+      }
+    }
+    return testFiles;
+  }
+
+  private static boolean isTest(State state, Map<String, Boolean> isTestPerPath, Collection<IFileTypeProvider> typeProviders, ISonarLintFile file) {
+    String path = file.getProjectRelativePath();
+    Boolean isTest = isTestPerPath.get(path);
+    if (isTest == null) {
+      isTest = classify(state, typeProviders, file);
+      isTestPerPath.put(path, isTest);
+    }
+    return isTest;
+  }
+
+  private static boolean classify(State state, Collection<IFileTypeProvider> typeProviders, ISonarLintFile file) {
+    for (IFileTypeProvider typeProvider : typeProviders) {
       if (typeProvider.qualify(file) == ISonarLintFileType.TEST) {
         SonarLintLogger.get().debug("File '" + file.getProjectRelativePath() + "' qualified as test by '" + typeProvider.getClass().getSimpleName() + "'");
         return true;
       }
     }
     Path fileRelativePath = Paths.get(file.getProjectRelativePath());
-    for (PathMatcher matcher : pathMatchersForTests) {
+    for (PathMatcher matcher : state.pathMatchersForTests) {
       if (matcher.matches(fileRelativePath)) {
         SonarLintLogger.get().debug("File '" + file.getProjectRelativePath() + "' qualified as test by file pattern");
         return true;
@@ -83,4 +171,37 @@ public class TestFileClassifier {
     }
     return false;
   }
+
+  /**
+   * Forget classification of moved and deleted files.
+   */
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    Map<String, Map<String, Boolean>> isTestPerPathPerProject = state.isTestPerPathPerProject;
+    if (delta == null || isTestPerPathPerProject.isEmpty()) {
+      return;
+    }
+    try {
+      delta.accept(d -> {
+        if (d.getKind() != IResourceDelta.REMOVED) {
+          return true;
+        }
+        IResource resource = d.getResource();
+        if (resource.getType() == IResource.PROJECT) {
+          isTestPerPathPerProject.remove(resource.getName());
+        } else if (resource.getType() != IResource.ROOT) {
+          Map<String, Boolean> isTestPerPath = isTestPerPathPerProject.get(resource.getProject().getName());
+          if (isTestPerPath != null) {
+            String path = resource.getProjectRelativePath().toString();
+            String folderPrefix = path + "/";
+            isTestPerPath.keySet().removeIf(p -> p.equals(path) || p.startsWith(folderPrefix));
+          }
+        }
+        return false;
+      });
+    } catch (CoreException e) {
+      SonarLintLogger.get().error("Unable to process resource delta", e);
+    }
+  }
 }
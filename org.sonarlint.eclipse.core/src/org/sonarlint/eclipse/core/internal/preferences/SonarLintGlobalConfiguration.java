@@ -78,6 +78,8 @@ public class SonarLintGlobalConfiguration {
   public static final String PREF_TEST_FILE_REGEXPS_DEFAULT = ""; //$NON-NLS-1$
   public static final String PREF_SKIP_CONFIRM_ANALYZE_MULTIPLE_FILES = "skipConfirmAnalyzeMultipleFiles"; //$NON-NLS-1$
   public static final String PREF_NODEJS_PATH = "nodeJsPath"; //$NON-NLS-1$
+  public static final String PREF_MAX_CONCURRENT_ANALYSES = "maxConcurrentAnalyses"; //$NON-NLS-1$
+  public static final int PREF_MAX_CONCURRENT_ANALYSES_DEFAULT = 1;
 
   private SonarLintGlobalConfiguration() {
     // Utility class
@@ -91,6 +93,14 @@ public class SonarLintGlobalConfiguration {
     return Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_MARKER_SEVERITY, PREF_MARKER_SEVERITY_DEFAULT, null);
   }
 
+  /**
+   * Maximum number of analyses allowed to run at the same time on a given engine (standalone, or one per connection).
+   */
+  public static int getMaxConcurrentAnalyses() {
+    int value = Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_MAX_CONCURRENT_ANALYSES, PREF_MAX_CONCURRENT_ANALYSES_DEFAULT, null);
+    return Math.max(1, value);
+  }
+
   public static List<SonarLintProperty> getExtraPropertiesForLocalAnalysis(ISonarLintProject project) {
     List<SonarLintProperty> props = new ArrayList<>();
     // First add all global properties
@@ -20,6 +20,7 @@
 package org.sonarlint.eclipse.core.internal.preferences;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -30,11 +31,63 @@ import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 
 public class SonarLintProjectConfiguration {
 
-  private List<SonarLintProperty> extraProperties = new ArrayList<>();
-  private List<ExclusionItem> fileExclusions = new ArrayList<>();
+  private final List<SonarLintProperty> extraProperties;
+  private final List<ExclusionItem> fileExclusions;
   @Nullable
   private EclipseProjectBinding projectBinding;
   private boolean autoEnabled = true;
+  private final long version;
+
+  public SonarLintProjectConfiguration() {
+    this.extraProperties = new ArrayList<>();
+    this.fileExclusions = new ArrayList<>();
+    this.version = 0;
+  }
+
+  private SonarLintProjectConfiguration(SonarLintProjectConfiguration other, long version) {
+    this.extraProperties = version == 0 ? new ArrayList<>(other.extraProperties) : Collections.unmodifiableList(new ArrayList<>(other.extraProperties));
+    this.fileExclusions = version == 0 ? new ArrayList<>(other.fileExclusions) : Collections.unmodifiableList(new ArrayList<>(other.fileExclusions));
+    this.projectBinding = other.projectBinding;
+    this.autoEnabled = other.autoEnabled;
+    this.version = version;
+  }
+
+  /**
+   * Read-only copy of this configuration.
+   * @param version strictly positive, see {@link #getVersion()}
+   */
+  SonarLintProjectConfiguration snapshot(long version) {
+    if (version <= 0) {
+      throw new IllegalArgumentException("Snapshot version should be positive");
+    }
+    return new SonarLintProjectConfiguration(this, version);
+  }
+
+  /**
+   * Modifiable copy of this configuration, to be saved with {@link org.sonarlint.eclipse.core.internal.SonarLintCorePlugin#saveConfig}.
+   */
+  public SonarLintProjectConfiguration copy() {
+    return new SonarLintProjectConfiguration(this, 0);
+  }
+
+  /**
+   * Configurations loaded with {@link org.sonarlint.eclipse.core.internal.SonarLintCorePlugin#loadConfig} are read-only snapshots, shared until
+   * project preferences change. Each snapshot has a distinct version, that increases every time a configuration is reloaded, so it can be used
+   * as a cache key. Modifiable configurations have version 0.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  public boolean isReadOnly() {
+    return version != 0;
+  }
+
+  private void checkModifiable() {
+    if (isReadOnly()) {
+      throw new UnsupportedOperationException("Configuration snapshots are read-only, edit a copy instead");
+    }
+  }
 
   public List<ExclusionItem> getFileExclusions() {
     return fileExclusions;
@@ -53,10 +106,12 @@ public class SonarLintProjectConfiguration {
   }
 
   public void setAutoEnabled(boolean autoEnabled) {
+    checkModifiable();
     this.autoEnabled = autoEnabled;
   }
 
   public void setProjectBinding(@Nullable EclipseProjectBinding projectBinding) {
+    checkModifiable();
     this.projectBinding = projectBinding;
   }
 
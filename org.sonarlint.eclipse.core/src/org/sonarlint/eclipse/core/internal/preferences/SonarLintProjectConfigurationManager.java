@@ -20,19 +20,30 @@
 package org.sonarlint.eclipse.core.internal.preferences;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
 import org.eclipse.core.runtime.preferences.IScopeContext;
+import org.eclipse.jdt.annotation.Nullable;
 import org.osgi.service.prefs.BackingStoreException;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration.EclipseProjectBinding;
 import org.sonarlint.eclipse.core.internal.resources.ExclusionItem;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProperty;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 
 import static org.sonarlint.eclipse.core.internal.utils.StringUtils.isBlank;
 import static org.sonarlint.eclipse.core.internal.utils.StringUtils.isNotBlank;
 
-public class SonarLintProjectConfigurationManager {
+public class SonarLintProjectConfigurationManager implements IResourceChangeListener {
 
   private static final String P_EXTRA_PROPS = "extraProperties";
   private static final String P_FILE_EXCLUSIONS = "fileExclusions";
@@ -47,6 +58,100 @@ public class SonarLintProjectConfigurationManager {
   private static final String P_MODULE_KEY = "moduleKey";
   private static final String P_AUTO_ENABLED_KEY = "autoEnabled";
 
+  private final AtomicLong versionCounter = new AtomicLong();
+  private final Map<ISonarLintProject, CachedConfiguration> snapshots = new ConcurrentHashMap<>();
+
+  /**
+   * Read-only configuration of the project, shared until project preferences change.
+   */
+  public SonarLintProjectConfiguration loadSnapshot(ISonarLintProject project) {
+    return snapshots.computeIfAbsent(project, p -> new CachedConfiguration()).get(project);
+  }
+
+  /**
+   * Forget the configuration of closed and deleted projects, and stop listening to their preferences.
+   */
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    IResource resource = event.getResource();
+    if (resource == null || resource.getType() != IResource.PROJECT) {
+      return;
+    }
+    List<ISonarLintProject> removedProjects = snapshots.keySet().stream()
+      .filter(p -> resource.equals(p.getResource()))
+      .collect(Collectors.toList());
+    for (ISonarLintProject project : removedProjects) {
+      CachedConfiguration cached = snapshots.remove(project);
+      if (cached != null) {
+        cached.dispose();
+      }
+    }
+  }
+
+  private class CachedConfiguration implements IPreferenceChangeListener {
+    @Nullable
+    private IEclipsePreferences listenedNode;
+    @Nullable
+    private SonarLintProjectConfiguration snapshot;
+    private long invalidations;
+
+    private SonarLintProjectConfiguration get(ISonarLintProject project) {
+      IScopeContext projectScope = project.getScopeContext();
+      IEclipsePreferences projectNode = projectScope.getNode(SonarLintCorePlugin.PLUGIN_ID);
+      long stamp;
+      synchronized (this) {
+        if (projectNode != listenedNode) {
+          // First load, or the node was removed and recreated (project deleted, or preferences reloaded from disk)
+          listenTo(projectNode);
+          invalidate();
+        }
+        SonarLintProjectConfiguration current = snapshot;
+        if (current != null) {
+          return current;
+        }
+        stamp = invalidations;
+      }
+      SonarLintProjectConfiguration loaded = load(projectScope, project.getName()).snapshot(versionCounter.incrementAndGet());
+      synchronized (this) {
+        // Don't keep a configuration that may have been parsed before the last change
+        if (stamp == invalidations) {
+          snapshot = loaded;
+        }
+      }
+      return loaded;
+    }
+
+    private void listenTo(@Nullable IEclipsePreferences projectNode) {
+      IEclipsePreferences previousNode = listenedNode;
+      if (previousNode != null) {
+        try {
+          previousNode.removePreferenceChangeListener(this);
+        } catch (IllegalStateException e) {
+          // Node already removed, with its listeners
+        }
+      }
+      if (projectNode != null) {
+        projectNode.addPreferenceChangeListener(this);
+      }
+      listenedNode = projectNode;
+    }
+
+    private void invalidate() {
+      snapshot = null;
+      invalidations++;
+    }
+
+    private synchronized void dispose() {
+      listenTo(null);
+      invalidate();
+    }
+
+    @Override
+    public synchronized void preferenceChange(PreferenceChangeEvent event) {
+      invalidate();
+    }
+  }
+
   public SonarLintProjectConfiguration load(IScopeContext projectScope, String projectName) {
     IEclipsePreferences projectNode = projectScope.getNode(SonarLintCorePlugin.PLUGIN_ID);
     SonarLintProjectConfiguration projectConfig = new SonarLintProjectConfiguration();
@@ -62,6 +62,16 @@ public class DefaultSonarLintFileAdapter implements ISonarLintFile {
 
   @Override
   public IDocument getDocument() {
+    IDocument cached = DocumentCache.get(file);
+    if (cached != null) {
+      return cached;
+    }
+    IDocument document = loadDocument();
+    DocumentCache.offer(file, () -> document);
+    return document;
+  }
+
+  private IDocument loadDocument() {
     ITextFileBufferManager textFileBufferManager = FileBuffers.getTextFileBufferManager();
     IPath path = file.getFullPath();
     try {
@@ -79,6 +89,14 @@ public class DefaultSonarLintFileAdapter implements ISonarLintFile {
     }
   }
 
+  /**
+   * @return <code>true</code> if a text file buffer of this file has unsaved changes, meaning content on disk is outdated
+   */
+  public boolean isDirty() {
+    ITextFileBuffer textFileBuffer = FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+    return textFileBuffer != null && textFileBuffer.isDirty();
+  }
+
   @Override
   public IResource getResource() {
     return file;
@@ -0,0 +1,169 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.resources;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.IDocument;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+
+/**
+ * Documents of files that are not open in an editor, loaded during an analysis. They are kept while a {@link Scope} containing the
+ * file is open, so that the content is read once for analysis, issue tracking and marker positions, instead of connecting a file
+ * buffer each time. Once a text file buffer is connected to the file, for example because it was opened in an editor, the document
+ * of the buffer is the reference and the cached document is dropped.
+ */
+public class DocumentCache {
+
+  private static final Map<IFile, Entry> ENTRIES = new HashMap<>();
+
+  private DocumentCache() {
+  }
+
+  private static class Entry {
+    private int scopeCount;
+    @Nullable
+    private IDocument document;
+  }
+
+  /**
+   * Start caching documents of the given files, until the returned scope is closed.
+   */
+  public static Scope open(Collection<ISonarLintFile> files) {
+    List<IFile> cachedFiles = files.stream()
+      .filter(DefaultSonarLintFileAdapter.class::isInstance)
+      .map(f -> (IFile) f.getResource())
+      .collect(Collectors.toList());
+    synchronized (ENTRIES) {
+      cachedFiles.forEach(f -> ENTRIES.computeIfAbsent(f, k -> new Entry()).scopeCount++);
+    }
+    return new Scope(cachedFiles);
+  }
+
+  /**
+   * @return the cached document of the file, or <code>null</code> if it was not loaded in an open scope
+   */
+  @Nullable
+  public static IDocument get(ISonarLintFile file) {
+    if (!(file instanceof DefaultSonarLintFileAdapter)) {
+      return null;
+    }
+    return get((IFile) file.getResource());
+  }
+
+  @Nullable
+  static IDocument get(IFile file) {
+    synchronized (ENTRIES) {
+      Entry entry = ENTRIES.get(file);
+      if (entry == null || entry.document == null) {
+        return null;
+      }
+      if (connectedDocument(file) != null) {
+        entry.document = null;
+        return null;
+      }
+      return entry.document;
+    }
+  }
+
+  /**
+   * @return the document of the text file buffer connected to the file, or <code>null</code> if no buffer is connected
+   */
+  @Nullable
+  public static IDocument connectedDocument(ISonarLintFile file) {
+    if (!(file instanceof DefaultSonarLintFileAdapter)) {
+      return null;
+    }
+    return connectedDocument((IFile) file.getResource());
+  }
+
+  @Nullable
+  private static IDocument connectedDocument(IFile file) {
+    ITextFileBuffer textFileBuffer = FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+    return textFileBuffer != null ? textFileBuffer.getDocument() : null;
+  }
+
+  /**
+   * Keep the document of a file if the file belongs to an open scope and its document was not loaded yet.
+   */
+  public static void offer(ISonarLintFile file, Supplier<IDocument> document) {
+    if (file instanceof DefaultSonarLintFileAdapter) {
+      offer((IFile) file.getResource(), document);
+    }
+  }
+
+  static void offer(IFile file, Supplier<IDocument> document) {
+    synchronized (ENTRIES) {
+      Entry entry = ENTRIES.get(file);
+      if (entry != null && entry.document == null) {
+        entry.document = document.get();
+      }
+    }
+  }
+
+  /**
+   * Forget the document of a file that is not needed anymore, before the end of the scope.
+   */
+  public static void release(ISonarLintFile file) {
+    if (file instanceof DefaultSonarLintFileAdapter) {
+      synchronized (ENTRIES) {
+        Entry entry = ENTRIES.get(file.getResource());
+        if (entry != null) {
+          entry.document = null;
+        }
+      }
+    }
+  }
+
+  public static class Scope implements AutoCloseable {
+    private final List<IFile> files;
+    private boolean closed;
+
+    private Scope(List<IFile> files) {
+      this.files = files;
+    }
+
+    @Override
+    public void close() {
+      synchronized (ENTRIES) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        for (IFile file : files) {
+          Entry entry = ENTRIES.get(file);
+          if (entry != null && --entry.scopeCount == 0) {
+            ENTRIES.remove(file);
+          }
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+
+/**
+ * Flattened copy of a tracked issue, as kept in the issue cache between analyses. It holds no reference to the engine issue
+ * or to the chain of wrappers it comes from, and repeated strings are interned. Flows are kept, since markers can be recreated
+ * later with their secondary locations, for example when server issues are matched.
+ * Only the marker id can change.
+ */
+public final class CompactTrackable implements Trackable {
+
+  private static final long NO_LONG = Long.MIN_VALUE;
+  private static final byte HAS_TEXT_RANGE_HASH = 1;
+  private static final byte HAS_LINE_HASH = 2;
+  private static final byte RESOLVED = 4;
+
+  private long markerId;
+  private final int line;
+  private final int textRangeHash;
+  private final int lineHash;
+  private final long creationDate;
+  private final byte flags;
+  private final String message;
+  private final String ruleKey;
+  private final String ruleName;
+  @Nullable
+  private final String serverIssueKey;
+  private final String assignee;
+  private final String severity;
+  private final String rawSeverity;
+  private final String type;
+  private final String rawType;
+  @Nullable
+  private final TextRange textRange;
+  private final List<Flow> flows;
+
+  private CompactTrackable(Trackable trackable) {
+    this.markerId = toPrimitive(trackable.getMarkerId());
+    Integer l = trackable.getLine();
+    this.line = l != null ? l : 0;
+    Integer trh = trackable.getTextRangeHash();
+    Integer lh = trackable.getLineHash();
+    this.textRangeHash = trh != null ? trh : 0;
+    this.lineHash = lh != null ? lh : 0;
+    this.creationDate = toPrimitive(trackable.getCreationDate());
+    this.flags = (byte) ((trh != null ? HAS_TEXT_RANGE_HASH : 0) | (lh != null ? HAS_LINE_HASH : 0) | (trackable.isResolved() ? RESOLVED : 0));
+    this.message = intern(trackable.getMessage());
+    this.ruleKey = intern(trackable.getRuleKey());
+    this.ruleName = intern(trackable.getRuleName());
+    this.serverIssueKey = trackable.getServerIssueKey();
+    this.assignee = intern(trackable.getAssignee());
+    this.severity = intern(trackable.getSeverity());
+    this.rawSeverity = intern(trackable.getRawSeverity());
+    this.type = intern(trackable.getType());
+    this.rawType = intern(trackable.getRawType());
+    this.textRange = trackable.getTextRange();
+    List<Flow> originalFlows = trackable.getFlows();
+    this.flows = originalFlows.isEmpty() ? Collections.emptyList() : originalFlows;
+  }
+
+  public static Trackable of(Trackable trackable) {
+    if (trackable instanceof CompactTrackable) {
+      return trackable;
+    }
+    return new CompactTrackable(trackable);
+  }
+
+  public static Collection<Trackable> compact(Collection<Trackable> trackables) {
+    if (trackables.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Trackable> result = new ArrayList<>(trackables.size());
+    for (Trackable trackable : trackables) {
+      result.add(of(trackable));
+    }
+    return result;
+  }
+
+  private static long toPrimitive(@Nullable Long value) {
+    return value != null ? value : NO_LONG;
+  }
+
+  @Nullable
+  private static Long toNullable(long value) {
+    return value != NO_LONG ? value : null;
+  }
+
+  @Nullable
+  private static String intern(@Nullable String value) {
+    return value != null ? value.intern() : null;
+  }
+
+  @Nullable
+  @Override
+  public Long getMarkerId() {
+    return toNullable(markerId);
+  }
+
+  @Override
+  public void setMarkerId(@Nullable Long id) {
+    this.markerId = toPrimitive(id);
+  }
+
+  @Nullable
+  @Override
+  public Integer getLine() {
+    return line != 0 ? line : null;
+  }
+
+  @Override
+  public String getMessage() {
+    return message;
+  }
+
+  @Nullable
+  @Override
+  public Integer getTextRangeHash() {
+    return (flags & HAS_TEXT_RANGE_HASH) != 0 ? textRangeHash : null;
+  }
+
+  @Nullable
+  @Override
+  public Integer getLineHash() {
+    return (flags & HAS_LINE_HASH) != 0 ? lineHash : null;
+  }
+
+  @Override
+  public String getRuleKey() {
+    return ruleKey;
+  }
+
+  @Override
+  public String getRuleName() {
+    return ruleName;
+  }
+
+  @Nullable
+  @Override
+  public Long getCreationDate() {
+    return toNullable(creationDate);
+  }
+
+  @Nullable
+  @Override
+  public String getServerIssueKey() {
+    return serverIssueKey;
+  }
+
+  @Override
+  public boolean isResolved() {
+    return (flags & RESOLVED) != 0;
+  }
+
+  @Override
+  public String getAssignee() {
+    return assignee;
+  }
+
+  @Override
+  public String getSeverity() {
+    return severity;
+  }
+
+  @Override
+  public String getRawSeverity() {
+    return rawSeverity;
+  }
+
+  @Override
+  public String getType() {
+    return type;
+  }
+
+  @Override
+  public String getRawType() {
+    return rawType;
+  }
+
+  @Nullable
+  @Override
+  public TextRange getTextRange() {
+    return textRange;
+  }
+
+  @Override
+  public List<Flow> getFlows() {
+    return flows;
+  }
+
+}
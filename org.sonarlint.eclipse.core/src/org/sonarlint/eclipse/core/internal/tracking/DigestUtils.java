@@ -19,6 +19,7 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -28,14 +29,125 @@ public class DigestUtils {
 
   private static final char[] DIGITS = "0123456789abcdef".toCharArray();
 
-  private static final MessageDigest MD5_DIGEST = DigestUtils.getMd5Digest();
+  private static final int BUFFER_SIZE = 1024;
+
+  /**
+   * {@link MessageDigest} is not thread safe, and analyses of different projects can run concurrently
+   */
+  private static final ThreadLocal<ChecksumState> STATE = ThreadLocal.withInitial(ChecksumState::new);
+
+  private static class ChecksumState {
+    private final MessageDigest md5 = getMd5Digest();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] hash = new byte[md5.getDigestLength()];
+  }
 
   private DigestUtils() {
     // utility class, forbidden constructor
   }
 
   public static String digest(String content) {
-    return encodeHexString(MD5_DIGEST.digest(content.replaceAll("[\\s]", "").getBytes(UTF_8)));
+    return encodeHexString(STATE.get().md5.digest(content.replaceAll("[\\s]", "").getBytes(UTF_8)));
+  }
+
+  /**
+   * Same as <code>digest(content).hashCode()</code>, the checksum persisted in the issue store, without allocating.
+   */
+  public static int checksum(CharSequence content) {
+    return checksum(content, 0, content.length());
+  }
+
+  /**
+   * Same as <code>digest(content.subSequence(start, end)).hashCode()</code>, without allocating.
+   */
+  public static int checksum(CharSequence content, int start, int end) {
+    ChecksumState state = STATE.get();
+    MessageDigest md5 = state.md5;
+    byte[] buffer = state.buffer;
+    int length = 0;
+    char pendingHighSurrogate = 0;
+    for (int i = start; i < end; i++) {
+      char c = content.charAt(i);
+      if (isWhitespace(c)) {
+        continue;
+      }
+      if (buffer.length - length < 4) {
+        md5.update(buffer, 0, length);
+        length = 0;
+      }
+      if (pendingHighSurrogate != 0) {
+        if (Character.isLowSurrogate(c)) {
+          length = encodeCodePoint(Character.toCodePoint(pendingHighSurrogate, c), buffer, length);
+          pendingHighSurrogate = 0;
+          continue;
+        }
+        buffer[length++] = '?';
+        pendingHighSurrogate = 0;
+      }
+      if (Character.isHighSurrogate(c)) {
+        pendingHighSurrogate = c;
+      } else if (Character.isLowSurrogate(c)) {
+        buffer[length++] = '?';
+      } else {
+        length = encodeCodePoint(c, buffer, length);
+      }
+    }
+    if (pendingHighSurrogate != 0) {
+      if (buffer.length == length) {
+        md5.update(buffer, 0, length);
+        length = 0;
+      }
+      buffer[length++] = '?';
+    }
+    md5.update(buffer, 0, length);
+    try {
+      md5.digest(state.hash, 0, state.hash.length);
+    } catch (DigestException e) {
+      throw new IllegalStateException(e);
+    }
+    return hexStringHashCode(state.hash);
+  }
+
+  /**
+   * Characters matched by the <code>\s</code> regular expression class.
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+  }
+
+  /**
+   * UTF-8 encoding, unpaired surrogates being replaced by '?' like {@link String#getBytes(java.nio.charset.Charset)} does.
+   */
+  private static int encodeCodePoint(int codePoint, byte[] buffer, int offset) {
+    int i = offset;
+    if (codePoint < 0x80) {
+      buffer[i++] = (byte) codePoint;
+    } else if (codePoint < 0x800) {
+      buffer[i++] = (byte) (0xC0 | (codePoint >> 6));
+      buffer[i++] = (byte) (0x80 | (codePoint & 0x3F));
+    } else if (codePoint < 0x10000) {
+      buffer[i++] = (byte) (0xE0 | (codePoint >> 12));
+      buffer[i++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+      buffer[i++] = (byte) (0x80 | (codePoint & 0x3F));
+    } else {
+      buffer[i++] = (byte) (0xF0 | (codePoint >> 18));
+      buffer[i++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+      buffer[i++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+      buffer[i++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+    return i;
+  }
+
+  /**
+   * Same as <code>encodeHexString(data).hashCode()</code>
+   */
+  private static int hexStringHashCode(byte[] data) {
+    int hash = 0;
+    for (byte b : data) {
+      hash = 31 * hash + DIGITS[(240 & b) >>> 4];
+      hash = 31 * hash + DIGITS[15 & b];
+    }
+    return hash;
   }
 
   private static MessageDigest getMd5Digest() {
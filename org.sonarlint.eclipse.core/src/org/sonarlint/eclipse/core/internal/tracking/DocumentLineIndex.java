@@ -0,0 +1,166 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+
+/**
+ * Line offsets and checksums of a document, computed once from a single copy of its content so that issues reported on the same lines
+ * don't query the document and hash the same content over and over.
+ */
+public class DocumentLineIndex {
+
+  /**
+   * Indexes are reused as long as the modification stamp of the document is unchanged, typically for documents of opened editors.
+   */
+  private static final Map<IDocument, DocumentLineIndex> INDEX_PER_DOCUMENT = new WeakHashMap<>();
+
+  private final long modificationStamp;
+  private final String content;
+  /**
+   * Start offset of each line, plus the start offset of a virtual line after the end of the content
+   */
+  private final int[] lineOffsets;
+  private final int lineCount;
+  private final int[] lineHashes;
+  private final BitSet computedLineHashes;
+
+  DocumentLineIndex(String content, long modificationStamp) {
+    this.content = content;
+    this.modificationStamp = modificationStamp;
+    int[] offsets = new int[16];
+    int count = 0;
+    offsets[count++] = 0;
+    int length = content.length();
+    for (int i = 0; i < length; i++) {
+      char c = content.charAt(i);
+      if (c == '\r' && i + 1 < length && content.charAt(i + 1) == '\n') {
+        i++;
+      } else if (c != '\r' && c != '\n') {
+        continue;
+      }
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      offsets[count++] = i + 1;
+    }
+    this.lineCount = count;
+    this.lineOffsets = Arrays.copyOf(offsets, count + 1);
+    this.lineOffsets[count] = length;
+    this.lineHashes = new int[count];
+    this.computedLineHashes = new BitSet(count);
+  }
+
+  public static DocumentLineIndex of(IDocument document) {
+    long modificationStamp = document instanceof IDocumentExtension4 ? ((IDocumentExtension4) document).getModificationStamp()
+      : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+    if (modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+      return new DocumentLineIndex(document.get(), modificationStamp);
+    }
+    synchronized (INDEX_PER_DOCUMENT) {
+      DocumentLineIndex index = INDEX_PER_DOCUMENT.get(document);
+      if (index == null || index.modificationStamp != modificationStamp) {
+        index = new DocumentLineIndex(document.get(), modificationStamp);
+        INDEX_PER_DOCUMENT.put(document, index);
+      }
+      return index;
+    }
+  }
+
+  public int getLineCount() {
+    return lineCount;
+  }
+
+  /**
+   * @param line 1-based line number
+   * @return offset of the first character of the line, or -1 if the line doesn't exist
+   */
+  public int getLineOffset(int line) {
+    if (line < 1 || line > lineCount) {
+      return -1;
+    }
+    return lineOffsets[line - 1];
+  }
+
+  /**
+   * @param line 1-based line number
+   * @return offset after the last character of the line, line delimiter excluded, or -1 if the line doesn't exist
+   */
+  public int getLineEndOffset(int line) {
+    if (line < 1 || line > lineCount) {
+      return -1;
+    }
+    int end = lineOffsets[line];
+    if (line < lineCount) {
+      end--;
+      if (end > lineOffsets[line - 1] && content.charAt(end) == '\n' && content.charAt(end - 1) == '\r') {
+        end--;
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Checksum of the line content, see {@link DigestUtils#checksum(CharSequence, int, int)}
+   */
+  @Nullable
+  public synchronized Integer getLineHash(int line) {
+    if (line < 1 || line > lineCount) {
+      return null;
+    }
+    if (!computedLineHashes.get(line - 1)) {
+      lineHashes[line - 1] = DigestUtils.checksum(content, getLineOffset(line), getLineEndOffset(line));
+      computedLineHashes.set(line - 1);
+    }
+    return lineHashes[line - 1];
+  }
+
+  /**
+   * Checksum of the content of the text range, see {@link DigestUtils#checksum(CharSequence, int, int)}
+   */
+  @Nullable
+  public Integer getTextRangeHash(TextRange textRange) {
+    if (!textRange.isValid()) {
+      return null;
+    }
+    if (textRange.isLineOnly()) {
+      return getLineHash(textRange.getStartLine());
+    }
+    int startLineOffset = getLineOffset(textRange.getStartLine());
+    int endLineOffset = getLineOffset(textRange.getEndLine());
+    if (startLineOffset < 0 || endLineOffset < 0) {
+      return null;
+    }
+    int start = startLineOffset + textRange.getStartLineOffset();
+    int end = endLineOffset + textRange.getEndLineOffset();
+    if (start < 0 || end < start || end > content.length()) {
+      return null;
+    }
+    return DigestUtils.checksum(content, start, end);
+  }
+
+}
@@ -39,7 +39,7 @@ import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
  * @param <K> type of the key to store by and used when reading back; must be hashable
  * @param <V> type of the value to store
  */
-class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
+public class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
 
   private final StoreIndex<K> index;
   private final PathMapper<K> pathMapper;
@@ -47,7 +47,7 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
   private final Writer<V> writer;
   private final StoreKeyValidator<K> validator;
 
-  IndexedObjectStore(StoreIndex<K> index, PathMapper<K> pathMapper, Reader<V> reader, Writer<V> writer, StoreKeyValidator<K> validator) {
+  public IndexedObjectStore(StoreIndex<K> index, PathMapper<K> pathMapper, Reader<V> reader, Writer<V> writer, StoreKeyValidator<K> validator) {
     this.index = index;
     this.pathMapper = pathMapper;
     this.reader = reader;
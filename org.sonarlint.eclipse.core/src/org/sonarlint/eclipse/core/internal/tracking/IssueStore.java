@@ -19,30 +19,41 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
-import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMapper;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
 public class IssueStore {
-  private Path basePath;
-  private IndexedObjectStore<String, Sonarlint.Issues> store;
+  /**
+   * Memory mapping prevents segment files to be deleted on Windows until buffers are garbage collected, so it is opt-in.
+   */
+  private static final boolean MEMORY_MAPPED = Boolean.getBoolean("sonarlint.internal.issueStore.mmap");
+  private static final Pattern LEGACY_HASH_DIR_PATTERN = Pattern.compile("[0-9a-f]");
+
+  private final Path basePath;
+  private final SegmentedObjectStore<Sonarlint.Issues> store;
 
   public IssueStore(Path storeBasePath, ISonarLintProject project) {
+    this(storeBasePath, project, MEMORY_MAPPED);
+  }
+
+  public IssueStore(Path storeBasePath, ISonarLintProject project, boolean memoryMapped) {
     this.basePath = storeBasePath;
     FileUtils.mkdirs(storeBasePath);
-    StoreIndex<String> index = new StringStoreIndex(storeBasePath);
-    PathMapper<String> mapper = new HashingPathMapper(storeBasePath, 2);
     StoreKeyValidator<String> validator = new PathStoreKeyValidator(project);
     Reader<Sonarlint.Issues> reader = is -> {
       try {
@@ -58,12 +69,54 @@ public class IssueStore {
         throw new IllegalStateException("Failed to save issues", e);
       }
     };
-    store = new IndexedObjectStore<>(index, mapper, reader, writer, validator);
+    store = new SegmentedObjectStore<>(storeBasePath, reader, writer, validator, memoryMapped);
+    migrateLegacyStore(reader, writer, validator);
     store.deleteInvalid();
   }
 
+  /**
+   * Issues used to be stored in one file per source file, with an index. Copy them to the segmented store, then delete old files once all of them
+   * were copied.
+   */
+  private void migrateLegacyStore(Reader<Sonarlint.Issues> reader, Writer<Sonarlint.Issues> writer, StoreKeyValidator<String> validator) {
+    if (!basePath.resolve(StringStoreIndex.INDEX_FILENAME).toFile().exists() && !basePath.resolve(StringStoreIndex.JOURNAL_FILENAME).toFile().exists()) {
+      return;
+    }
+    StringStoreIndex legacyIndex = new StringStoreIndex(basePath);
+    IndexedObjectStore<String, Sonarlint.Issues> legacyStore = new IndexedObjectStore<>(legacyIndex, new HashingPathMapper(basePath, 2), reader, writer, validator);
+    int counter = 0;
+    try {
+      for (String key : legacyIndex.keys()) {
+        Optional<Sonarlint.Issues> issues = legacyStore.read(key);
+        if (issues.isPresent() && !store.contains(key)) {
+          store.write(key, issues.get());
+          counter++;
+        }
+      }
+      SonarLintLogger.get().debug(String.format("%d entries migrated to the segmented issue store", counter));
+      deleteLegacyFiles();
+    } catch (Exception e) {
+      // Keep the legacy store so that migration is attempted again on next startup
+      SonarLintLogger.get().error("Failed to migrate issue store " + basePath, e);
+    }
+  }
+
+  private void deleteLegacyFiles() {
+    FileUtils.deleteRecursively(basePath.resolve(StringStoreIndex.INDEX_FILENAME));
+    FileUtils.deleteRecursively(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME));
+    File[] hashDirs = basePath.toFile().listFiles(f -> f.isDirectory() && LEGACY_HASH_DIR_PATTERN.matcher(f.getName()).matches());
+    if (hashDirs != null) {
+      Stream.of(hashDirs).forEach(d -> FileUtils.deleteRecursively(d.toPath()));
+    }
+  }
+
   public boolean contains(String key) {
-    return store.contains(key);
+    try {
+      return store.contains(key);
+    } catch (IOException e) {
+      SonarLintLogger.get().error("Failed to read issue store " + basePath, e);
+      return false;
+    }
   }
 
   public void save(String key, Collection<Trackable> issues) throws IOException {
@@ -84,10 +137,18 @@ public class IssueStore {
   }
 
   public void clear() {
+    store.close();
     FileUtils.deleteRecursively(basePath);
     FileUtils.mkdirs(basePath);
   }
 
+  /**
+   * Release file handles.
+   */
+  public void close() {
+    store.close();
+  }
+
   private static Collection<Trackable> transform(Sonarlint.Issues protoIssues) {
     return protoIssues.getIssueList().stream()
       .map(IssueStore::transform)
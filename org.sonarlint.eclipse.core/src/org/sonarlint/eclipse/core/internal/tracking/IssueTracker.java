@@ -22,7 +22,11 @@ package org.sonarlint.eclipse.core.internal.tracking;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.eclipse.jdt.annotation.Nullable;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 
 public class IssueTracker {
@@ -43,7 +47,7 @@ public class IssueTracker {
       tracked = rawIssues;
     } else {
       Collection<Trackable> trackedIssues = new ArrayList<>();
-      Tracking<Trackable, Trackable> tracking = new Tracker<>().trackRaw(() -> rawIssues, () -> cache.getCurrentTrackables(file.getProjectRelativePath()));
+      Tracking<Trackable, Trackable> tracking = new PackedTracker<>().trackRaw(() -> rawIssues, () -> cache.getCurrentTrackables(file.getProjectRelativePath()));
       // Previous issues
       for (Map.Entry<Trackable, Trackable> entry : tracking.getMatchedRaws().entrySet()) {
         Trackable next = new PreviousTrackable(entry.getValue(), entry.getKey());
@@ -58,8 +62,50 @@ public class IssueTracker {
     return tracked;
   }
 
-  public synchronized void updateCache(ISonarLintFile file, Collection<Trackable> tracked) {
-    cache.put(file.getProjectRelativePath(), tracked);
+  /**
+   * Issues new raw issues of the file would be matched against, or null if the file was never analyzed
+   */
+  @Nullable
+  public synchronized Collection<Trackable> getPreviousTrackables(ISonarLintFile file) {
+    String path = file.getProjectRelativePath();
+    return cache.isFirstAnalysis(path) ? null : cache.getCurrentTrackables(path);
+  }
+
+  /**
+   * Match raw issues reported for a file after its other issues were already tracked and cached during the same analysis. They are matched
+   * against the previous issues that were not matched by the cached ones.
+   *
+   * @param previousTrackables issues of the file before the analysis, as returned by {@link #getPreviousTrackables(ISonarLintFile)}
+   */
+  public synchronized Collection<Trackable> matchAndTrackLateIssues(ISonarLintFile file, Collection<Trackable> lateRawIssues,
+    @Nullable Collection<Trackable> previousTrackables) {
+    if (previousTrackables == null) {
+      return lateRawIssues;
+    }
+    Collection<Trackable> current = cache.getCurrentTrackables(file.getProjectRelativePath());
+    Set<Trackable> alreadyMatched = Collections.newSetFromMap(new IdentityHashMap<>());
+    alreadyMatched.addAll(new PackedTracker<>().trackRaw(() -> current, () -> previousTrackables).getMatchedRaws().values());
+    Collection<Trackable> unmatchedPrevious = previousTrackables.stream().filter(t -> !alreadyMatched.contains(t)).collect(Collectors.toList());
+
+    Collection<Trackable> trackedIssues = new ArrayList<>();
+    Tracking<Trackable, Trackable> tracking = new PackedTracker<>().trackRaw(() -> lateRawIssues, () -> unmatchedPrevious);
+    for (Map.Entry<Trackable, Trackable> entry : tracking.getMatchedRaws().entrySet()) {
+      trackedIssues.add(new PreviousTrackable(entry.getValue(), entry.getKey()));
+    }
+    for (Trackable raw : tracking.getUnmatchedRaws()) {
+      trackedIssues.add(new LeakedTrackable(raw));
+    }
+    return trackedIssues;
+  }
+
+  /**
+   * Store compact copies of the tracked issues in cache. Since marker ids are updated on the cached issues, the returned copies
+   * should be used for any further marker update.
+   */
+  public synchronized Collection<Trackable> updateCache(ISonarLintFile file, Collection<Trackable> tracked) {
+    Collection<Trackable> cached = CompactTrackable.compact(tracked);
+    cache.put(file.getProjectRelativePath(), cached);
+    return cached;
   }
 
   /**
@@ -79,7 +125,7 @@ public class IssueTracker {
 
   public static Collection<Trackable> matchAndTrackServerIssues(Collection<Trackable> serverIssues, Collection<Trackable> currentIssues) {
     Collection<Trackable> trackedIssues = new ArrayList<>();
-    Tracking<Trackable, Trackable> tracking = new Tracker<>().trackServer(() -> currentIssues, () -> serverIssues);
+    Tracking<Trackable, Trackable> tracking = new PackedTracker<>().trackServer(() -> currentIssues, () -> serverIssues);
     for (Map.Entry<Trackable, Trackable> entry : tracking.getMatchedRaws().entrySet()) {
       Trackable next = new CombinedTrackable(entry.getValue(), entry.getKey());
       trackedIssues.add(next);
@@ -0,0 +1,183 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory budget shared by all {@link PersistentIssueTrackerCache}. The weight of a cached file is its number of trackables
+ * (plus one, so that files without issues still count). When the total weight goes over the budget, the files accessed the longest
+ * time ago, whatever their project, are evicted to their store.
+ */
+public class IssueTrackerCacheBudget {
+
+  private static final String MAX_WEIGHT_PROPERTY = "sonarlint.internal.issueCache.maxWeight";
+  private static final String SOFT_REFERENCES_PROPERTY = "sonarlint.internal.issueCache.softReferences";
+  private static final long MIN_DEFAULT_MAX_WEIGHT = 10_000;
+  /**
+   * Rough footprint of a live trackable, with its text range, message and hashes.
+   */
+  private static final long ESTIMATED_BYTES_PER_TRACKABLE = 1024;
+
+  private final long maxWeight;
+  private final boolean softReferences;
+  private final List<PersistentIssueTrackerCache> caches = new ArrayList<>();
+  private final AtomicLong weight = new AtomicLong();
+  private final AtomicLong accessTicks = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong softHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * @param maxWeight maximum number of trackables kept in memory by all caches
+   * @param softReferences if true, evicted entries are still kept behind soft references, so that they can be read back without
+   * hitting the store as long as the JVM has not reclaimed them
+   */
+  public IssueTrackerCacheBudget(long maxWeight, boolean softReferences) {
+    this.maxWeight = maxWeight;
+    this.softReferences = softReferences;
+  }
+
+  /**
+   * Budget sized to use about 10% of the max heap, unless overridden by system properties.
+   */
+  public static IssueTrackerCacheBudget createDefault() {
+    long defaultMaxWeight = Math.max(MIN_DEFAULT_MAX_WEIGHT, Runtime.getRuntime().maxMemory() / 10 / ESTIMATED_BYTES_PER_TRACKABLE);
+    long maxWeight = Long.getLong(MAX_WEIGHT_PROPERTY, defaultMaxWeight);
+    boolean softReferences = !"false".equals(System.getProperty(SOFT_REFERENCES_PROPERTY));
+    return new IssueTrackerCacheBudget(maxWeight, softReferences);
+  }
+
+  static int weightOf(int trackableCount) {
+    return 1 + trackableCount;
+  }
+
+  synchronized void register(PersistentIssueTrackerCache cache) {
+    caches.add(cache);
+  }
+
+  synchronized void unregister(PersistentIssueTrackerCache cache) {
+    caches.remove(cache);
+  }
+
+  /**
+   * Should not require the lock of this budget, since it is called by caches holding their own lock.
+   */
+  void addWeight(long delta) {
+    weight.addAndGet(delta);
+  }
+
+  long nextAccessTick() {
+    return accessTicks.incrementAndGet();
+  }
+
+  void recordHit() {
+    hits.incrementAndGet();
+  }
+
+  void recordSoftHit() {
+    softHits.incrementAndGet();
+  }
+
+  void recordMiss() {
+    misses.incrementAndGet();
+  }
+
+  void recordEviction() {
+    evictions.incrementAndGet();
+  }
+
+  /**
+   * Evict least recently accessed entries until the total weight fits in the budget. Must be called without holding the lock of
+   * any cache, since it locks them one after the other.
+   *
+   * @param origin the cache that was just updated, whose most recent entry is never evicted
+   * @return caches from which entries were evicted
+   */
+  synchronized Collection<PersistentIssueTrackerCache> enforce(PersistentIssueTrackerCache origin) {
+    Set<PersistentIssueTrackerCache> victims = new LinkedHashSet<>();
+    while (weight.get() > maxWeight) {
+      PersistentIssueTrackerCache victim = null;
+      long oldestTick = Long.MAX_VALUE;
+      for (PersistentIssueTrackerCache cache : caches) {
+        long tick = cache.getEldestAccessTick(cache == origin);
+        if (tick < oldestTick) {
+          oldestTick = tick;
+          victim = cache;
+        }
+      }
+      if (victim == null || !victim.evictEldest(victim == origin)) {
+        // Only the entry that was just updated is left
+        break;
+      }
+      victims.add(victim);
+    }
+    return victims;
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  public long getWeight() {
+    return weight.get();
+  }
+
+  public boolean isSoftReferencesEnabled() {
+    return softReferences;
+  }
+
+  /**
+   * @return number of reads served by in-memory entries, including the ones served by soft references
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of reads served by entries that had been evicted, but were still softly reachable
+   */
+  public long getSoftHitCount() {
+    return softHits.get();
+  }
+
+  /**
+   * @return number of reads that had to go to the store
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("weight=%d/%d, hits=%d (soft=%d), misses=%d, evictions=%d", getWeight(), maxWeight, getHitCount(), getSoftHitCount(),
+      getMissCount(), getEvictionCount());
+  }
+}
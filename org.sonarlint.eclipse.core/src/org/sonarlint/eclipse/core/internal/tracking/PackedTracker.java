@@ -0,0 +1,245 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.internal.utils.StringUtils;
+
+/**
+ * Same matching passes as {@link Tracker}, with the same results, but without allocating search keys. The attributes used by the passes
+ * are read once per trackable and encoded as longs (strings are replaced by ids), then each pass indexes the unmatched bases
+ * in an open-addressing table, whose buffers are reused by all passes.
+ */
+public class PackedTracker<RAW extends Trackable, BASE extends Trackable> {
+
+  private static final int RULE = 0;
+  private static final int LINE = 1;
+  private static final int TEXT_RANGE_HASH = 2;
+  private static final int LINE_HASH = 3;
+  private static final int MESSAGE = 4;
+  private static final int SERVER_ISSUE_KEY = 5;
+  private static final int FIELD_COUNT = 6;
+
+  /**
+   * Encoded value of a null Integer, distinct from any encoded int value
+   */
+  private static final long NULL_INT = 1L << 32;
+  /**
+   * Encoded value of a null string
+   */
+  private static final long NULL_STRING = -1;
+  /**
+   * Encoded value of a blank server issue key, which never matches
+   */
+  private static final long NO_SERVER_ISSUE_KEY = -1;
+
+  private static final int[] LINE_AND_TEXT_RANGE_HASH = {RULE, LINE, TEXT_RANGE_HASH};
+  private static final int[] TEXT_RANGE_HASH_AND_MESSAGE = {RULE, MESSAGE, TEXT_RANGE_HASH};
+  private static final int[] LINE_AND_MESSAGE = {RULE, LINE, MESSAGE};
+  private static final int[] TEXT_RANGE_HASH_ONLY = {RULE, TEXT_RANGE_HASH};
+  private static final int[] LINE_AND_LINE_HASH = {RULE, LINE, LINE_HASH};
+  private static final int[] LINE_HASH_ONLY = {RULE, LINE_HASH};
+  private static final int[] SERVER_ISSUE_KEY_ONLY = {SERVER_ISSUE_KEY};
+
+  public Tracking<RAW, BASE> trackRaw(Input<RAW> rawIssues, Input<BASE> localStorage) {
+    Tracking<RAW, BASE> tracking = new Tracking<>(rawIssues, localStorage);
+    Matcher matcher = new Matcher(tracking);
+
+    // See Tracker#trackRaw for the meaning of each pass
+    matcher.match(LINE_AND_TEXT_RANGE_HASH);
+    matcher.match(TEXT_RANGE_HASH_AND_MESSAGE);
+    matcher.match(LINE_AND_MESSAGE);
+    matcher.match(TEXT_RANGE_HASH_ONLY);
+    matcher.match(LINE_AND_LINE_HASH);
+    matcher.match(LINE_HASH_ONLY);
+
+    return tracking;
+  }
+
+  public Tracking<RAW, BASE> trackServer(Input<RAW> trackedLocally, Input<BASE> serverIssue) {
+    Tracking<RAW, BASE> tracking = new Tracking<>(trackedLocally, serverIssue);
+    Matcher matcher = new Matcher(tracking);
+
+    // See Tracker#trackServer for the meaning of each pass
+    matcher.match(SERVER_ISSUE_KEY_ONLY);
+    matcher.match(LINE_AND_MESSAGE);
+    matcher.match(LINE_AND_LINE_HASH);
+    matcher.match(LINE_HASH_ONLY);
+
+    return tracking;
+  }
+
+  private class Matcher {
+    private final Tracking<RAW, BASE> tracking;
+    private final List<RAW> raws;
+    private final List<BASE> bases;
+    private final long[][] rawFields;
+    private final long[][] baseFields;
+    private final boolean[] rawMatched;
+    private final boolean[] baseMatched;
+    private int matchedCount;
+
+    // Hash table of the unmatched bases, reused by all passes. Each slot references a group of bases having the same key, chained
+    // in iteration order through nextInGroup. The representative is the first base of the group, used to compare keys.
+    private final int mask;
+    private final long[] slotHashes;
+    private final int[] slotRepresentatives;
+    private final int[] slotHeads;
+    private final int[] slotTails;
+    private final int[] nextInGroup;
+
+    Matcher(Tracking<RAW, BASE> tracking) {
+      this.tracking = tracking;
+      this.raws = new ArrayList<>(tracking.getRaws());
+      this.bases = new ArrayList<>(tracking.getBases());
+      Map<String, Integer> stringIds = new HashMap<>();
+      this.rawFields = encode(raws, stringIds);
+      this.baseFields = encode(bases, stringIds);
+      this.rawMatched = new boolean[raws.size()];
+      this.baseMatched = new boolean[bases.size()];
+      int capacity = Integer.highestOneBit(Math.max(1, bases.size()) * 2 - 1) << 1;
+      this.mask = capacity - 1;
+      this.slotHashes = new long[capacity];
+      this.slotRepresentatives = new int[capacity];
+      this.slotHeads = new int[capacity];
+      this.slotTails = new int[capacity];
+      this.nextInGroup = new int[bases.size()];
+    }
+
+    void match(int[] keyFields) {
+      if (matchedCount == raws.size() || matchedCount == bases.size()) {
+        return;
+      }
+      Arrays.fill(slotRepresentatives, -1);
+      for (int b = 0; b < baseMatched.length; b++) {
+        if (!baseMatched[b] && isSearchable(baseFields, b, keyFields)) {
+          index(b, keyFields);
+        }
+      }
+      for (int r = 0; r < rawMatched.length; r++) {
+        if (!rawMatched[r] && isSearchable(rawFields, r, keyFields)) {
+          int b = pollBase(r, keyFields);
+          if (b >= 0) {
+            rawMatched[r] = true;
+            baseMatched[b] = true;
+            matchedCount++;
+            tracking.match(raws.get(r), bases.get(b));
+          }
+        }
+      }
+    }
+
+    private void index(int b, int[] keyFields) {
+      long hash = hash(baseFields, b, keyFields);
+      int slot = (int) hash & mask;
+      while (slotRepresentatives[slot] >= 0) {
+        if (slotHashes[slot] == hash && sameKey(baseFields, b, slotRepresentatives[slot], keyFields)) {
+          nextInGroup[slotTails[slot]] = b;
+          nextInGroup[b] = -1;
+          slotTails[slot] = b;
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      slotHashes[slot] = hash;
+      slotRepresentatives[slot] = b;
+      slotHeads[slot] = b;
+      slotTails[slot] = b;
+      nextInGroup[b] = -1;
+    }
+
+    /**
+     * @return the first unmatched base having the same key as the raw, removed from its group, or -1 if none
+     */
+    private int pollBase(int r, int[] keyFields) {
+      long hash = hash(rawFields, r, keyFields);
+      int slot = (int) hash & mask;
+      while (slotRepresentatives[slot] >= 0) {
+        if (slotHashes[slot] == hash && sameKey(rawFields, r, slotRepresentatives[slot], keyFields)) {
+          int b = slotHeads[slot];
+          if (b >= 0) {
+            slotHeads[slot] = nextInGroup[b];
+          }
+          return b;
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+
+    private boolean sameKey(long[][] fields, int index, int baseIndex, int[] keyFields) {
+      for (int f : keyFields) {
+        if (fields[f][index] != baseFields[f][baseIndex]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static boolean isSearchable(long[][] fields, int index, int[] keyFields) {
+    return keyFields != SERVER_ISSUE_KEY_ONLY || fields[SERVER_ISSUE_KEY][index] != NO_SERVER_ISSUE_KEY;
+  }
+
+  private static long hash(long[][] fields, int index, int[] keyFields) {
+    long h = 0;
+    for (int f : keyFields) {
+      h = (h ^ fields[f][index]) * 0x9E3779B97F4A7C15L;
+    }
+    return h ^ (h >>> 29);
+  }
+
+  private static long[][] encode(List<? extends Trackable> trackables, Map<String, Integer> stringIds) {
+    int size = trackables.size();
+    long[][] fields = new long[FIELD_COUNT][size];
+    for (int i = 0; i < size; i++) {
+      Trackable t = trackables.get(i);
+      fields[RULE][i] = encode(t.getRuleKey(), stringIds);
+      fields[LINE][i] = encode(t.getLine());
+      fields[TEXT_RANGE_HASH][i] = encode(t.getTextRangeHash());
+      fields[LINE_HASH][i] = encode(t.getLineHash());
+      fields[MESSAGE][i] = encode(t.getMessage(), stringIds);
+      String serverIssueKey = t.getServerIssueKey();
+      fields[SERVER_ISSUE_KEY][i] = StringUtils.isBlank(serverIssueKey) ? NO_SERVER_ISSUE_KEY : encode(serverIssueKey, stringIds);
+    }
+    return fields;
+  }
+
+  private static long encode(@Nullable Integer value) {
+    return value != null ? (value & 0xFFFFFFFFL) : NULL_INT;
+  }
+
+  private static long encode(@Nullable String value, Map<String, Integer> stringIds) {
+    if (value == null) {
+      return NULL_STRING;
+    }
+    Integer id = stringIds.get(value);
+    if (id == null) {
+      id = stringIds.size();
+      stringIds.put(value, id);
+    }
+    return id;
+  }
+}
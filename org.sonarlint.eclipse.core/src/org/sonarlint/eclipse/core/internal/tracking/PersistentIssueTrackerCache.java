@@ -20,61 +20,287 @@
 package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.annotation.Nullable;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 
 public class PersistentIssueTrackerCache implements IssueTrackerCache {
 
-  static final int MAX_ENTRIES = 100;
+  static final int MAX_PENDING_WRITES = 200;
 
   private final IssueStore store;
-  private final Map<String, Collection<Trackable>> cache;
+  private final IssueTrackerCacheBudget budget;
+  /**
+   * Live entries, in access order.
+   */
+  private final LinkedHashMap<String, CachedTrackables> cache = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * Entries evicted from the cache, kept as long as the JVM doesn't need the memory. Only used if enabled in the budget.
+   */
+  private final Map<String, KeyedSoftReference> softCache = new HashMap<>();
+  private final ReferenceQueue<Collection<Trackable>> clearedSoftReferences = new ReferenceQueue<>();
+
+  /**
+   * Entries evicted from the cache and not yet written to the store, in eviction order. Only used in write-behind mode.
+   * Guarded by its own monitor, never by the cache monitor, so that the writer never contends with issue tracking.
+   */
+  private final LinkedHashMap<String, Collection<Trackable>> pendingWrites = new LinkedHashMap<>();
+  /**
+   * Held while writing to or clearing the store, so that a write in flight can't resurrect entries of a cleared store.
+   */
+  private final Object storeLock = new Object();
+  @Nullable
+  private final WriterJob writerJob;
+  private boolean writerStopped;
 
   public PersistentIssueTrackerCache(IssueStore store) {
+    this(store, IssueTrackerCacheBudget.createDefault(), false);
+  }
+
+  /**
+   * @param budget memory budget, usually shared with the caches of other projects
+   * @param writeBehind if true, entries evicted from the cache are written to the store by a background job instead of
+   * the thread updating the cache. At most {@link #MAX_PENDING_WRITES} entries can wait to be written, past that
+   * {@link #put(String, Collection)} blocks until the writer catches up, after having released the locks of caches and budget.
+   */
+  public PersistentIssueTrackerCache(IssueStore store, IssueTrackerCacheBudget budget, boolean writeBehind) {
     this.store = store;
-    this.cache = new LimitedSizeLinkedHashMap();
+    this.budget = budget;
+    this.writerJob = writeBehind ? new WriterJob() : null;
+    budget.register(this);
+  }
+
+  private static class CachedTrackables {
+    private final Collection<Trackable> trackables;
+    private final int weight;
+    private long lastAccessTick;
+
+    CachedTrackables(Collection<Trackable> trackables, long lastAccessTick) {
+      this.trackables = trackables;
+      this.weight = IssueTrackerCacheBudget.weightOf(trackables.size());
+      this.lastAccessTick = lastAccessTick;
+    }
+  }
+
+  private static class KeyedSoftReference extends SoftReference<Collection<Trackable>> {
+    private final String key;
+
+    KeyedSoftReference(String key, Collection<Trackable> trackables, ReferenceQueue<Collection<Trackable>> queue) {
+      super(trackables, queue);
+      this.key = key;
+    }
+  }
+
+  @Nullable
+  private Collection<Trackable> getLive(String file) {
+    CachedTrackables cached = cache.get(file);
+    if (cached == null) {
+      return null;
+    }
+    cached.lastAccessTick = budget.nextAccessTick();
+    return cached.trackables;
+  }
+
+  @Nullable
+  private Collection<Trackable> getSoft(String file) {
+    KeyedSoftReference ref = softCache.get(file);
+    return ref != null ? ref.get() : null;
+  }
+
+  private void purgeClearedSoftReferences() {
+    Reference<? extends Collection<Trackable>> ref;
+    while ((ref = clearedSoftReferences.poll()) != null) {
+      String key = ((KeyedSoftReference) ref).key;
+      if (softCache.get(key) == ref) {
+        softCache.remove(key);
+      }
+    }
   }
 
   /**
-   * Keeps a maximum number of entries in the map. On insertion, if the limit is passed, the entry accessed the longest time ago
-   * is flushed into cache and removed from the map.
+   * @param keepLast if true, the most recently accessed entry can't be evicted, so that the file that was just analyzed stays live
+   * @return the access tick of the entry accessed the longest time ago, or {@link Long#MAX_VALUE} if there is no entry that
+   * can be evicted
    */
-  private class LimitedSizeLinkedHashMap extends LinkedHashMap<String, Collection<Trackable>> {
-    LimitedSizeLinkedHashMap() {
-      super(MAX_ENTRIES, 0.75f, true);
+  synchronized long getEldestAccessTick(boolean keepLast) {
+    if (cache.size() <= (keepLast ? 1 : 0)) {
+      return Long.MAX_VALUE;
     }
+    return cache.values().iterator().next().lastAccessTick;
+  }
 
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<String, Collection<Trackable>> eldest) {
-      if (size() <= MAX_ENTRIES) {
+  /**
+   * @return false if there was no entry that could be evicted
+   */
+  synchronized boolean evictEldest(boolean keepLast) {
+    if (cache.size() <= (keepLast ? 1 : 0)) {
+      return false;
+    }
+    Iterator<Map.Entry<String, CachedTrackables>> it = cache.entrySet().iterator();
+    Map.Entry<String, CachedTrackables> eldest = it.next();
+    it.remove();
+    String key = eldest.getKey();
+    CachedTrackables cached = eldest.getValue();
+    budget.addWeight(-cached.weight);
+    budget.recordEviction();
+    if (budget.isSoftReferencesEnabled()) {
+      purgeClearedSoftReferences();
+      softCache.put(key, new KeyedSoftReference(key, cached.trackables, clearedSoftReferences));
+    }
+    writeEvicted(key, cached.trackables);
+    return true;
+  }
+
+  private void writeEvicted(String key, Collection<Trackable> trackables) {
+    WriterJob writer = writerJob;
+    if (writer != null && enqueue(key, trackables)) {
+      writer.schedule();
+      return;
+    }
+    try {
+      SonarLintLogger.get().debug("Persisting issues for " + key);
+      store.save(key, trackables);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
+    }
+  }
+
+  /**
+   * Never blocks, so that the evicted entry is visible to readers as soon as it leaves the cache. Backpressure is applied later by
+   * {@link #awaitPendingWritesBelowLimit()}.
+   *
+   * @return false if the writer is stopped, and the entry should be written by the caller
+   */
+  private boolean enqueue(String key, Collection<Trackable> trackables) {
+    synchronized (pendingWrites) {
+      if (writerStopped) {
         return false;
       }
+      // Re-insert so that the latest version is written last
+      pendingWrites.remove(key);
+      pendingWrites.put(key, trackables);
+      return true;
+    }
+  }
+
+  /**
+   * Wait for the writer to catch up when too many entries are waiting to be written. Must be called without holding the lock of
+   * any cache nor of the budget, so that a slow store doesn't block the caches of other projects.
+   */
+  void awaitPendingWritesBelowLimit() {
+    if (writerJob == null) {
+      return;
+    }
+    synchronized (pendingWrites) {
+      boolean interrupted = false;
+      while (!writerStopped && pendingWrites.size() > MAX_PENDING_WRITES) {
+        try {
+          pendingWrites.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 
-      String key = eldest.getKey();
+  @Nullable
+  private Collection<Trackable> getPending(String file) {
+    synchronized (pendingWrites) {
+      return pendingWrites.get(file);
+    }
+  }
+
+  /**
+   * Writes the oldest pending entry to the store. The entry stays visible to readers until it has been written.
+   *
+   * @return false if there was nothing to write
+   */
+  private boolean writeNextPending() {
+    String key;
+    Collection<Trackable> trackables;
+    synchronized (pendingWrites) {
+      Iterator<Map.Entry<String, Collection<Trackable>>> it = pendingWrites.entrySet().iterator();
+      if (!it.hasNext()) {
+        return false;
+      }
+      Map.Entry<String, Collection<Trackable>> next = it.next();
+      key = next.getKey();
+      trackables = next.getValue();
+    }
+    synchronized (storeLock) {
+      if (getPending(key) != trackables) {
+        // Superseded or cleared in the meantime
+        return true;
+      }
       try {
         SonarLintLogger.get().debug("Persisting issues for " + key);
-        store.save(key, eldest.getValue());
+        store.save(key, trackables);
       } catch (IOException e) {
-        throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
+        SonarLintLogger.get().error(String.format("Error persisting issues for %s", key), e);
       }
-      return true;
+    }
+    synchronized (pendingWrites) {
+      if (pendingWrites.get(key) == trackables) {
+        pendingWrites.remove(key);
+      }
+      pendingWrites.notifyAll();
+    }
+    return true;
+  }
+
+  private void writeAllPending() {
+    while (writeNextPending()) {
+      // continue
+    }
+  }
+
+  /**
+   * @return the number of evicted entries waiting to be written to the store
+   */
+  public int getPendingWriteCount() {
+    synchronized (pendingWrites) {
+      return pendingWrites.size();
     }
   }
 
   @Override
   public boolean isFirstAnalysis(String file) {
-    return !cache.containsKey(file) && !store.contains(file);
+    synchronized (this) {
+      if (cache.containsKey(file) || getSoft(file) != null) {
+        return false;
+      }
+    }
+    return getPending(file) == null && !store.contains(file);
   }
 
   @Override
   public synchronized Collection<Trackable> getLiveOrFail(String file) {
-    Collection<Trackable> liveTrackables = cache.get(file);
+    Collection<Trackable> liveTrackables = getLive(file);
     if (liveTrackables != null) {
+      budget.recordHit();
       return liveTrackables;
     }
+    Collection<Trackable> softTrackables = getSoft(file);
+    if (softTrackables != null) {
+      budget.recordHit();
+      budget.recordSoftHit();
+      return softTrackables;
+    }
 
     throw new IllegalStateException("No issues in cache for file: " + file);
   }
@@ -84,11 +310,26 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
    */
   @Override
   public synchronized Collection<Trackable> getCurrentTrackables(String file) {
-    Collection<Trackable> liveTrackables = cache.get(file);
+    Collection<Trackable> liveTrackables = getLive(file);
     if (liveTrackables != null) {
+      budget.recordHit();
       return liveTrackables;
     }
 
+    Collection<Trackable> softTrackables = getSoft(file);
+    if (softTrackables != null) {
+      budget.recordHit();
+      budget.recordSoftHit();
+      return Collections.unmodifiableCollection(softTrackables);
+    }
+
+    Collection<Trackable> pendingTrackables = getPending(file);
+    if (pendingTrackables != null) {
+      budget.recordHit();
+      return Collections.unmodifiableCollection(pendingTrackables);
+    }
+
+    budget.recordMiss();
     try {
       Collection<Trackable> storedTrackables = store.read(file);
       if (storedTrackables != null) {
@@ -101,33 +342,91 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
   }
 
   @Override
-  public synchronized void put(String file, Collection<Trackable> trackables) {
-    cache.put(file, trackables);
+  public void put(String file, Collection<Trackable> trackables) {
+    synchronized (this) {
+      CachedTrackables cached = new CachedTrackables(trackables, budget.nextAccessTick());
+      CachedTrackables previous = cache.put(file, cached);
+      budget.addWeight(cached.weight - (previous != null ? previous.weight : 0L));
+      softCache.remove(file);
+    }
+    // Outside of the lock of this cache, since entries of other caches may be evicted
+    budget.enforce(this).forEach(PersistentIssueTrackerCache::awaitPendingWritesBelowLimit);
   }
 
   @Override
   public synchronized void clear() {
-    store.clear();
+    synchronized (storeLock) {
+      synchronized (pendingWrites) {
+        pendingWrites.clear();
+        pendingWrites.notifyAll();
+      }
+      store.clear();
+    }
+    releaseAll();
+  }
+
+  private void releaseAll() {
+    budget.addWeight(-cache.values().stream().mapToLong(c -> c.weight).sum());
     cache.clear();
+    softCache.clear();
   }
 
   /**
-   * Flushes all cached entries to disk.
+   * Flushes all cached entries to disk, including the ones waiting to be written in background.
    * It does not clear the cache.
    */
   public synchronized void flushAll() {
     SonarLintLogger.get().debug("Persisting all issues");
-    cache.forEach((path, trackables) -> {
-      try {
-        store.save(path, trackables);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to flush cache", e);
-      }
-    });
+    writeAllPending();
+    synchronized (storeLock) {
+      cache.forEach((path, cached) -> {
+        try {
+          store.save(path, cached.trackables);
+        } catch (IOException e) {
+          throw new IllegalStateException("Failed to flush cache", e);
+        }
+      });
+    }
   }
 
   @Override
-  public synchronized void shutdown() {
-    flushAll();
+  public void shutdown() {
+    // Not while holding the lock of this cache, since the budget locks the caches it evicts from
+    budget.unregister(this);
+    synchronized (this) {
+      WriterJob writer = writerJob;
+      if (writer != null) {
+        synchronized (pendingWrites) {
+          writerStopped = true;
+          pendingWrites.notifyAll();
+        }
+        writer.cancel();
+        try {
+          writer.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      flushAll();
+      store.close();
+      releaseAll();
+    }
+  }
+
+  private class WriterJob extends Job {
+
+    WriterJob() {
+      super("Persist SonarLint issues");
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      while (!monitor.isCanceled() && writeNextPending()) {
+        // continue
+      }
+      return Status.OK_STATUS;
+    }
   }
 }
@@ -25,8 +25,6 @@ import org.sonarlint.eclipse.core.internal.markers.TextRange;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
 
-import static org.sonarlint.eclipse.core.internal.tracking.DigestUtils.digest;
-
 public class RawIssueTrackable implements Trackable {
 
   private final Issue issue;
@@ -46,6 +44,13 @@ public class RawIssueTrackable implements Trackable {
     this.lineHash = lineContent != null ? checksum(lineContent) : null;
   }
 
+  public RawIssueTrackable(Issue issue, TextRange textRange, DocumentLineIndex lineIndex) {
+    this.issue = issue;
+    this.textRange = textRange;
+    this.textRangeHash = lineIndex.getTextRangeHash(textRange);
+    this.lineHash = lineIndex.getLineHash(textRange.getStartLine());
+  }
+
   @Override
   public Long getMarkerId() {
     return markerId;
@@ -57,7 +62,7 @@ public class RawIssueTrackable implements Trackable {
   }
 
   private static int checksum(String content) {
-    return digest(content).hashCode();
+    return DigestUtils.checksum(content);
   }
 
   @Nullable
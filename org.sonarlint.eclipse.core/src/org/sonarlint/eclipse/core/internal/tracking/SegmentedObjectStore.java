@@ -0,0 +1,535 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+
+/**
+ * An ObjectStore that appends all values to a few large segment files, instead of using one file per key.
+ * <p>
+ * Each record of a segment is made of a header (key length, value length or -1 for a deleted key, CRC32 of key and value) followed by
+ * the key and the value. The offset of the last value of each key is kept in memory. Later records win over earlier ones, so a crash
+ * can at worst lose the last record, that is detected and dropped thanks to its length and checksum.
+ * <p>
+ * When a segment is sealed, and for the active segment when the store is closed, the keys and offsets of its records are saved in a
+ * hint file next to it. When the store is opened, segments are loaded from their hint file, and only a segment without an up to date
+ * hint file (usually the active one after a crash) is scanned. Only the active segment can be truncated: records following a
+ * corrupted one in a sealed segment are skipped.
+ * <p>
+ * Segments are compacted when they contain more obsolete records than live ones. Sealed segments can optionally be memory mapped
+ * for reading.
+ */
+public class SegmentedObjectStore<V> implements ObjectStore<String, V> {
+
+  public static final long DEFAULT_MAX_SEGMENT_SIZE = 16L * 1024 * 1024;
+  private static final long MIN_GARBAGE_BEFORE_COMPACTION = 1024L * 1024;
+  private static final int HEADER_SIZE = 12;
+  private static final int DELETED = -1;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".dat";
+  private static final String HINT_SUFFIX = ".hint";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final int HINT_VERSION = 1;
+  private static final Pattern SEGMENT_NAME_PATTERN = Pattern.compile(Pattern.quote(SEGMENT_PREFIX) + "(\\d+)" + Pattern.quote(SEGMENT_SUFFIX));
+  private static final Pattern HINT_NAME_PATTERN = Pattern.compile(Pattern.quote(SEGMENT_PREFIX) + "(\\d+)" + Pattern.quote(HINT_SUFFIX) + "(" + Pattern.quote(TMP_SUFFIX)
+    + ")?");
+
+  private final Path basePath;
+  private final Reader<V> reader;
+  private final Writer<V> writer;
+  private final StoreKeyValidator<String> validator;
+  private final boolean memoryMapped;
+  private final long maxSegmentSize;
+
+  private final Map<String, Location> locationByKey = new HashMap<>();
+  private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+  private final Map<Integer, ByteBuffer> mappedSegments = new HashMap<>();
+  private List<Record> activeSegmentRecords = new ArrayList<>();
+  private long liveBytes;
+  private long garbageBytes;
+  private boolean opened;
+
+  public SegmentedObjectStore(Path basePath, Reader<V> reader, Writer<V> writer, StoreKeyValidator<String> validator, boolean memoryMapped) {
+    this(basePath, reader, writer, validator, memoryMapped, DEFAULT_MAX_SEGMENT_SIZE);
+  }
+
+  public SegmentedObjectStore(Path basePath, Reader<V> reader, Writer<V> writer, StoreKeyValidator<String> validator, boolean memoryMapped, long maxSegmentSize) {
+    this.basePath = basePath;
+    this.reader = reader;
+    this.writer = writer;
+    this.validator = validator;
+    this.memoryMapped = memoryMapped;
+    this.maxSegmentSize = maxSegmentSize;
+  }
+
+  private static class Location {
+    private final int segmentId;
+    private final long valueOffset;
+    private final int valueLength;
+    private final int recordSize;
+
+    Location(int segmentId, long valueOffset, int valueLength, int recordSize) {
+      this.segmentId = segmentId;
+      this.valueOffset = valueOffset;
+      this.valueLength = valueLength;
+      this.recordSize = recordSize;
+    }
+  }
+
+  /**
+   * A record of a segment, as saved in hint files.
+   */
+  private static class Record {
+    private final String key;
+    private final long valueOffset;
+    private final int valueLength;
+    private final int recordSize;
+
+    Record(String key, long valueOffset, int valueLength, int recordSize) {
+      this.key = key;
+      this.valueOffset = valueOffset;
+      this.valueLength = valueLength;
+      this.recordSize = recordSize;
+    }
+  }
+
+  @Override
+  public synchronized Optional<V> read(String key) throws IOException {
+    open();
+    Location location = locationByKey.get(key);
+    if (location == null) {
+      return Optional.empty();
+    }
+    ByteBuffer buffer = readValue(location);
+    return Optional.of(reader.apply(new ByteArrayInputStream(buffer.array(), buffer.arrayOffset(), buffer.remaining())));
+  }
+
+  public synchronized boolean contains(String key) throws IOException {
+    open();
+    return locationByKey.containsKey(key);
+  }
+
+  public synchronized Collection<String> keys() throws IOException {
+    open();
+    return new ArrayList<>(locationByKey.keySet());
+  }
+
+  @Override
+  public synchronized void write(String key, V value) throws IOException {
+    open();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.accept(out, value);
+    Location location = append(key, out.toByteArray());
+    Location previous = locationByKey.put(key, location);
+    liveBytes += location.recordSize;
+    if (previous != null) {
+      liveBytes -= previous.recordSize;
+      garbageBytes += previous.recordSize;
+    }
+    compactIfNeeded();
+  }
+
+  @Override
+  public synchronized void delete(String key) throws IOException {
+    open();
+    Location previous = locationByKey.remove(key);
+    if (previous == null) {
+      return;
+    }
+    Location tombstone = append(key, null);
+    liveBytes -= previous.recordSize;
+    garbageBytes += previous.recordSize + tombstone.recordSize;
+    compactIfNeeded();
+  }
+
+  /**
+   * Deletes all entries that are no longer valid.
+   */
+  public synchronized void deleteInvalid() {
+    int counter = 0;
+    try {
+      for (String k : keys()) {
+        if (!validator.apply(k)) {
+          counter++;
+          delete(k);
+        }
+      }
+    } catch (IOException e) {
+      SonarLintLogger.get().error("Failed to delete entries from the store", e);
+    }
+    SonarLintLogger.get().debug(String.format("%d entries removed from the store", counter));
+  }
+
+  /**
+   * Release file handles. The store will be opened again if needed.
+   */
+  public synchronized void close() {
+    if (!segments.isEmpty()) {
+      Map.Entry<Integer, FileChannel> active = segments.lastEntry();
+      writeHint(active.getKey(), active.getValue(), activeSegmentRecords);
+    }
+    for (FileChannel channel : segments.values()) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        SonarLintLogger.get().debug("Unable to close issue store segment", e);
+      }
+    }
+    segments.clear();
+    mappedSegments.clear();
+    activeSegmentRecords = new ArrayList<>();
+    locationByKey.clear();
+    liveBytes = 0;
+    garbageBytes = 0;
+    opened = false;
+  }
+
+  public static boolean isSegmentFile(Path path) {
+    return SEGMENT_NAME_PATTERN.matcher(path.getFileName().toString()).matches();
+  }
+
+  private void open() throws IOException {
+    if (opened) {
+      return;
+    }
+    Files.createDirectories(basePath);
+    List<Path> hintFiles = new ArrayList<>();
+    try (Stream<Path> files = Files.list(basePath)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Matcher matcher = SEGMENT_NAME_PATTERN.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          segments.put(Integer.parseInt(matcher.group(1)), FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        } else if (HINT_NAME_PATTERN.matcher(file.getFileName().toString()).matches()) {
+          hintFiles.add(file);
+        }
+      }
+    }
+    opened = true;
+    deleteObsoleteHints(hintFiles);
+    for (Map.Entry<Integer, FileChannel> segment : segments.entrySet()) {
+      boolean active = segment.getKey().equals(segments.lastKey());
+      List<Record> records = load(segment.getKey(), segment.getValue(), active);
+      records.forEach(record -> apply(segment.getKey(), record));
+      if (active) {
+        activeSegmentRecords = records;
+      }
+    }
+    if (segments.isEmpty()) {
+      newSegment(0);
+    }
+  }
+
+  private void deleteObsoleteHints(List<Path> hintFiles) {
+    for (Path hintFile : hintFiles) {
+      Matcher matcher = HINT_NAME_PATTERN.matcher(hintFile.getFileName().toString());
+      if (matcher.matches() && (matcher.group(2) != null || !segments.containsKey(Integer.parseInt(matcher.group(1))))) {
+        try {
+          Files.deleteIfExists(hintFile);
+        } catch (IOException e) {
+          SonarLintLogger.get().debug("Unable to delete issue store hint file " + hintFile, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Read the records of a segment from its hint file, or by scanning it when the hint file is missing or out of date.
+   */
+  private List<Record> load(int segmentId, FileChannel channel, boolean active) throws IOException {
+    long size = channel.size();
+    List<Record> records = readHint(segmentId, size);
+    if (records != null) {
+      return records;
+    }
+    records = new ArrayList<>();
+    long end = scan(channel, size, records);
+    if (end < size) {
+      if (active) {
+        // Record was not completely written, probably because of a crash
+        SonarLintLogger.get().debug("Dropping truncated record at the end of issue store segment " + segmentId);
+        channel.truncate(end);
+      } else {
+        // No more writes go to a sealed segment, keep it as is
+        SonarLintLogger.get().debug("Skipping corrupted records at the end of issue store segment " + segmentId);
+      }
+    }
+    if (!active) {
+      writeHint(segmentId, channel, records);
+    }
+    return records;
+  }
+
+  /**
+   * @return position of the end of the last valid record
+   */
+  private static long scan(FileChannel channel, long size, List<Record> records) throws IOException {
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (position + HEADER_SIZE <= size) {
+      header.clear();
+      readFully(channel, header, position);
+      header.flip();
+      int keyLength = header.getInt();
+      int valueLength = header.getInt();
+      int checksum = header.getInt();
+      long recordEnd = position + HEADER_SIZE + keyLength + Math.max(0, valueLength);
+      if (keyLength <= 0 || valueLength < DELETED || recordEnd > size) {
+        break;
+      }
+      ByteBuffer content = ByteBuffer.allocate(keyLength + Math.max(0, valueLength));
+      readFully(channel, content, position + HEADER_SIZE);
+      if (checksum(content.array()) != checksum) {
+        break;
+      }
+      String key = new String(content.array(), 0, keyLength, StandardCharsets.UTF_8);
+      records.add(new Record(key, position + HEADER_SIZE + keyLength, valueLength, (int) (recordEnd - position)));
+      position = recordEnd;
+    }
+    return position;
+  }
+
+  private void apply(int segmentId, Record record) {
+    Location previous;
+    if (record.valueLength == DELETED) {
+      previous = locationByKey.remove(record.key);
+      garbageBytes += record.recordSize;
+    } else {
+      previous = locationByKey.put(record.key, new Location(segmentId, record.valueOffset, record.valueLength, record.recordSize));
+      liveBytes += record.recordSize;
+    }
+    if (previous != null) {
+      liveBytes -= previous.recordSize;
+      garbageBytes += previous.recordSize;
+    }
+  }
+
+  /**
+   * @return null if the hint file is missing, corrupted, or doesn't match the current size of the segment
+   */
+  @Nullable
+  private List<Record> readHint(int segmentId, long segmentSize) {
+    Path hintPath = hintPath(segmentId);
+    if (!Files.exists(hintPath)) {
+      return null;
+    }
+    try {
+      byte[] content = Files.readAllBytes(hintPath);
+      if (content.length < 4 || checksum(content, 0, content.length - 4) != ByteBuffer.wrap(content, content.length - 4, 4).getInt()) {
+        return null;
+      }
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - 4));
+      if (in.readInt() != HINT_VERSION || in.readLong() != segmentSize) {
+        return null;
+      }
+      int count = in.readInt();
+      List<Record> records = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        byte[] key = new byte[in.readInt()];
+        in.readFully(key);
+        records.add(new Record(new String(key, StandardCharsets.UTF_8), in.readLong(), in.readInt(), in.readInt()));
+      }
+      return records;
+    } catch (IOException e) {
+      SonarLintLogger.get().debug("Unable to read issue store hint file " + hintPath, e);
+      return null;
+    }
+  }
+
+  /**
+   * Hint files are only an optimization, the segment will be scanned on next open if this fails.
+   */
+  private void writeHint(int segmentId, FileChannel channel, List<Record> records) {
+    Path hintPath = hintPath(segmentId);
+    Path tmpPath = hintPath.resolveSibling(hintPath.getFileName() + TMP_SUFFIX);
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(HINT_VERSION);
+      out.writeLong(channel.size());
+      out.writeInt(records.size());
+      for (Record record : records) {
+        byte[] key = record.key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(record.valueOffset);
+        out.writeInt(record.valueLength);
+        out.writeInt(record.recordSize);
+      }
+      byte[] content = bytes.toByteArray();
+      out.writeInt(checksum(content));
+      Files.write(tmpPath, bytes.toByteArray());
+      Files.move(tmpPath, hintPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      SonarLintLogger.get().debug("Unable to write issue store hint file " + hintPath, e);
+    }
+  }
+
+  private Location append(String key, @Nullable byte[] value) throws IOException {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int valueLength = value != null ? value.length : DELETED;
+    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + Math.max(0, valueLength));
+    record.putInt(keyBytes.length);
+    record.putInt(valueLength);
+    record.putInt(0);
+    record.put(keyBytes);
+    if (value != null) {
+      record.put(value);
+    }
+    record.putInt(8, checksum(record.array(), HEADER_SIZE, record.capacity() - HEADER_SIZE));
+    record.flip();
+
+    Map.Entry<Integer, FileChannel> active = segments.lastEntry();
+    if (active.getValue().size() > 0 && active.getValue().size() + record.remaining() > maxSegmentSize) {
+      active = newSegment(active.getKey() + 1);
+    }
+    FileChannel channel = active.getValue();
+    long position = channel.size();
+    while (record.hasRemaining()) {
+      channel.write(record, position + record.position());
+    }
+    long valueOffset = position + HEADER_SIZE + keyBytes.length;
+    activeSegmentRecords.add(new Record(key, valueOffset, valueLength, record.capacity()));
+    return new Location(active.getKey(), valueOffset, Math.max(0, valueLength), record.capacity());
+  }
+
+  /**
+   * Seal the active segment, if any, and start a new one.
+   */
+  private Map.Entry<Integer, FileChannel> newSegment(int segmentId) throws IOException {
+    if (!segments.isEmpty()) {
+      Map.Entry<Integer, FileChannel> sealed = segments.lastEntry();
+      writeHint(sealed.getKey(), sealed.getValue(), activeSegmentRecords);
+    }
+    FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    segments.put(segmentId, channel);
+    activeSegmentRecords = new ArrayList<>();
+    return segments.lastEntry();
+  }
+
+  private Path segmentPath(int segmentId) {
+    return basePath.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+  }
+
+  private Path hintPath(int segmentId) {
+    return basePath.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segmentId, HINT_SUFFIX));
+  }
+
+  private ByteBuffer readValue(Location location) throws IOException {
+    FileChannel channel = segments.get(location.segmentId);
+    boolean sealed = location.segmentId != segments.lastKey();
+    if (memoryMapped && sealed) {
+      ByteBuffer mapped = mappedSegments.get(location.segmentId);
+      if (mapped == null) {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        mappedSegments.put(location.segmentId, mapped);
+      }
+      ByteBuffer slice = mapped.duplicate();
+      slice.position((int) location.valueOffset);
+      slice.limit((int) location.valueOffset + location.valueLength);
+      byte[] value = new byte[location.valueLength];
+      slice.get(value);
+      return ByteBuffer.wrap(value);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+    readFully(channel, buffer, location.valueOffset);
+    buffer.flip();
+    return buffer;
+  }
+
+  private void compactIfNeeded() throws IOException {
+    if (garbageBytes > MIN_GARBAGE_BEFORE_COMPACTION && garbageBytes > liveBytes) {
+      compact();
+    }
+  }
+
+  /**
+   * Copy live records to new segments, then delete old segments. Old segments are deleted in ascending order, so that if the
+   * process is interrupted, a deleted key can't come back.
+   */
+  public synchronized void compact() throws IOException {
+    open();
+    List<Integer> oldSegmentIds = new ArrayList<>(segments.keySet());
+    Map<String, Location> oldLocations = new HashMap<>(locationByKey);
+    newSegment(segments.lastKey() + 1);
+    liveBytes = 0;
+    for (Map.Entry<String, Location> entry : oldLocations.entrySet()) {
+      ByteBuffer value = readValue(entry.getValue());
+      Location location = append(entry.getKey(), value.array());
+      locationByKey.put(entry.getKey(), location);
+      liveBytes += location.recordSize;
+    }
+    garbageBytes = 0;
+    for (Integer oldSegmentId : oldSegmentIds) {
+      mappedSegments.remove(oldSegmentId);
+      segments.remove(oldSegmentId).close();
+      Files.deleteIfExists(segmentPath(oldSegmentId));
+      Files.deleteIfExists(hintPath(oldSegmentId));
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, offset);
+      if (read < 0) {
+        throw new IOException("Unexpected end of issue store segment");
+      }
+      offset += read;
+    }
+  }
+
+  private static int checksum(byte[] content) {
+    return checksum(content, 0, content.length);
+  }
+
+  private static int checksum(byte[] content, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(content, offset, length);
+    return (int) crc.getValue();
+  }
+
+}
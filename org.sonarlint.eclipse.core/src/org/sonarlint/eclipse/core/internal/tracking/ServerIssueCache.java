@@ -0,0 +1,250 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
+import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
+
+/**
+ * Server issues of the files of one binding, as recently downloaded.
+ * <ul>
+ * <li>issues of a file are downloaded again only once they are older than the TTL</li>
+ * <li>concurrent lookups of the same file share a single download</li>
+ * <li>when many distinct files are requested within a short window, the issues of the whole project are downloaded at once,
+ * and files are then read from the local storage until the TTL expires</li>
+ * <li>expired entries are evicted when read, and all of them at most once per TTL</li>
+ * </ul>
+ */
+public class ServerIssueCache {
+
+  public static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+  public static final long DEFAULT_PREFETCH_WINDOW_MS = TimeUnit.SECONDS.toMillis(10);
+  public static final int DEFAULT_PROJECT_DOWNLOAD_THRESHOLD = 10;
+
+  /**
+   * Where server issues come from. Downloads update the local storage.
+   */
+  public interface ServerIssueSource {
+
+    List<ServerIssue> downloadFileIssues(String filePath);
+
+    void downloadProjectIssues();
+
+    List<ServerIssue> getStoredIssues(String filePath);
+  }
+
+  private static class Entry {
+    private final List<ServerIssue> issues;
+    private final long timestamp;
+
+    private Entry(List<ServerIssue> issues, long timestamp) {
+      this.issues = issues;
+      this.timestamp = timestamp;
+    }
+  }
+
+  private final long ttlMillis;
+  private final long prefetchWindowMillis;
+  private final int projectDownloadThreshold;
+  private final LongSupplier clock;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<List<ServerIssue>>> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, Long> recentRequests = new LinkedHashMap<>();
+  private final Object projectDownloadLock = new Object();
+  private volatile long projectDownloadTimestamp;
+  private volatile boolean projectDownloaded;
+  private volatile long lastEvictionTimestamp;
+
+  public ServerIssueCache() {
+    this(DEFAULT_TTL_MS, DEFAULT_PREFETCH_WINDOW_MS, DEFAULT_PROJECT_DOWNLOAD_THRESHOLD, System::currentTimeMillis);
+  }
+
+  public ServerIssueCache(long ttlMillis, long prefetchWindowMillis, int projectDownloadThreshold, LongSupplier clock) {
+    this.ttlMillis = ttlMillis;
+    this.prefetchWindowMillis = prefetchWindowMillis;
+    this.projectDownloadThreshold = projectDownloadThreshold;
+    this.clock = clock;
+    this.lastEvictionTimestamp = clock.getAsLong();
+  }
+
+  public List<ServerIssue> getServerIssues(ServerIssueSource source, String filePath) {
+    return getServerIssues(source, Collections.singletonList(filePath)).get(filePath);
+  }
+
+  /**
+   * @return server issues per file path, in the order of the given paths
+   */
+  public Map<String, List<ServerIssue>> getServerIssues(ServerIssueSource source, Collection<String> filePaths) {
+    Map<String, List<ServerIssue>> result = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    long now = clock.getAsLong();
+    for (String filePath : filePaths) {
+      Entry entry = entries.get(filePath);
+      if (entry != null && isFresh(entry.timestamp, now)) {
+        result.put(filePath, entry.issues);
+      } else {
+        if (entry != null) {
+          entries.remove(filePath, entry);
+        }
+        missing.add(filePath);
+      }
+    }
+    if (missing.isEmpty()) {
+      return result;
+    }
+    evictExpiredEntries(now);
+    boolean manyFilesRequested = recordRequests(missing, now);
+    if (isProjectFresh(now) || (manyFilesRequested && downloadProjectIssues(source))) {
+      for (String filePath : missing) {
+        List<ServerIssue> issues = source.getStoredIssues(filePath);
+        entries.put(filePath, new Entry(issues, projectDownloadTimestamp));
+        result.put(filePath, issues);
+      }
+    } else {
+      for (String filePath : missing) {
+        result.put(filePath, fetchFileIssues(source, filePath));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Download issues of the whole project, unless it was already done within the TTL.
+   * @return false if the download failed
+   */
+  public boolean downloadProjectIssues(ServerIssueSource source) {
+    synchronized (projectDownloadLock) {
+      if (isProjectFresh(clock.getAsLong())) {
+        return true;
+      }
+      try {
+        source.downloadProjectIssues();
+      } catch (DownloadException e) {
+        SonarLintLogger.get().info(e.getMessage());
+        return false;
+      }
+      projectDownloadTimestamp = clock.getAsLong();
+      projectDownloaded = true;
+      // Issues downloaded for single files before are now older than the storage
+      entries.clear();
+      return true;
+    }
+  }
+
+  public void clear() {
+    synchronized (projectDownloadLock) {
+      projectDownloaded = false;
+      entries.clear();
+    }
+    synchronized (recentRequests) {
+      recentRequests.clear();
+    }
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evictExpiredEntries(long now) {
+    if (isFresh(lastEvictionTimestamp, now)) {
+      return;
+    }
+    lastEvictionTimestamp = now;
+    entries.values().removeIf(entry -> !isFresh(entry.timestamp, now));
+  }
+
+  private List<ServerIssue> fetchFileIssues(ServerIssueSource source, String filePath) {
+    CompletableFuture<List<ServerIssue>> future = new CompletableFuture<>();
+    CompletableFuture<List<ServerIssue>> pending = inFlight.putIfAbsent(filePath, future);
+    if (pending != null) {
+      return join(pending);
+    }
+    try {
+      List<ServerIssue> issues;
+      try {
+        SonarLintLogger.get().debug("Download server issues for " + filePath);
+        issues = source.downloadFileIssues(filePath);
+        entries.put(filePath, new Entry(issues, clock.getAsLong()));
+      } catch (DownloadException e) {
+        SonarLintLogger.get().info(e.getMessage());
+        issues = source.getStoredIssues(filePath);
+      }
+      future.complete(issues);
+      return issues;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(filePath, future);
+    }
+  }
+
+  private static List<ServerIssue> join(CompletableFuture<List<ServerIssue>> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * @return true when the number of distinct files requested within the prefetch window reaches the threshold
+   */
+  private boolean recordRequests(Collection<String> filePaths, long now) {
+    synchronized (recentRequests) {
+      Iterator<Long> it = recentRequests.values().iterator();
+      while (it.hasNext() && now - it.next() > prefetchWindowMillis) {
+        it.remove();
+      }
+      for (String filePath : filePaths) {
+        // Re-insert to keep the map ordered by request time
+        recentRequests.remove(filePath);
+        recentRequests.put(filePath, now);
+      }
+      return recentRequests.size() >= projectDownloadThreshold;
+    }
+  }
+
+  private boolean isProjectFresh(long now) {
+    return projectDownloaded && isFresh(projectDownloadTimestamp, now);
+  }
+
+  private boolean isFresh(long timestamp, long now) {
+    return now - timestamp < ttlMillis;
+  }
+
+}
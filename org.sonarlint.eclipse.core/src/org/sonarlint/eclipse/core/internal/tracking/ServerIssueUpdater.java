@@ -24,6 +24,8 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -36,18 +38,20 @@ import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.engine.connected.ConnectedEngineFacade;
 import org.sonarlint.eclipse.core.internal.jobs.AsyncServerMarkerUpdaterJob;
+import org.sonarlint.eclipse.core.internal.tracking.ServerIssueCache.ServerIssueSource;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintIssuable;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
-import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
 
 public class ServerIssueUpdater {
 
   public static final String PATH_SEPARATOR_PATTERN = Pattern.quote(File.separator);
 
   private final IssueTrackerRegistry issueTrackerRegistry;
+  private final Map<String, ServerIssueCache> cachePerBinding = new ConcurrentHashMap<>();
+  private final Map<ISonarLintProject, Set<String>> bindingKeysPerProject = new ConcurrentHashMap<>();
 
   public ServerIssueUpdater(IssueTrackerRegistry issueTrackerRegistry) {
     this.issueTrackerRegistry = issueTrackerRegistry;
@@ -85,19 +89,21 @@ public class ServerIssueUpdater {
     protected IStatus run(IProgressMonitor monitor) {
       Map<ISonarLintIssuable, Collection<Trackable>> trackedIssues = new HashMap<>();
       try {
-        for (ISonarLintIssuable issuable : issuables) {
+        List<ISonarLintFile> files = issuables.stream()
+          .filter(ISonarLintFile.class::isInstance)
+          .map(ISonarLintFile.class::cast)
+          .collect(Collectors.toList());
+        Map<String, List<ServerIssue>> serverIssuesPerPath = fetchServerIssues(engineFacade, project, projectBinding,
+          files.stream().map(ISonarLintFile::getProjectRelativePath).collect(Collectors.toList()));
+        IssueTracker issueTracker = issueTrackerRegistry.getOrCreate(project);
+        for (ISonarLintFile file : files) {
           if (monitor.isCanceled()) {
             return Status.CANCEL_STATUS;
           }
-          if (issuable instanceof ISonarLintFile) {
-            ISonarLintFile file = ((ISonarLintFile) issuable);
-            IssueTracker issueTracker = issueTrackerRegistry.getOrCreate(project);
-            List<ServerIssue> serverIssues = fetchServerIssues(engineFacade, projectBinding, (ISonarLintFile) issuable);
-            Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
-            Collection<Trackable> tracked = issueTracker.matchAndTrackServerIssues(file, serverIssuesTrackable);
-            issueTracker.updateCache(file, tracked);
-            trackedIssues.put(issuable, tracked);
-          }
+          List<ServerIssue> serverIssues = serverIssuesPerPath.get(file.getProjectRelativePath());
+          Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
+          Collection<Trackable> tracked = issueTracker.matchAndTrackServerIssues(file, serverIssuesTrackable);
+          trackedIssues.put(file, issueTracker.updateCache(file, tracked));
         }
         if (!trackedIssues.isEmpty()) {
           new AsyncServerMarkerUpdaterJob(project, trackedIssues, docPerFile, triggerType).schedule();
@@ -112,16 +118,67 @@ public class ServerIssueUpdater {
 
   }
 
-  public static List<ServerIssue> fetchServerIssues(ConnectedEngineFacade engineFacade,
-    ProjectBinding projectBinding,
-    ISonarLintFile file) {
-    String filePath = file.getProjectRelativePath();
+  public List<ServerIssue> fetchServerIssues(ConnectedEngineFacade engineFacade, ProjectBinding projectBinding, ISonarLintFile file) {
+    return getCache(engineFacade, file.getProject(), projectBinding).getServerIssues(new EngineServerIssueSource(engineFacade, projectBinding), file.getProjectRelativePath());
+  }
+
+  /**
+   * Server issues of several files of the same project. Fetching many files at once downloads issues of the whole project.
+   */
+  public Map<String, List<ServerIssue>> fetchServerIssues(ConnectedEngineFacade engineFacade, ISonarLintProject project, ProjectBinding projectBinding,
+    Collection<String> filePaths) {
+    return getCache(engineFacade, project, projectBinding).getServerIssues(new EngineServerIssueSource(engineFacade, projectBinding), filePaths);
+  }
+
+  public void downloadProjectIssues(ConnectedEngineFacade engineFacade, ISonarLintProject project, ProjectBinding projectBinding) {
+    getCache(engineFacade, project, projectBinding).downloadProjectIssues(new EngineServerIssueSource(engineFacade, projectBinding));
+  }
+
+  /**
+   * Forget server issues downloaded for the bindings of the given project. Bindings still used by other projects keep their cache.
+   */
+  public synchronized void clearCache(ISonarLintProject project) {
+    Set<String> keys = bindingKeysPerProject.remove(project);
+    if (keys != null) {
+      keys.stream()
+        .filter(key -> bindingKeysPerProject.values().stream().noneMatch(otherKeys -> otherKeys.contains(key)))
+        .forEach(key -> {
+          ServerIssueCache cache = cachePerBinding.remove(key);
+          if (cache != null) {
+            cache.clear();
+          }
+        });
+    }
+  }
+
+  private synchronized ServerIssueCache getCache(ConnectedEngineFacade engineFacade, ISonarLintProject project, ProjectBinding projectBinding) {
+    String key = String.join(":", engineFacade.getId(), projectBinding.projectKey(), projectBinding.sqPathPrefix(), projectBinding.idePathPrefix());
+    bindingKeysPerProject.computeIfAbsent(project, p -> ConcurrentHashMap.newKeySet()).add(key);
+    return cachePerBinding.computeIfAbsent(key, k -> new ServerIssueCache());
+  }
+
+  private static class EngineServerIssueSource implements ServerIssueSource {
+    private final ConnectedEngineFacade engineFacade;
+    private final ProjectBinding projectBinding;
 
-    try {
-      SonarLintLogger.get().debug("Download server issues for " + file.getName());
+    private EngineServerIssueSource(ConnectedEngineFacade engineFacade, ProjectBinding projectBinding) {
+      this.engineFacade = engineFacade;
+      this.projectBinding = projectBinding;
+    }
+
+    @Override
+    public List<ServerIssue> downloadFileIssues(String filePath) {
       return engineFacade.downloadServerIssues(projectBinding, filePath);
-    } catch (DownloadException e) {
-      SonarLintLogger.get().info(e.getMessage());
+    }
+
+    @Override
+    public void downloadProjectIssues() {
+      SonarLintLogger.get().debug("Download server issues for project " + projectBinding.projectKey());
+      engineFacade.downloadServerIssues(projectBinding.projectKey());
+    }
+
+    @Override
+    public List<ServerIssue> getStoredIssues(String filePath) {
       return engineFacade.getServerIssues(projectBinding, filePath);
     }
   }
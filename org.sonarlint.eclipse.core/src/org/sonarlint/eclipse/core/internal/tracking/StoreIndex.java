@@ -22,7 +22,7 @@ package org.sonarlint.eclipse.core.internal.tracking;
 import java.nio.file.Path;
 import java.util.Collection;
 
-interface StoreIndex<T> {
+public interface StoreIndex<T> {
   Collection<T> keys();
 
   void save(T key, Path path);
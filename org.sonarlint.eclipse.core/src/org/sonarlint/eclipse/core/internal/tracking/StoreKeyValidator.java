@@ -21,5 +21,5 @@ package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.util.function.Function;
 
-interface StoreKeyValidator<K> extends Function<K, Boolean> {
+public interface StoreKeyValidator<K> extends Function<K, Boolean> {
 }
@@ -19,65 +19,175 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import org.eclipse.jdt.annotation.Nullable;
+import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint.StorageIndexEntry;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
-class StringStoreIndex implements StoreIndex<String> {
+/**
+ * Index kept in memory, and persisted as a snapshot ({@link #INDEX_FILENAME}) plus a journal of changes applied since the snapshot
+ * ({@link #JOURNAL_FILENAME}). Each change is appended to the journal, and the snapshot is rewritten only when the journal becomes
+ * bigger than the index itself, so that writes are O(1) amortized.
+ * <p>
+ * Crash safety: the snapshot is replaced atomically, and a partially written entry at the end of the journal is ignored.
+ */
+public class StringStoreIndex implements StoreIndex<String> {
   public static final String INDEX_FILENAME = "index.pb";
+  public static final String JOURNAL_FILENAME = "index.journal";
+  private static final int MIN_JOURNAL_ENTRIES_BEFORE_COMPACTION = 1000;
+
   private final Path storeBasePath;
   private final Path indexFilePath;
+  private final Path journalFilePath;
+  @Nullable
+  private Map<String, String> mappedPathByKey;
+  private int journalEntryCount;
+  private boolean journalTruncated;
 
   public StringStoreIndex(Path storeBasePath) {
     this.storeBasePath = storeBasePath;
     this.indexFilePath = storeBasePath.resolve(INDEX_FILENAME);
+    this.journalFilePath = storeBasePath.resolve(JOURNAL_FILENAME);
   }
 
   @Override
-  public Collection<String> keys() {
-    return load().keySet();
+  public synchronized Collection<String> keys() {
+    return new ArrayList<>(index().keySet());
   }
 
-  private Map<String, String> load() {
-    if (!indexFilePath.toFile().exists()) {
-      return Collections.emptyMap();
+  @Override
+  public synchronized void save(String storageKey, Path path) {
+    String relativeMappedPath = storeBasePath.relativize(path).toString();
+    if (relativeMappedPath.equals(index().put(storageKey, relativeMappedPath))) {
+      // Nothing changed
+      return;
+    }
+    append(StorageIndexEntry.newBuilder().setKey(storageKey).setMappedPath(relativeMappedPath).build());
+  }
+
+  @Override
+  public synchronized void delete(String storageKey) {
+    if (index().remove(storageKey) == null) {
+      return;
     }
-    try (InputStream stream = Files.newInputStream(indexFilePath)) {
-      return Sonarlint.StorageIndex.parseFrom(stream).getMappedPathByKeyMap();
+    append(StorageIndexEntry.newBuilder().setKey(storageKey).build());
+  }
+
+  /**
+   * Write the whole index in the snapshot, and reset the journal.
+   */
+  public synchronized void compact() {
+    Map<String, String> index = index();
+    // In case folder was deleted while Eclipse was live
+    FileUtils.mkdirs(indexFilePath.getParent());
+    Path tmpFilePath = indexFilePath.resolveSibling(INDEX_FILENAME + ".tmp");
+    try {
+      try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(tmpFilePath))) {
+        Sonarlint.StorageIndex.newBuilder().putAllMappedPathByKey(index).build().writeTo(stream);
+      }
+      Files.move(tmpFilePath, indexFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      Files.deleteIfExists(journalFilePath);
+      journalEntryCount = 0;
     } catch (IOException e) {
-      throw new IllegalStateException("Failed to read local issue store index", e);
+      throw new IllegalStateException("Failed to write local issue store index", e);
     }
   }
 
-  @Override
-  public void save(String storageKey, Path path) {
-    String relativeMappedPath = storeBasePath.relativize(path).toString();
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.putMappedPathByKey(storageKey, relativeMappedPath);
-    save(builder.build());
+  /**
+   * Forget the in-memory index, for example after the store folder was deleted.
+   */
+  public synchronized void reset() {
+    mappedPathByKey = null;
+    journalEntryCount = 0;
   }
 
-  @Override
-  public void delete(String storageKey) {
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.removeMappedPathByKey(storageKey);
-    save(builder.build());
+  private Map<String, String> index() {
+    Map<String, String> index = mappedPathByKey;
+    if (index == null) {
+      journalTruncated = false;
+      index = load();
+      mappedPathByKey = index;
+      if (journalTruncated) {
+        // Don't append new entries after a truncated one
+        compact();
+      }
+    }
+    return index;
+  }
+
+  private Map<String, String> load() {
+    Map<String, String> index = new HashMap<>();
+    if (indexFilePath.toFile().exists()) {
+      try (InputStream stream = new BufferedInputStream(Files.newInputStream(indexFilePath))) {
+        index.putAll(Sonarlint.StorageIndex.parseFrom(stream).getMappedPathByKeyMap());
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to read local issue store index", e);
+      }
+    }
+    journalEntryCount = replayJournal(index);
+    return index;
+  }
+
+  private int replayJournal(Map<String, String> index) {
+    if (!journalFilePath.toFile().exists()) {
+      return 0;
+    }
+    int count = 0;
+    try (InputStream stream = new BufferedInputStream(Files.newInputStream(journalFilePath))) {
+      StorageIndexEntry entry;
+      while ((entry = readEntry(stream)) != null) {
+        if (entry.getMappedPath().isEmpty()) {
+          index.remove(entry.getKey());
+        } else {
+          index.put(entry.getKey(), entry.getMappedPath());
+        }
+        count++;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read local issue store index journal", e);
+    }
+    return count;
+  }
+
+  @Nullable
+  private StorageIndexEntry readEntry(InputStream stream) {
+    try {
+      return StorageIndexEntry.parseDelimitedFrom(stream);
+    } catch (IOException e) {
+      // Entry was not completely written, probably because of a crash
+      journalTruncated = true;
+      SonarLintLogger.get().debug("Ignoring truncated entry at the end of issue store index journal " + journalFilePath);
+      return null;
+    }
   }
 
-  private void save(Sonarlint.StorageIndex index) {
+  private void append(StorageIndexEntry entry) {
+    Map<String, String> index = Objects.requireNonNull(mappedPathByKey);
+    if (journalEntryCount >= Math.max(MIN_JOURNAL_ENTRIES_BEFORE_COMPACTION, index.size())) {
+      // The change is already applied to the in-memory index
+      compact();
+      return;
+    }
     // In case folder was deleted while Eclipse was live
-    FileUtils.mkdirs(indexFilePath.getParent());
-    try (OutputStream stream = Files.newOutputStream(indexFilePath)) {
-      index.writeTo(stream);
+    FileUtils.mkdirs(journalFilePath.getParent());
+    try (OutputStream stream = Files.newOutputStream(journalFilePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      entry.writeDelimitedTo(stream);
+      journalEntryCount++;
     } catch (IOException e) {
       throw new IllegalStateException("Failed to write local issue store index", e);
     }
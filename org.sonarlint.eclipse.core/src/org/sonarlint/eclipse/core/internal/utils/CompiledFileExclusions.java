@@ -0,0 +1,187 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.utils;
+
+import java.io.File;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.sonarlint.eclipse.core.internal.resources.ExclusionItem;
+
+/**
+ * Same matching rules as {@link org.sonarsource.sonarlint.core.client.api.common.FileExclusions}, but glob patterns are indexed by their
+ * leading literal directories in a trie, so that a path is only matched against patterns that could apply to it.
+ * File and directory exclusions are compared as normalized paths, so that <code>src/</code> and <code>./src</code> exclude <code>src</code>.
+ */
+public class CompiledFileExclusions implements Predicate<String> {
+
+  private static final String GLOB_SPECIAL_CHARS = "*?[{\\";
+  /**
+   * Glob matching is case insensitive on Windows, so keep it simple and don't index patterns there.
+   */
+  private static final boolean INDEX_GLOBS = File.separatorChar == '/';
+
+  private static class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    private final List<PathMatcher> matchers = new ArrayList<>();
+  }
+
+  private final Set<Path> fileExclusions = new HashSet<>();
+  private final Set<Path> directoryExclusions = new HashSet<>();
+  private final Node globs = new Node();
+  private final boolean isEmpty;
+
+  public CompiledFileExclusions(Collection<ExclusionItem> exclusions) {
+    FileSystem fs = FileSystems.getDefault();
+    for (ExclusionItem exclusion : exclusions) {
+      switch (exclusion.type()) {
+        case FILE:
+          addPath(fileExclusions, exclusion.item());
+          break;
+        case DIRECTORY:
+          addPath(directoryExclusions, exclusion.item());
+          break;
+        case GLOB:
+          addGlob(fs, exclusion.item());
+          break;
+        default:
+          throw new IllegalStateException("Unsupported exclusion type: " + exclusion.type());
+      }
+    }
+    isEmpty = exclusions.isEmpty();
+  }
+
+  private static void addPath(Set<Path> paths, String item) {
+    try {
+      paths.add(Paths.get(item).normalize());
+    } catch (InvalidPathException e) {
+      // Can't match any file
+    }
+  }
+
+  private void addGlob(FileSystem fs, String pattern) {
+    PathMatcher matcher;
+    try {
+      matcher = fs.getPathMatcher("glob:" + pattern);
+    } catch (Exception e) {
+      // Invalid patterns are ignored, like in FileExclusions
+      return;
+    }
+    Node node = globs;
+    for (String dir : leadingLiteralDirectories(pattern)) {
+      node = node.children.computeIfAbsent(dir, k -> new Node());
+    }
+    node.matchers.add(matcher);
+  }
+
+  /**
+   * Directories at the beginning of the pattern, that any matching path should start with.
+   */
+  public static List<String> leadingLiteralDirectories(String pattern) {
+    List<String> dirs = new ArrayList<>();
+    if (!INDEX_GLOBS) {
+      return dirs;
+    }
+    int start = 0;
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (GLOB_SPECIAL_CHARS.indexOf(c) >= 0) {
+        break;
+      }
+      if (c == '/') {
+        if (i == start) {
+          // Absolute pattern or empty directory name: don't try to be smart
+          break;
+        }
+        dirs.add(pattern.substring(start, i));
+        start = i + 1;
+      }
+    }
+    return dirs;
+  }
+
+  @Override
+  public boolean test(String relativePath) {
+    if (isEmpty) {
+      return false;
+    }
+    Path path;
+    try {
+      path = Paths.get(relativePath);
+    } catch (InvalidPathException e) {
+      return false;
+    }
+    return test(path);
+  }
+
+  public boolean test(Path path) {
+    return testFileExclusions(path) || testDirectoryExclusions(path) || testGlobs(path);
+  }
+
+  private boolean testFileExclusions(Path path) {
+    return !fileExclusions.isEmpty() && fileExclusions.contains(path.normalize());
+  }
+
+  private boolean testDirectoryExclusions(Path path) {
+    if (directoryExclusions.isEmpty()) {
+      return false;
+    }
+    Path current = path.normalize();
+    while (current != null) {
+      if (directoryExclusions.contains(current)) {
+        return true;
+      }
+      current = current.getParent();
+    }
+    return false;
+  }
+
+  private boolean testGlobs(Path path) {
+    Node node = globs;
+    int dirCount = path.getNameCount() - 1;
+    for (int i = 0;; i++) {
+      for (PathMatcher matcher : node.matchers) {
+        if (matcher.matches(path)) {
+          return true;
+        }
+      }
+      if (i >= dirCount || node.children.isEmpty() || path.isAbsolute()) {
+        return false;
+      }
+      Node child = node.children.get(path.getName(i).toString());
+      if (child == null) {
+        return false;
+      }
+      node = child;
+    }
+  }
+
+}
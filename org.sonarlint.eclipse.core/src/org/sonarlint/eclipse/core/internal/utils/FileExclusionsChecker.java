@@ -19,14 +19,20 @@
  */
 package org.sonarlint.eclipse.core.internal.utils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.jdt.annotation.Nullable;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.engine.connected.ResolvedBinding;
 import org.sonarlint.eclipse.core.internal.jobs.SonarLintMarkerUpdater;
 import org.sonarlint.eclipse.core.internal.jobs.TestFileClassifier;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintGlobalConfiguration;
@@ -35,55 +41,78 @@ import org.sonarlint.eclipse.core.internal.resources.ExclusionItem;
 import org.sonarlint.eclipse.core.internal.resources.ExclusionItem.Type;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
-import org.sonarsource.sonarlint.core.client.api.common.FileExclusions;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintException;
 
-import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 
 public class FileExclusionsChecker {
-  private FileExclusions projectExclusions;
-  private FileExclusions globalExclusions;
+
+  /**
+   * Verdicts of a project are forgotten when there are too many of them.
+   */
+  private static final int MAX_CACHED_VERDICTS = 100_000;
+  private static final Map<ISonarLintProject, CompiledExclusions> COMPILED_EXCLUSIONS = new ConcurrentHashMap<>();
+
+  private enum Verdict {
+    NOT_EXCLUDED(null),
+    /**
+     * Not excluded locally, server side exclusions still to be checked
+     */
+    NOT_EXCLUDED_LOCALLY(null),
+    GLOBAL("global"),
+    PROJECT("project"),
+    SERVER("server side");
+
+    @Nullable
+    private final String source;
+
+    Verdict(@Nullable String source) {
+      this.source = source;
+    }
+  }
+
+  private final CompiledExclusions exclusions;
 
   public FileExclusionsChecker(ISonarLintProject project) {
     SonarLintProjectConfiguration projectConfiguration = SonarLintCorePlugin.loadConfig(project);
     List<ExclusionItem> globalExclusionItems = SonarLintGlobalConfiguration.getGlobalExclusions();
-    List<ExclusionItem> projectExclusionItems = projectConfiguration.getFileExclusions();
-
-    Set<String> projectFileExclusions = getExclusionsOfType(projectExclusionItems, Type.FILE);
-    Set<String> projectDirectoryExclusions = getExclusionsOfType(projectExclusionItems, Type.DIRECTORY);
-    Set<String> projectGlobExclusions = getExclusionsOfType(projectExclusionItems, Type.GLOB);
-    Set<String> globalGlobExclusions = getExclusionsOfType(globalExclusionItems, Type.GLOB);
-
-    projectExclusions = new FileExclusions(projectFileExclusions, projectDirectoryExclusions, projectGlobExclusions);
-    globalExclusions = new FileExclusions(globalGlobExclusions);
+    String testFileRegexps = SonarLintGlobalConfiguration.getTestFileRegexps();
+    Optional<ResolvedBinding> binding = SonarLintCorePlugin.getServersManager().resolveBinding(project, projectConfiguration);
+    // Forget exclusions of deleted and closed projects
+    COMPILED_EXCLUSIONS.keySet().removeIf(p -> !p.equals(project) && !p.isOpen());
+    this.exclusions = COMPILED_EXCLUSIONS.compute(project, (p, previous) -> {
+      if (previous != null && previous.isCompiledFor(projectConfiguration, globalExclusionItems, testFileRegexps, binding.orElse(null))) {
+        return previous;
+      }
+      return new CompiledExclusions(projectConfiguration, globalExclusionItems, testFileRegexps, binding.orElse(null));
+    });
   }
 
   public Collection<ISonarLintFile> filterExcludedFiles(ISonarLintProject project, Collection<ISonarLintFile> files) {
     return filterExcludedFiles(project, files, true);
   }
 
+  /**
+   * Evaluates exclusions of all files at once: local exclusions are matched first, then remaining files are checked against
+   * server side exclusions in a single call. Verdicts are cached until the configuration changes, and server side verdicts also
+   * until the file is classified differently as test or main.
+   */
   public Collection<ISonarLintFile> filterExcludedFiles(ISonarLintProject project, Collection<ISonarLintFile> files, boolean log) {
-    Set<ISonarLintFile> notExcluded = files
-      .stream()
-      .filter(file -> !isExcludedByLocalConfiguration(file, log))
-      .collect(toCollection(HashSet::new));
-
-    SonarLintCorePlugin.getServersManager()
-      .resolveBinding(project)
-      .ifPresent(binding -> {
-        TestFileClassifier testFileClassifier = TestFileClassifier.get();
-        try {
-          List<ISonarLintFile> excludedByServerSideExclusions = binding.getEngineFacade().getServerFileExclusions(binding.getProjectBinding(), notExcluded,
-            testFileClassifier::isTest);
-          notExcluded.removeAll(excludedByServerSideExclusions);
-          excludedByServerSideExclusions.forEach(file -> {
-            notExcluded.remove(file);
-            logIfNeeded(file, log, "server side");
-          });
-        } catch (SonarLintException e) {
-          SonarLintLogger.get().error("Unable to read server side exclusions. Check your binding.", e);
-        }
-      });
+    Set<ISonarLintFile> notExcluded = new HashSet<>();
+    List<ISonarLintFile> toCheckOnServer = new ArrayList<>();
+    for (ISonarLintFile file : files) {
+      Verdict verdict = exclusions.getVerdict(file.getProjectRelativePath());
+      if (verdict == Verdict.NOT_EXCLUDED) {
+        notExcluded.add(file);
+      } else if (verdict == Verdict.NOT_EXCLUDED_LOCALLY) {
+        toCheckOnServer.add(file);
+      } else {
+        logIfNeeded(file, log, verdict);
+      }
+    }
+    if (!toCheckOnServer.isEmpty()) {
+      notExcluded.addAll(exclusions.checkServerSideExclusions(toCheckOnServer, log));
+    }
     return notExcluded;
   }
 
@@ -91,30 +120,137 @@ public class FileExclusionsChecker {
     return filterExcludedFiles(file.getProject(), Collections.singletonList(file), log).isEmpty();
   }
 
-  private boolean isExcludedByLocalConfiguration(ISonarLintFile file, boolean log) {
-    String relativePath = file.getProjectRelativePath();
+  private static void logIfNeeded(ISonarLintFile file, boolean log, Verdict verdict) {
+    if (log) {
+      SonarLintLogger.get().debug("File '" + file.getName() + "' excluded from analysis due to configured " + verdict.source + " exclusions");
+    }
+  }
+
+  /**
+   * Exclusions of a project, compiled for a given configuration, with the verdicts of paths already checked.
+   */
+  private static class CompiledExclusions {
+    private final long configVersion;
+    private final List<ExclusionItem> globalExclusionItems;
+    private final String testFileRegexps;
+    @Nullable
+    private final ResolvedBinding binding;
+    private final long storageVersion;
+    private final CompiledFileExclusions globalExclusions;
+    private final CompiledFileExclusions projectExclusions;
+    private final Map<String, Verdict> verdicts = new ConcurrentHashMap<>();
+    /**
+     * Server side exclusions depend on the classification of files as test or main, which changes for example with the classpath,
+     * so server verdicts are kept apart for each classification.
+     */
+    private final Map<String, Verdict> serverVerdictsOfMainFiles = new ConcurrentHashMap<>();
+    private final Map<String, Verdict> serverVerdictsOfTestFiles = new ConcurrentHashMap<>();
 
-    if (globalExclusions.test(relativePath)) {
-      logIfNeeded(file, log, "global");
-      return true;
+    private CompiledExclusions(SonarLintProjectConfiguration projectConfiguration, List<ExclusionItem> globalExclusionItems, String testFileRegexps,
+      @Nullable ResolvedBinding binding) {
+      this.configVersion = projectConfiguration.getVersion();
+      this.globalExclusionItems = globalExclusionItems;
+      this.testFileRegexps = testFileRegexps;
+      this.binding = binding;
+      this.storageVersion = binding != null ? binding.getEngineFacade().getStorageVersion() : 0;
+      this.globalExclusions = new CompiledFileExclusions(globalExclusionItems.stream().filter(e -> e.type() == Type.GLOB).collect(toList()));
+      this.projectExclusions = new CompiledFileExclusions(projectConfiguration.getFileExclusions());
     }
 
-    if (projectExclusions.test(relativePath)) {
-      logIfNeeded(file, log, "project");
-      return true;
+    private boolean isCompiledFor(SonarLintProjectConfiguration projectConfiguration, List<ExclusionItem> globalExclusionItems, String testFileRegexps,
+      @Nullable ResolvedBinding binding) {
+      // Modifiable configurations have no version, don't trust them
+      if (configVersion == 0 || configVersion != projectConfiguration.getVersion()) {
+        return false;
+      }
+      return isSameBinding(binding) && this.globalExclusionItems.equals(globalExclusionItems) && Objects.equals(this.testFileRegexps, testFileRegexps);
     }
 
-    return false;
-  }
+    private boolean isSameBinding(@Nullable ResolvedBinding other) {
+      if (binding == null || other == null) {
+        return binding == other;
+      }
+      return binding.getEngineFacade() == other.getEngineFacade()
+        && binding.getProjectBinding().equals(other.getProjectBinding())
+        && storageVersion == other.getEngineFacade().getStorageVersion();
+    }
 
-  private static void logIfNeeded(ISonarLintFile file, boolean log, String exclusionSource) {
-    if (log) {
-      SonarLintLogger.get().debug("File '" + file.getName() + "' excluded from analysis due to configured " + exclusionSource + " exclusions");
+    private Verdict getVerdict(String relativePath) {
+      Verdict verdict = verdicts.get(relativePath);
+      if (verdict == null) {
+        verdict = computeLocalVerdict(relativePath);
+        cache(verdicts, relativePath, verdict);
+      }
+      return verdict;
+    }
+
+    private Verdict computeLocalVerdict(String relativePath) {
+      if (globalExclusions.test(relativePath)) {
+        return Verdict.GLOBAL;
+      }
+      if (projectExclusions.test(relativePath)) {
+        return Verdict.PROJECT;
+      }
+      return binding != null ? Verdict.NOT_EXCLUDED_LOCALLY : Verdict.NOT_EXCLUDED;
+    }
+
+    private static void cache(Map<String, Verdict> verdicts, String relativePath, Verdict verdict) {
+      if (verdicts.size() >= MAX_CACHED_VERDICTS) {
+        verdicts.clear();
+      }
+      verdicts.put(relativePath, verdict);
+    }
+
+    private Map<String, Verdict> serverVerdicts(boolean isTest) {
+      return isTest ? serverVerdictsOfTestFiles : serverVerdictsOfMainFiles;
+    }
+
+    /**
+     * @return files not excluded by server side exclusions
+     */
+    private Collection<ISonarLintFile> checkServerSideExclusions(List<ISonarLintFile> files, boolean log) {
+      ResolvedBinding resolvedBinding = Objects.requireNonNull(binding);
+      Set<ISonarLintFile> testFiles = TestFileClassifier.get().getTestFiles(files);
+      List<ISonarLintFile> notExcluded = new ArrayList<>(files.size());
+      List<ISonarLintFile> toCheck = new ArrayList<>();
+      for (ISonarLintFile file : files) {
+        Verdict verdict = serverVerdicts(testFiles.contains(file)).get(file.getProjectRelativePath());
+        if (verdict == null) {
+          toCheck.add(file);
+        } else if (verdict == Verdict.NOT_EXCLUDED) {
+          notExcluded.add(file);
+        } else {
+          logIfNeeded(file, log, verdict);
+        }
+      }
+      if (toCheck.isEmpty()) {
+        return notExcluded;
+      }
+      Set<ISonarLintFile> excluded;
+      try {
+        excluded = new HashSet<>(resolvedBinding.getEngineFacade().getServerFileExclusions(resolvedBinding.getProjectBinding(), toCheck,
+          testFiles::contains));
+      } catch (SonarLintException e) {
+        SonarLintLogger.get().error("Unable to read server side exclusions. Check your binding.", e);
+        notExcluded.addAll(toCheck);
+        return notExcluded;
+      }
+      for (ISonarLintFile file : toCheck) {
+        Map<String, Verdict> serverVerdicts = serverVerdicts(testFiles.contains(file));
+        if (excluded.contains(file)) {
+          cache(serverVerdicts, file.getProjectRelativePath(), Verdict.SERVER);
+          logIfNeeded(file, log, Verdict.SERVER);
+        } else {
+          cache(serverVerdicts, file.getProjectRelativePath(), Verdict.NOT_EXCLUDED);
+          notExcluded.add(file);
+        }
+      }
+      return notExcluded;
     }
   }
 
   public static void addProjectFileExclusion(ISonarLintProject project, ISonarLintFile file, ExclusionItem exclusion) {
-    SonarLintProjectConfiguration projectConfiguration = SonarLintCorePlugin.loadConfig(project);
+    SonarLintProjectConfiguration projectConfiguration = SonarLintCorePlugin.loadConfig(project).copy();
     projectConfiguration.getFileExclusions().add(exclusion);
     SonarLintCorePlugin.saveConfig(project, projectConfiguration);
     SonarLintMarkerUpdater.clearMarkers(file);
@@ -128,10 +264,4 @@ public class FileExclusionsChecker {
     return fileExclusions.stream().anyMatch(e -> e.type() == Type.FILE && path.equals(e.item()));
   }
 
-  private static Set<String> getExclusionsOfType(Collection<ExclusionItem> exclusions, ExclusionItem.Type type) {
-    return exclusions.stream()
-      .filter(e -> e.type() == type)
-      .map(ExclusionItem::item)
-      .collect(Collectors.toSet());
-  }
 }
@@ -0,0 +1,74 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.jdt.internal;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.sonarlint.eclipse.core.internal.jobs.TestFileClassifier;
+
+/**
+ * Forget classification of files and cached classpath configuration of Java projects when their classpath (including output
+ * locations) changes, since both depend on classpath entries.
+ */
+class ClasspathChangeListener implements IElementChangedListener {
+
+  private static final AtomicBoolean REGISTERED = new AtomicBoolean();
+  private static final int CLASSPATH_CHANGE_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED;
+  private static final int ROOT_CHANGE_FLAGS = IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+    | IJavaElementDelta.F_REORDER;
+
+  private ClasspathChangeListener() {
+  }
+
+  static void register() {
+    if (REGISTERED.compareAndSet(false, true)) {
+      JavaCore.addElementChangedListener(new ClasspathChangeListener(), ElementChangedEvent.POST_CHANGE);
+    }
+  }
+
+  @Override
+  public void elementChanged(ElementChangedEvent event) {
+    for (IJavaElementDelta projectDelta : event.getDelta().getAffectedChildren()) {
+      if (projectDelta.getElement().getElementType() == IJavaElement.JAVA_PROJECT && isClasspathChange(projectDelta)) {
+        TestFileClassifier.get().invalidate(projectDelta.getElement().getElementName());
+        JdtUtils.invalidate((IJavaProject) projectDelta.getElement());
+      }
+    }
+  }
+
+  static boolean isClasspathChange(IJavaElementDelta projectDelta) {
+    if (projectDelta.getKind() != IJavaElementDelta.CHANGED || (projectDelta.getFlags() & CLASSPATH_CHANGE_FLAGS) != 0) {
+      return true;
+    }
+    for (IJavaElementDelta childDelta : projectDelta.getAffectedChildren()) {
+      if (childDelta.getElement().getElementType() == IJavaElement.PACKAGE_FRAGMENT_ROOT
+        && (childDelta.getKind() != IJavaElementDelta.CHANGED || (childDelta.getFlags() & ROOT_CHANGE_FLAGS) != 0)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
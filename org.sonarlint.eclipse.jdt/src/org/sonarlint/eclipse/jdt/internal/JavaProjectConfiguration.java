@@ -30,6 +30,7 @@ public class JavaProjectConfiguration {
   private final Set<String> testLibraries = new LinkedHashSet<>();
   private final Set<String> binaries = new LinkedHashSet<>();
   private final Set<String> testBinaries = new LinkedHashSet<>();
+  private boolean complete = true;
 
   public Set<Object> dependentProjects() {
     return dependentProjects;
@@ -55,4 +56,15 @@ public class JavaProjectConfiguration {
     return testBinaries;
   }
 
+  /**
+   * Some entries were skipped because they were not found on disk (yet), so this configuration should not be reused.
+   */
+  public void markIncomplete() {
+    complete = false;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
 }
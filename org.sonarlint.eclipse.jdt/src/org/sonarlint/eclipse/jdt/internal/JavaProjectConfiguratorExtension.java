@@ -40,6 +40,9 @@ public class JavaProjectConfiguratorExtension implements IAnalysisConfigurator,
   public JavaProjectConfiguratorExtension() {
     jdtPresent = isJdtPresent();
     javaProjectConfigurator = jdtPresent ? new JdtUtils() : null;
+    if (jdtPresent) {
+      ClasspathChangeListener.register();
+    }
   }
 
   private static boolean isJdtPresent() {
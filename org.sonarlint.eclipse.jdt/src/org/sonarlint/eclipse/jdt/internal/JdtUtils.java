@@ -21,7 +21,10 @@ package org.sonarlint.eclipse.jdt.internal;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -49,6 +52,13 @@ import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 
 public class JdtUtils {
 
+  /**
+   * Classpath configurations are expensive to compute on large workspaces, and only change with the classpath of the project
+   * or of one of the projects it depends on. See {@link ClasspathChangeListener}.
+   */
+  private static final Map<IJavaProject, JavaProjectConfiguration> CONFIGURATION_CACHE = new ConcurrentHashMap<>();
+  private static final AtomicLong INVALIDATION_STAMP = new AtomicLong();
+
   public void configure(IPreAnalysisContext context, IProgressMonitor monitor) {
     IProject project = (IProject) context.getProject().getResource();
     if (project != null) {
@@ -101,14 +111,48 @@ public class JdtUtils {
     context.setAnalysisProperty("sonar.java.source", javaSource);
     context.setAnalysisProperty("sonar.java.target", javaTarget);
 
-    try {
-      JavaProjectConfiguration configuration = new JavaProjectConfiguration();
-      configuration.dependentProjects().add(javaProject);
-      addClassPathToSonarProject(javaProject, configuration, true, false, false);
-      configurationToProperties(context, configuration);
-    } catch (JavaModelException e) {
-      SonarLintLogger.get().error(e.getMessage(), e);
+    long start = System.nanoTime();
+    JavaProjectConfiguration configuration = CONFIGURATION_CACHE.get(javaProject);
+    boolean cached = configuration != null;
+    if (configuration == null) {
+      long stamp = INVALIDATION_STAMP.get();
+      try {
+        configuration = computeConfiguration(javaProject);
+      } catch (JavaModelException e) {
+        SonarLintLogger.get().error(e.getMessage(), e);
+        return;
+      }
+      // Don't keep a configuration computed while the classpath was changing
+      if (configuration.isComplete() && INVALIDATION_STAMP.get() == stamp) {
+        CONFIGURATION_CACHE.put(javaProject, configuration);
+      }
     }
+    configurationToProperties(context, configuration);
+    SonarLintLogger.get().debug(String.format("Java classpath of project '%s' configured in %d ms%s", javaProject.getElementName(),
+      (System.nanoTime() - start) / 1_000_000, cached ? " (cached)" : ""));
+  }
+
+  private static JavaProjectConfiguration computeConfiguration(IJavaProject javaProject) throws JavaModelException {
+    JavaProjectConfiguration configuration = new JavaProjectConfiguration();
+    configuration.dependentProjects().add(javaProject);
+    addClassPathToSonarProject(javaProject, configuration, true, false, false);
+    return configuration;
+  }
+
+  /**
+   * Forget the classpath configuration of the given project, and of all projects depending on it.
+   */
+  static void invalidate(IJavaProject changedProject) {
+    INVALIDATION_STAMP.incrementAndGet();
+    CONFIGURATION_CACHE.entrySet().removeIf(e -> e.getKey().equals(changedProject)
+      || e.getValue().dependentProjects().contains(changedProject)
+      || e.getValue().testDependentProjects().contains(changedProject));
+  }
+
+  // Visible for testing
+  static void clearCache() {
+    INVALIDATION_STAMP.incrementAndGet();
+    CONFIGURATION_CACHE.clear();
   }
 
   /**
@@ -197,6 +241,7 @@ public class JdtUtils {
       }
     } else {
       SonarLintLogger.get().debug("Binary directory '" + outputDir + "' was not added because it was not found. Maybe you should enable auto build of your project.");
+      context.markIncomplete();
     }
   }
 
@@ -229,6 +274,8 @@ public class JdtUtils {
       } else {
         addMainClasspathEntry(context, libPath);
       }
+    } else {
+      context.markIncomplete();
     }
   }
 
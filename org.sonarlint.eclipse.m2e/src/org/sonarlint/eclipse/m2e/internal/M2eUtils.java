@@ -19,24 +19,34 @@
  */
 package org.sonarlint.eclipse.m2e.internal;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.internal.localstore.FileSystemResourceManager;
 import org.eclipse.core.internal.resources.ICoreConstants;
 import org.eclipse.core.internal.resources.Resource;
-import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.m2e.core.MavenPlugin;
 import org.eclipse.m2e.core.internal.IMavenConstants;
 import org.eclipse.m2e.core.project.IMavenProjectFacade;
 import org.eclipse.m2e.core.project.IMavenProjectRegistry;
+import org.eclipse.m2e.core.project.MavenProjectChangedEvent;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 
 public class M2eUtils {
 
+  /**
+   * Cache of whether projects are Maven projects with pom packaging, invalidated when m2e reports a change of the project.
+   */
+  private static final Map<IProject, Boolean> POM_PACKAGING = new ConcurrentHashMap<>();
+  private static final AtomicBoolean LISTENING = new AtomicBoolean();
+
   private M2eUtils() {
   }
 
@@ -45,15 +55,23 @@ public class M2eUtils {
    * When it is the case we want to keep the most specific one.
    */
   public static boolean isInNestedModule(IFile file) {
-    IProject project = file.getProject();
+    return isPomPackaging(file.getProject()) && !toSpecificFile(file).equals(file);
+  }
+
+  private static boolean isPomPackaging(IProject project) {
+    if (LISTENING.compareAndSet(false, true)) {
+      MavenPlugin.getMavenProjectRegistry().addMavenProjectChangedListener(M2eUtils::mavenProjectChanged);
+    }
+    return POM_PACKAGING.computeIfAbsent(project, M2eUtils::computePomPackaging);
+  }
+
+  private static boolean computePomPackaging(IProject project) {
     try {
       if (project.hasNature(IMavenConstants.NATURE_ID)) {
         IMavenProjectRegistry projectManager = MavenPlugin.getMavenProjectRegistry();
 
         IMavenProjectFacade projectFacade = projectManager.create(project, null);
-        if (projectFacade != null && "pom".equals(projectFacade.getPackaging())) {
-          return !toSpecificFile(file).equals(file);
-        }
+        return projectFacade != null && "pom".equals(projectFacade.getPackaging());
       }
     } catch (CoreException ex) {
       SonarLintLogger.get().error(ex.getMessage(), ex);
@@ -61,6 +79,19 @@ public class M2eUtils {
     return false;
   }
 
+  private static void mavenProjectChanged(MavenProjectChangedEvent[] events, IProgressMonitor monitor) {
+    for (MavenProjectChangedEvent event : events) {
+      forgetPackaging(event.getMavenProject());
+      forgetPackaging(event.getOldMavenProject());
+    }
+  }
+
+  private static void forgetPackaging(@Nullable IMavenProjectFacade facade) {
+    if (facade != null) {
+      POM_PACKAGING.remove(facade.getProject());
+    }
+  }
+
   private static IFile toSpecificFile(IFile file) {
     IFile finalFile = file;
     IPath rawLocation = file.getRawLocation();
@@ -76,29 +107,22 @@ public class M2eUtils {
   }
 
   /**
-   * Copied from {@link FileSystemResourceManager} of Oxygen to support older Eclipse versions
+   * Same result as {@link FileSystemResourceManager} of Oxygen, to support older Eclipse versions, but looking up
+   * the projects containing the location in a {@link ProjectLocationIndex}.
    */
   @Nullable
   private static IFile resourceForLocation(IPath location) {
-    int resultProjectPathSegments = 0;
-    IFile result = null;
-    IProject[] projects = ResourcesPlugin.getWorkspace().getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
-    for (int i = 0; i < projects.length; i++) {
-      IProject project = projects[i];
+    for (IProject project : ProjectLocationIndex.get().projectsContaining(location)) {
       IPath projectLocation = project.getLocation();
-      if (projectLocation != null && projectLocation.isPrefixOf(location)) {
-        int segmentsToRemove = projectLocation.segmentCount();
-        if (segmentsToRemove > resultProjectPathSegments) {
-          IPath path = project.getFullPath().append(location.removeFirstSegments(segmentsToRemove));
-          IFile resource = resourceFor(path);
-          if (resource != null && !((Resource) resource).isFiltered()) {
-            resultProjectPathSegments = segmentsToRemove;
-            result = resource;
-          }
+      if (projectLocation != null) {
+        IPath path = project.getFullPath().append(location.removeFirstSegments(projectLocation.segmentCount()));
+        IFile resource = resourceFor(path);
+        if (resource != null && !((Resource) resource).isFiltered()) {
+          return resource;
         }
       }
     }
-    return result;
+    return null;
   }
 
   @Nullable
@@ -0,0 +1,152 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2020 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.m2e.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Workspace wide index of project locations, to find projects containing a location in O(path depth) instead of
+ * comparing the location with the location of every project. Built on first use, and rebuilt after projects are added,
+ * removed, opened, closed or moved.
+ */
+public class ProjectLocationIndex implements IResourceChangeListener {
+
+  private static final ProjectLocationIndex INSTANCE = new ProjectLocationIndex(() -> ResourcesPlugin.getWorkspace().getRoot().getProjects(IContainer.INCLUDE_HIDDEN));
+  private static final int PROJECT_CHANGE_FLAGS = IResourceDelta.OPEN | IResourceDelta.DESCRIPTION | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+
+  private final AtomicBoolean registered = new AtomicBoolean();
+  private final Supplier<IProject[]> projectsSupplier;
+  @Nullable
+  private volatile Node root;
+
+  public ProjectLocationIndex(Supplier<IProject[]> projectsSupplier) {
+    this.projectsSupplier = projectsSupplier;
+  }
+
+  static ProjectLocationIndex get() {
+    if (INSTANCE.registered.compareAndSet(false, true)) {
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(INSTANCE, IResourceChangeEvent.POST_CHANGE);
+    }
+    return INSTANCE;
+  }
+
+  /**
+   * @return projects whose location contains the given location, the most specific first
+   */
+  public List<IProject> projectsContaining(IPath location) {
+    Node node = root;
+    if (node == null) {
+      node = getOrBuild();
+    }
+    List<IProject> result = new ArrayList<>();
+    node = node.children.get(deviceKey(location));
+    for (int i = 0; node != null; i++) {
+      if (node.projects != null) {
+        result.addAll(0, node.projects);
+      }
+      node = i < location.segmentCount() ? node.children.get(location.segment(i)) : null;
+    }
+    return result;
+  }
+
+  private synchronized Node getOrBuild() {
+    Node node = root;
+    if (node == null) {
+      node = build();
+      root = node;
+    }
+    return node;
+  }
+
+  synchronized void invalidate() {
+    root = null;
+  }
+
+  private Node build() {
+    Node newRoot = new Node();
+    for (IProject project : projectsSupplier.get()) {
+      IPath location = project.getLocation();
+      if (location != null) {
+        Node node = newRoot.child(deviceKey(location));
+        for (String segment : location.segments()) {
+          node = node.child(segment);
+        }
+        node.addProject(project);
+      }
+    }
+    return newRoot;
+  }
+
+  /**
+   * Devices are compared ignoring case, like in {@link IPath#isPrefixOf(IPath)}
+   */
+  private static String deviceKey(IPath location) {
+    String device = location.getDevice();
+    return device != null ? device.toUpperCase(Locale.ENGLISH) : "";
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    if (delta == null) {
+      return;
+    }
+    for (IResourceDelta projectDelta : delta.getAffectedChildren(IResourceDelta.ADDED | IResourceDelta.REMOVED | IResourceDelta.CHANGED, IContainer.INCLUDE_HIDDEN)) {
+      if (projectDelta.getResource().getType() == IResource.PROJECT
+        && (projectDelta.getKind() != IResourceDelta.CHANGED || (projectDelta.getFlags() & PROJECT_CHANGE_FLAGS) != 0)) {
+        invalidate();
+        return;
+      }
+    }
+  }
+
+  private static class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    @Nullable
+    private List<IProject> projects;
+
+    Node child(String segment) {
+      return children.computeIfAbsent(segment, s -> new Node());
+    }
+
+    void addProject(IProject project) {
+      if (projects == null) {
+        projects = new ArrayList<>(1);
+      }
+      projects.add(project);
+    }
+  }
+
+}
@@ -46,7 +46,7 @@ import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.adapter.Adapters;
 import org.sonarlint.eclipse.core.internal.engine.connected.IConnectedEngineFacade;
-import org.sonarlint.eclipse.core.internal.jobs.AbstractAnalyzeProjectJob;
+import org.sonarlint.eclipse.core.internal.jobs.AnalysisScheduler;
 import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest;
 import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
 import org.sonarlint.eclipse.core.internal.preferences.SonarLintProjectConfiguration;
@@ -77,6 +77,10 @@ public class JobUtils {
     }
   }
 
+  /**
+   * Automatic analyses are not scheduled right away but go through the {@link AnalysisScheduler}, that merges requests
+   * received in a short period of time.
+   */
   public static void scheduleAutoAnalysisIfEnabled(AnalyzeProjectRequest request) {
     ISonarLintProject project = request.getProject();
     if (!project.isOpen()) {
@@ -84,7 +88,7 @@ public class JobUtils {
     }
     SonarLintProjectConfiguration projectConfiguration = SonarLintCorePlugin.loadConfig(project);
     if (projectConfiguration.isAutoEnabled()) {
-      AbstractAnalyzeProjectJob.create(request).schedule();
+      SonarLintCorePlugin.getAnalysisScheduler().schedule(request);
     }
   }
 
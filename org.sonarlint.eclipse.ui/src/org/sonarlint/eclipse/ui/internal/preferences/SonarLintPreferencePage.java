@@ -27,6 +27,7 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringButtonFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.swt.SWT;
@@ -75,6 +76,10 @@ public class SonarLintPreferencePage extends FieldEditorPreferencePage implement
     addField(new StringFieldEditor(SonarLintGlobalConfiguration.PREF_TEST_FILE_REGEXPS,
       Messages.SonarPreferencePage_label_test_file_regexps, getFieldEditorParent()));
     addField(new NodeJsField(getFieldEditorParent()));
+    IntegerFieldEditor maxConcurrentAnalyses = new IntegerFieldEditor(SonarLintGlobalConfiguration.PREF_MAX_CONCURRENT_ANALYSES,
+      Messages.SonarPreferencePage_label_max_concurrent_analyses, getFieldEditorParent());
+    maxConcurrentAnalyses.setValidRange(1, Runtime.getRuntime().availableProcessors());
+    addField(maxConcurrentAnalyses);
   }
 
   private static class NodeJsField extends StringButtonFieldEditor {
@@ -36,6 +36,7 @@ public class SonarLintPreferencesInitializer extends AbstractPreferenceInitializ
     node.putInt(SonarLintGlobalConfiguration.PREF_MARKER_SEVERITY, SonarLintGlobalConfiguration.PREF_MARKER_SEVERITY_DEFAULT);
     node.put(SonarLintGlobalConfiguration.PREF_EXTRA_ARGS, SonarLintGlobalConfiguration.PREF_DEFAULT);
     node.put(SonarLintGlobalConfiguration.PREF_TEST_FILE_REGEXPS, SonarLintGlobalConfiguration.PREF_TEST_FILE_REGEXPS_DEFAULT);
+    node.putInt(SonarLintGlobalConfiguration.PREF_MAX_CONCURRENT_ANALYSES, SonarLintGlobalConfiguration.PREF_MAX_CONCURRENT_ANALYSES_DEFAULT);
   }
 
 }
@@ -267,7 +267,7 @@ public class FileExclusionsPage extends AbstractListPropertyPage implements IWor
       getPreferenceStore().setValue(SonarLintGlobalConfiguration.PREF_FILE_EXCLUSIONS, serialized);
       JobUtils.scheduleAnalysisOfOpenFiles((ISonarLintProject) null, TriggerType.STANDALONE_CONFIG_CHANGE);
     } else {
-      SonarLintProjectConfiguration projectConfig = getProjectConfig();
+      SonarLintProjectConfiguration projectConfig = getProjectConfig().copy();
       projectConfig.getFileExclusions().clear();
       projectConfig.getFileExclusions().addAll(exclusions);
       SonarLintCorePlugin.saveConfig(getProject(), projectConfig);
@@ -407,6 +407,7 @@ public class SonarLintExtraArgumentsPreferenceAndPropertyPage extends AbstractLi
     } else {
       SonarLintProjectConfiguration projectConfig = getProjectConfig();
       if (projectConfig != null) {
+        projectConfig = projectConfig.copy();
         projectConfig.getExtraProperties().clear();
         projectConfig.getExtraProperties().addAll(sonarProperties);
         SonarLintCorePlugin.saveConfig(getProject(), projectConfig);